@@ -75,6 +75,7 @@ import org.eclipse.basyx.components.aas.configuration.AASServerBackend;
 import org.eclipse.basyx.components.aas.configuration.BaSyxAASServerConfiguration;
 import org.eclipse.basyx.components.aas.delegation.DelegationAASServerFeature;
 import org.eclipse.basyx.components.aas.fileadaptation.FileValueAdaptingAASServerFeature;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBWriteBehindBuffer;
 import org.eclipse.basyx.components.aas.mqtt.MqttAASServerFeature;
 import org.eclipse.basyx.components.aas.mqtt.MqttV2AASServerFeature;
 import org.eclipse.basyx.components.aas.servlet.AASAggregatorAASXUploadServlet;
@@ -84,6 +85,8 @@ import org.eclipse.basyx.components.configuration.BaSyxContextConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxMqttConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxSecurityConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBAsyncExecutor;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBDocumentCache;
 import org.eclipse.basyx.extensions.aas.aggregator.aasxupload.AASAggregatorAASXUpload;
 import org.eclipse.basyx.extensions.aas.registration.authorization.AuthorizedAASRegistryProxy;
 import org.eclipse.basyx.extensions.shared.authorization.internal.ElevatedCodeAuthentication;
@@ -128,6 +131,7 @@ public class AASServerComponent implements IComponent {
 	protected List<Collection<AASBundle>> aasBundles = new ArrayList<>();
 
 	private IAASAggregator aggregator;
+	private MongoDBAASServerComponentFactory mongoDBServerComponentFactory;
 	// Watcher for AAS Aggregator functionality
 	private boolean isAASXUploadEnabled = false;
 	
@@ -455,8 +459,28 @@ public class AASServerComponent implements IComponent {
 
 		server.shutdown();
 
+		closeMongoDBResources();
+
 		logger.info("AAS Server stopped");
 	}
+
+	/**
+	 * Finishes pending asynchronous requests and writes buffered updates to the
+	 * database after the server stopped accepting requests, stops watching for
+	 * changes of cached objects and releases the shared client
+	 */
+	private void closeMongoDBResources() {
+		if (!isMongoDBBackend()) {
+			return;
+		}
+		MongoDBAsyncExecutor.closeAll();
+		MongoDBWriteBehindBuffer.closeAll();
+		MongoDBDocumentCache.closeAll();
+		if (mongoDBServerComponentFactory != null) {
+			mongoDBServerComponentFactory.close();
+			mongoDBServerComponentFactory = null;
+		}
+	}
 	
 	private void deregisterAASAndSmAddedDuringRuntime() {
 		if(registry == null) {
@@ -596,26 +620,56 @@ public class AASServerComponent implements IComponent {
 		
 		if (aasBundles != null) {
 			try (final var ignored = ElevatedCodeAuthentication.enterElevatedCodeAuthenticationArea()) {
-				AASBundleHelper.integrate(aggregator, getFlatAASBundles());
+				integrateAASBundles();
 			}
 		}
 
 		if (isAASXUploadEnabled) {
 			return new AASAggregatorAASXUploadServlet(new AASAggregatorAASXUpload(aggregator));
+		} else if (isAsyncRequestsPossible()) {
+			BaSyxMongoDBConfiguration config = createMongoDbConfiguration();
+			return new AASAggregatorServlet(aggregator, MongoDBAsyncExecutor.getInstance(config), config.getAsyncTimeout());
 		} else {
 			return new AASAggregatorServlet(aggregator);
 		}
 	}
 
+	/**
+	 * The authorization relies on the security context of the thread receiving the
+	 * request. Thus, requests are only served asynchronously without authorization.
+	 */
+	private boolean isAsyncRequestsPossible() {
+		return isMongoDBBackend() && !aasConfig.isAuthorizationEnabled() && createMongoDbConfiguration().isAsyncRequestsEnabled();
+	}
+
 	private IAASAggregator createAASAggregator() {
 		if (isMongoDBBackend()) {
 			try (final var ignored = ElevatedCodeAuthentication.enterElevatedCodeAuthenticationArea()) {
-				return new MongoDBAASServerComponentFactory(createMongoDbConfiguration(), createAASServerDecoratorList(), registry).create();
+				mongoDBServerComponentFactory = new MongoDBAASServerComponentFactory(createMongoDbConfiguration(), createAASServerDecoratorList(), registry);
+				return mongoDBServerComponentFactory.create();
 			}
 		}
 		return new InMemoryAASServerComponentFactory(createAASServerDecoratorList(), registry).create();
 	}
 
+	private void integrateAASBundles() {
+		if (isBulkImportPossible()) {
+			mongoDBServerComponentFactory.importBundles(getFlatAASBundles());
+		} else {
+			AASBundleHelper.integrate(aggregator, getFlatAASBundles());
+		}
+	}
+
+	/**
+	 * The bulk import bypasses the decorators of the aggregator and only sets the
+	 * parents of the submodels like the {@link FileValueAdaptingAASServerFeature}
+	 * does. Thus, it is not used if any other feature, e.g. eventing,
+	 * registration, delegation or authorization, is enabled.
+	 */
+	private boolean isBulkImportPossible() {
+		return isMongoDBBackend() && createMongoDbConfiguration().isBulkImportEnabled() && aasServerFeatureList.stream().allMatch(FileValueAdaptingAASServerFeature.class::isInstance);
+	}
+
 	private boolean isMongoDBBackend() {
 		return aasConfig.getAASBackend().equals(AASServerBackend.MONGODB);
 	}
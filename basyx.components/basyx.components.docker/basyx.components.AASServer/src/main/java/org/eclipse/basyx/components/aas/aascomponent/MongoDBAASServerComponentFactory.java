@@ -24,21 +24,27 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.aascomponent;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregatorFactory;
+import org.eclipse.basyx.aas.bundle.AASBundle;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.aas.restapi.api.IAASAPIFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAPIFactory;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregatorFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPIFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAggregatorFactory;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -57,13 +63,47 @@ public class MongoDBAASServerComponentFactory extends AbstractAASServerComponent
 		this.mongoDBConfig = config;
 		this.aasServerRegistry = aasServerRegistry;
 		this.aasServerDecorators = decorators;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientManager.acquire(config);
 	}
 
 	public MongoDBAASServerComponentFactory(BaSyxMongoDBConfiguration config, IAASRegistry aasServerRegistry) {
 		this.mongoDBConfig = config;
 		this.aasServerRegistry = aasServerRegistry;
-		this.client = MongoClients.create(config.getConnectionUrl());
+		this.client = MongoDBClientManager.acquire(config);
+	}
+
+	/**
+	 * Ensures the indexes of the collections and migrates files stored with the
+	 * legacy naming scheme before creating the aggregator
+	 */
+	@Override
+	public IAASAggregator create() {
+		new MongoDBIndexManager(mongoDBConfig, client).ensureAASServerIndexes();
+		MongoDBFileHelper.migrateLegacyFiles(client, mongoDBConfig);
+		return super.create();
+	}
+
+	/**
+	 * Imports the given bundles using bulk writes. The import bypasses the
+	 * decorators, so that e.g. no events are sent for the imported shells and
+	 * submodels.
+	 * 
+	 * @param bundles
+	 *            the bundles to be imported
+	 */
+	public void importBundles(Collection<AASBundle> bundles) {
+		IAASAPIFactory aasAPIFactory = createAASAPIFactory();
+		ISubmodelAggregatorFactory submodelAggregatorFactory = createSubmodelAggregatorFactory(createSubmodelAPIFactory());
+		MongoDBAASAggregator aggregator = (MongoDBAASAggregator) createAASAggregatorFactory(aasAPIFactory, submodelAggregatorFactory).create();
+		aggregator.importBundles(bundles);
+	}
+
+	/**
+	 * Releases the shared MongoDB client of this factory. The client is closed as
+	 * soon as no other component uses it anymore.
+	 */
+	public void close() {
+		MongoDBClientManager.release(client);
 	}
 
 	@Override
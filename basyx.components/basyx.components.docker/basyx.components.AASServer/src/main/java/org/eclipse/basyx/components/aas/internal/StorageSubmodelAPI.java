@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
@@ -93,18 +94,35 @@ public abstract class StorageSubmodelAPI implements ISubmodelAPI {
 		return storageApi.retrieve(identificationId);
 	}
 
+	/**
+	 * Loads the submodel, applies the modification and writes the modified
+	 * submodel back. Storage backends supporting concurrency control should
+	 * override this method, as the modification is applied without any
+	 * synchronization by default.
+	 * 
+	 * @param modification
+	 *            the modification to be applied to the submodel
+	 */
+	protected void modifySubmodel(UnaryOperator<Submodel> modification) {
+		Submodel modified = modification.apply(getSubmodel());
+		storageApi.update(modified, identificationId);
+	}
+
 	@Override
 	public void addSubmodelElement(ISubmodelElement elem) {
-		Submodel submodel = (Submodel) getSubmodel();
-		submodel.addSubmodelElement(elem);
-		storageApi.update(submodel, identificationId);
+		modifySubmodel(submodel -> {
+			submodel.addSubmodelElement(elem);
+			return submodel;
+		});
 	}
 
 	@Override
 	public void addSubmodelElement(String idShortPath, ISubmodelElement elem) {
-		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(getSubmodel()));
-		api.addSubmodelElement(idShortPath, elem);
-		storageApi.update(api.getSubmodel(), identificationId);
+		modifySubmodel(submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.addSubmodelElement(idShortPath, elem);
+			return api.getSubmodel();
+		});
 	}
 
 
@@ -116,9 +134,11 @@ public abstract class StorageSubmodelAPI implements ISubmodelAPI {
 
 	@Override
 	public void deleteSubmodelElement(String idShortPath) {
-		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(getSubmodel()));
-		api.deleteSubmodelElement(idShortPath);
-		storageApi.update(api.getSubmodel(), identificationId);
+		modifySubmodel(submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.deleteSubmodelElement(idShortPath);
+			return api.getSubmodel();
+		});
 	}
 
 
@@ -136,9 +156,11 @@ public abstract class StorageSubmodelAPI implements ISubmodelAPI {
 
 	@Override
 	public void updateSubmodelElement(String idShortPath, Object newValue) {
-		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(getSubmodel()));
-		api.updateSubmodelElement(idShortPath, newValue);
-		storageApi.update(api.getSubmodel(), identificationId);
+		modifySubmodel(submodel -> {
+			VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(submodel));
+			api.updateSubmodelElement(idShortPath, newValue);
+			return api.getSubmodel();
+		});
 	}
 
 
@@ -193,19 +215,25 @@ public abstract class StorageSubmodelAPI implements ISubmodelAPI {
 		throw new MalformedRequestException("Invoke not supported by this backend");
 	}
 
+	/**
+	 * The submodel id of this API is used as parent key of the file, so that only
+	 * the submodel element has to be retrieved
+	 */
 	@SuppressWarnings("unchecked")
 	@Override
 	public java.io.File getSubmodelElementFile(String idShortPath) {
 		Map<String, Object> submodelElement = (Map<String, Object>) getSubmodelElement(idShortPath);
-		String parentKey = getSubmodel().getIdentification().getId();
-		return storageApi.getFile(idShortPath, parentKey, submodelElement);
+		return storageApi.getFile(idShortPath, getSubmodelId(), submodelElement);
 	}
 
+	/**
+	 * The submodel id of this API is used as parent key of the file, so that only
+	 * the submodel element has to be retrieved
+	 */
 	@Override
 	public void uploadSubmodelElementFile(String idShortPath, InputStream fileStream) {
-		VABSubmodelAPI api = new VABSubmodelAPI(new VABLambdaProvider(getSubmodel()));
-		ISubmodelElement element = api.getSubmodelElement(idShortPath);
-		storageApi.writeFile(idShortPath, getSubmodel().getIdentification().getId(), fileStream, element);
+		ISubmodelElement element = getSubmodelElement(idShortPath);
+		storageApi.writeFile(idShortPath, getSubmodelId(), fileStream, element);
 	}
 
 }
@@ -24,9 +24,9 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.mongodb;
 
-import java.util.Collection;
-import java.util.Optional;
+import java.util.Arrays;
 
+import org.bson.Document;
 import org.eclipse.basyx.aas.metamodel.api.IAssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.restapi.api.IAASAPI;
@@ -35,6 +35,8 @@ import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +50,7 @@ import com.mongodb.client.MongoClient;
 public class MongoDBAASAPI implements IAASAPI {
 	private Logger logger = LoggerFactory.getLogger(getClass());
 	private static final String DEFAULT_CONFIG_PATH = "mongodb.properties";
+	private static final String REFERENCE_KEY_VALUES = Reference.KEY + "." + Key.VALUE;
 
 	protected String collectionName;
 	private MongoDBBaSyxStorageAPI<AssetAdministrationShell> storageApi;
@@ -170,26 +173,37 @@ public class MongoDBAASAPI implements IAASAPI {
 		return storageApi.retrieve(shellIdentificationId);
 	}
 
+	/**
+	 * Adds the reference to the shell without rewriting the shell. A reference to
+	 * a submodel that is already referenced by the shell is not added again.
+	 */
 	@Override
 	public void addSubmodel(IReference submodelReference) {
-		AssetAdministrationShell shell = (AssetAdministrationShell) getAAS();
-		shell.addSubmodelReference(submodelReference);
-		storageApi.update(shell, shellIdentificationId);
+		Reference reference = submodelReference instanceof Reference ? (Reference) submodelReference : new Reference(submodelReference.getKeys());
+		Document isSameSubmodel = new Document(REFERENCE_KEY_VALUES, getLastSubmodelReferenceKey(reference).getValue());
+		if (!storageApi.addToSetField(shellIdentificationId, AssetAdministrationShell.SUBMODELS, reference, isSameSubmodel)) {
+			// Throws, if the shell does not exist. Otherwise, the submodel is already
+			// referenced.
+			storageApi.retrieveRevision(shellIdentificationId);
+		}
 	}
 
+	/**
+	 * Removes the reference from the shell without rewriting the shell. Like in
+	 * {@link #addSubmodel(IReference)}, only the last key of the references is
+	 * compared.
+	 */
 	@Override
 	public void removeSubmodel(String submodelIdShort) {
-		AssetAdministrationShell shell = (AssetAdministrationShell) this.getAAS();
-		Collection<IReference> submodelReferences = shell.getSubmodelReferences();
-
-		Optional<IReference> toBeRemoved = submodelReferences.stream().filter(submodelReference -> getLastSubmodelReferenceKey(submodelReference).getValue().equals(submodelIdShort)).findFirst();
-		if (!toBeRemoved.isPresent() || toBeRemoved.isEmpty()) {
-			logger.warn("Submodel reference could not be removed. Shell with identification id '{}' does not contain submodel with idShort '{}'.", shell.getIdentification().getId(), submodelIdShort);
+		Document lastKeyValue = new Document("$arrayElemAt", Arrays.asList("$$this." + REFERENCE_KEY_VALUES, -1));
+		Document isSubmodel = new Document("$eq", Arrays.asList(lastKeyValue, new Document("$literal", submodelIdShort)));
+		if (storageApi.pullFromFieldByExpression(shellIdentificationId, AssetAdministrationShell.SUBMODELS, isSubmodel)) {
 			return;
 		}
-		submodelReferences.remove(toBeRemoved.get());
-		shell.setSubmodelReferences(submodelReferences);
-		storageApi.update(shell, submodelIdShort);
+
+		// Throws, if the shell does not exist
+		storageApi.retrieveRevision(shellIdentificationId);
+		logger.warn("Submodel reference could not be removed. Shell with identification id '{}' does not contain submodel with idShort '{}'.", shellIdentificationId, submodelIdShort);
 	}
 
 	private IKey getLastSubmodelReferenceKey(IReference submodelReference) {
@@ -24,13 +24,25 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.mongodb;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.eclipse.basyx.aas.aggregator.AASAggregator;
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
+import org.eclipse.basyx.aas.bundle.AASBundle;
+import org.eclipse.basyx.aas.bundle.AASBundleHelper;
 import org.eclipse.basyx.aas.metamodel.api.IAssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
@@ -42,26 +54,43 @@ import org.eclipse.basyx.components.aas.aascomponent.MongoDBAASServerComponentFa
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBDocumentCache;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileDownload;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileUploadHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
 import org.eclipse.basyx.submodel.aggregator.SubmodelAggregatorFactory;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregatorFactory;
+import org.eclipse.basyx.submodel.metamodel.api.ISubmodel;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyElements;
 import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyType;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
 import org.eclipse.basyx.submodel.restapi.SubmodelProvider;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
+import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPI;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
 import org.eclipse.basyx.vab.modelprovider.api.IModelProvider;
+import org.eclipse.basyx.vab.modelprovider.lambda.VABLambdaProvider;
 import org.eclipse.basyx.vab.protocol.api.IConnectorFactory;
 import org.eclipse.basyx.vab.protocol.http.connector.HTTPConnectorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * An IAASAggregator for persistent storage in a MongoDB.
@@ -72,6 +101,8 @@ import com.mongodb.client.MongoClients;
  *
  */
 public class MongoDBAASAggregator implements IAASAggregator {
+	private static final int MAX_CACHED_PROVIDERS = 1000;
+
 	private Logger logger = LoggerFactory.getLogger(this.getClass());
 	private IAASRegistry registry;
 
@@ -97,6 +128,18 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	private MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi;
 	private MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi;
 
+	/**
+	 * Providers that have already been created, together with the revision or the
+	 * cached document of the shell they have been created for
+	 */
+	@SuppressWarnings("serial")
+	private final Map<String, CachedProvider> providerCache = Collections.synchronizedMap(new LinkedHashMap<String, CachedProvider>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedProvider> eldest) {
+			return size() > MAX_CACHED_PROVIDERS;
+		}
+	});
+
 	public MongoDBAASAggregator(IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory, MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi,
 			MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi) {
 		this.submodelStorageApi = submodelStorageApi;
@@ -278,7 +321,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 */
 	@Deprecated
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASRegistry registry, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, registry, shellAPIFactory, submodelAggregatorFactory, MongoDBClientManager.getClient(config));
 	}
 
 	/**
@@ -292,7 +335,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	 */
 	@Deprecated
 	public MongoDBAASAggregator(BaSyxMongoDBConfiguration config, IAASAPIFactory shellAPIFactory, ISubmodelAggregatorFactory submodelAggregatorFactory) {
-		this(config, shellAPIFactory, submodelAggregatorFactory, MongoClients.create(config.getConnectionUrl()));
+		this(config, shellAPIFactory, submodelAggregatorFactory, MongoDBClientManager.getClient(config));
 	}
 
 	/**
@@ -390,13 +433,98 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	}
 
 	/**
-	 * Removes all persistent AAS and submodels
+	 * Removes all persistent AAS, submodels and files. The indexes of the
+	 * collections are kept.
 	 */
 	public void reset() {
-		Collection<AssetAdministrationShell> shells = shellStorageApi.retrieveAll();
-		Collection<Submodel> submodels = submodelStorageApi.retrieveAll();
-		shells.forEach(shell -> shellStorageApi.delete(shell.getIdentification().getId()));
-		submodels.forEach(shell -> submodelStorageApi.delete(shell.getIdentification().getId()));
+		reset(true);
+	}
+
+	/**
+	 * Removes all persistent AAS, submodels and files by a few server-side
+	 * operations, without retrieving them
+	 * 
+	 * @param keepIndexes
+	 *            if false, the collections are dropped, which is considerably
+	 *            faster for large collections, and their indexes are created again
+	 */
+	public void reset(boolean keepIndexes) {
+		BaSyxMongoDBConfiguration config = submodelStorageApi.getConfiguration();
+		if (config.isWriteBehindEnabled()) {
+			MongoDBWriteBehindBuffer.getInstance(submodelStorageApi).discard();
+		}
+
+		providerCache.clear();
+		shellStorageApi.deleteAll(keepIndexes);
+		submodelStorageApi.deleteAll(keepIndexes);
+		MongoDBFileHelper.deleteAllFiles(submodelStorageApi.getClient(), config, keepIndexes);
+		if (!keepIndexes) {
+			new MongoDBIndexManager(config, submodelStorageApi.getClient()).ensureAASServerIndexes();
+		}
+	}
+
+	/**
+	 * Imports the shells and submodels of the given bundles using bulk writes.
+	 * Like {@link AASBundleHelper#integrate(IAASAggregator, Collection)}, only
+	 * shells and submodels that do not exist yet are created, so that changes
+	 * made at runtime are kept. The bundled submodels are referenced by their
+	 * shells and, like the submodels created through the aggregator, get their
+	 * shell as parent, if they do not have one.
+	 * 
+	 * @param bundles
+	 *            the bundles to be imported
+	 */
+	public void importBundles(Collection<AASBundle> bundles) {
+		long start = System.currentTimeMillis();
+		List<AssetAdministrationShell> shells = new ArrayList<>();
+		List<Submodel> submodels = new ArrayList<>();
+		for (AASBundle bundle : bundles) {
+			AssetAdministrationShell shell = (AssetAdministrationShell) bundle.getAAS();
+			for (ISubmodel submodel : bundle.getSubmodels()) {
+				shell.addSubmodelReference(submodel.getReference());
+				setParentIfAbsent((Submodel) submodel, shell.getIdentification());
+				submodels.add((Submodel) submodel);
+			}
+			shells.add(shell);
+		}
+
+		Set<String> createdShellIds;
+		Set<String> createdSubmodelIds;
+		ExecutorService executor = submodelStorageApi.createBulkWriteExecutor();
+		try {
+			createdShellIds = shellStorageApi.createIfAbsent(shells, executor);
+			createdSubmodelIds = submodelStorageApi.createIfAbsent(submodels, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+		for (AASBundle bundle : bundles) {
+			if (!createdShellIds.contains(bundle.getAAS().getIdentification().getId())) {
+				addCreatedSubmodelsToExistingShell(bundle, createdSubmodelIds);
+			}
+		}
+		providerCache.clear();
+
+		logger.info("Imported {} shells and {} submodels of {} bundles in {} ms", createdShellIds.size(), createdSubmodelIds.size(), bundles.size(), System.currentTimeMillis() - start);
+	}
+
+	private void setParentIfAbsent(Submodel submodel, IIdentifier shellId) {
+		IReference parent = submodel.getParent();
+		if (parent == null || parent.getKeys() == null || parent.getKeys().isEmpty()) {
+			submodel.setParent(new Reference(new Key(KeyElements.ASSETADMINISTRATIONSHELL, false, shellId.getId(), shellId.getIdType())));
+		}
+	}
+
+	private void addCreatedSubmodelsToExistingShell(AASBundle bundle, Set<String> createdSubmodelIds) {
+		IAASAPI shellApi = null;
+		for (ISubmodel submodel : bundle.getSubmodels()) {
+			if (!createdSubmodelIds.contains(submodel.getIdentification().getId())) {
+				continue;
+			}
+			if (shellApi == null) {
+				shellApi = this.shellApiFactory.create(bundle.getAAS().getIdentification());
+			}
+			shellApi.addSubmodel(submodel.getReference());
+		}
 	}
 
 	/**
@@ -409,7 +537,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 
 		ISubmodelAggregator submodelAggregator = getSubmodelAggregatorInstance(shellApi.getAAS().getIdentification());
 
-		return new MultiSubmodelProvider(contentProvider, this.registry, connectorFactory, this.shellApiFactory, submodelAggregator);
+		return new SharedMultiSubmodelProvider(contentProvider, this.registry, connectorFactory, this.shellApiFactory, submodelAggregator);
 	}
 
 	private AASModelProvider createContentProvider(IAASAPI shellApi) {
@@ -431,7 +559,7 @@ public class MongoDBAASAggregator implements IAASAggregator {
 		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
 		List<String> submodelIdentificationIds = getSubmodelIdentificationIdsFromSubmodelReferences(submodelRefs);
 		List<String> submodelIdShorts = getSubmodelIdShortsFromSubmodelReferences(submodelRefs);
-		submodelIdentificationIds = completeSubmodelIdentificationsIdsByIdShorts(submodelIdentificationIds, submodelIdShorts);
+		submodelIdentificationIds = completeSubmodelIdentificationsIdsByIdShorts(shell.getIdentification(), submodelIdentificationIds, submodelIdShorts);
 
 		createProviderForSubmodels(provider, submodelIdentificationIds);
 
@@ -441,16 +569,42 @@ public class MongoDBAASAggregator implements IAASAggregator {
 		submodelIdentificationIds.forEach(submodelIdentificationId -> addSubmodelProvidersById(submodelIdentificationId, provider));
 	}
 
-	private List<String> completeSubmodelIdentificationsIdsByIdShorts(List<String> submodelIdentificationIds, List<String> submodelIdShorts) {
-		submodelIdShorts.forEach(idShort -> {
-			String id = getSubmodelIdByIdShort(idShort);
-			if (id != null) {
-				submodelIdentificationIds.add(id);
+	/**
+	 * Resolves the submodels of the shell referenced by idShort within one
+	 * request, which only transfers the identification ids of the found
+	 * submodels. Submodels stored without parent, e.g. by older versions, are
+	 * looked up by their identification id or idShort afterwards. References that
+	 * cannot be resolved are skipped.
+	 */
+	private List<String> completeSubmodelIdentificationsIdsByIdShorts(IIdentifier shellId, List<String> submodelIdentificationIds, List<String> submodelIdShorts) {
+		Criteria hasParent = where(MongoDBIndexManager.PARENT_KEY_VALUES).is(shellId.getId()).and(MongoDBSubmodelAggregator.PARENT_FIRST_KEY_VALUE).is(shellId.getId());
+		Map<String, String> idsByIdShort = new HashMap<>(submodelStorageApi.retrieveKeysByFieldValues(hasParent, Referable.IDSHORT, submodelIdShorts));
+
+		List<String> unresolvedIdShorts = getUnresolvedIdShorts(submodelIdShorts, idsByIdShort);
+		if (!unresolvedIdShorts.isEmpty()) {
+			idsByIdShort.putAll(submodelStorageApi.retrieveKeysByFieldValues(new Criteria(), MongoDBSubmodelAPI.SMIDPATH, unresolvedIdShorts));
+			unresolvedIdShorts = getUnresolvedIdShorts(unresolvedIdShorts, idsByIdShort);
+		}
+		if (!unresolvedIdShorts.isEmpty()) {
+			Criteria hasNoParent = where(Referable.PARENT).is(null);
+			idsByIdShort.putAll(submodelStorageApi.retrieveKeysByFieldValues(hasNoParent, Referable.IDSHORT, unresolvedIdShorts));
+		}
+
+		for (String idShort : submodelIdShorts) {
+			String id = idsByIdShort.get(idShort);
+			if (id == null) {
+				logger.warn("Could not resolve the submodel with idShort '{}' of shell '{}'.", idShort, shellId.getId());
+				continue;
 			}
-		});
+			submodelIdentificationIds.add(id);
+		}
 		return submodelIdentificationIds;
 	}
 
+	private List<String> getUnresolvedIdShorts(List<String> submodelIdShorts, Map<String, String> idsByIdShort) {
+		return submodelIdShorts.stream().filter(idShort -> !idsByIdShort.containsKey(idShort)).collect(Collectors.toList());
+	}
+
 	private List<String> getSubmodelIdentificationIdsFromSubmodelReferences(Collection<IReference> submodelRefs) {
 		List<String> submodelIdentificationIds = submodelRefs.stream().map(this::getLastKeyFromReference).filter(lastKey -> lastKey.getIdType() != KeyType.IDSHORT).map(lastKey -> lastKey.getValue()).collect(Collectors.toList());
 		return submodelIdentificationIds;
@@ -467,14 +621,6 @@ public class MongoDBAASAggregator implements IAASAggregator {
 		return lastKey;
 	}
 
-	private String getSubmodelIdByIdShort(String idShort) {
-		Submodel submodel = submodelStorageApi.retrieve(idShort);
-		if (submodel != null) {
-			return submodel.getIdentification().getId();
-		}
-		return null;
-	}
-
 	private void addSubmodelProvidersById(String submodelIdentificationId, MultiSubmodelProvider provider) {
 		ISubmodelAPI submodelApi = new MongoDBSubmodelAPI(this.submodelStorageApi, submodelIdentificationId);
 		try {
@@ -489,7 +635,25 @@ public class MongoDBAASAggregator implements IAASAggregator {
 
 	@Override
 	public Collection<IAssetAdministrationShell> getAASList() {
-		return shellStorageApi.retrieveAll().stream().map(aas -> (IAssetAdministrationShell) aas).collect(Collectors.toList());
+		return Collections.unmodifiableCollection(shellStorageApi.retrieveAll());
+	}
+
+	/**
+	 * Passes a page of the shells to the consumer while they are retrieved from
+	 * the database, so that the shells can e.g. be serialized without holding all
+	 * of them in memory.
+	 * 
+	 * @param limit
+	 *            the maximum number of shells of the page
+	 * @param cursor
+	 *            the cursor returned for the previous page or null for the first
+	 *            page
+	 * @param consumer
+	 *            receives the shells of the page
+	 * @return the cursor of the next page or null, if this is the last page
+	 */
+	public String getAASPage(int limit, String cursor, Consumer<IAssetAdministrationShell> consumer) {
+		return shellStorageApi.retrievePage(null, limit, cursor, consumer::accept);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -504,20 +668,78 @@ public class MongoDBAASAggregator implements IAASAggregator {
 	@Override
 	public void createAAS(AssetAdministrationShell shell) {
 		this.shellApiFactory.create(shell);
+		providerCache.remove(shell.getIdentification().getId());
 	}
 
 	@Override
 	public void updateAAS(AssetAdministrationShell shell) {
 		this.shellApiFactory.create(shell);
+		providerCache.remove(shell.getIdentification().getId());
 	}
 
 	@Override
 	public void deleteAAS(IIdentifier shellIdentifier) {
 		String shellIdentificationId = shellIdentifier.getId();
 		shellStorageApi.delete(shellIdentificationId);
+		providerCache.remove(shellIdentificationId);
 	}
 
+	/**
+	 * Returns the provider for the shell with the given id. Providers are reused
+	 * as long as the shell has not been changed, e.g. by adding or removing
+	 * submodels. If the document cache is enabled and watching the changes of the
+	 * shells, this is checked without accessing the database, since the cached
+	 * document of the shell is evicted as soon as the shell changes. Otherwise,
+	 * only the revision of the shell is retrieved for checking it.<br>
+	 * <br>
+	 * The providers are shared by concurrent requests, see
+	 * {@link SharedMultiSubmodelProvider}.
+	 * 
+	 * @param shellIdentificationId
+	 * @return
+	 */
 	public MultiSubmodelProvider getProviderForAASId(String shellIdentificationId) {
+		MongoDBDocumentCache documentCache = shellStorageApi.getDocumentCache();
+		if (documentCache != null && documentCache.isCoherent()) {
+			return getProviderForCachedShell(documentCache, shellIdentificationId);
+		}
+
+		Object revision = shellStorageApi.retrieveRevision(shellIdentificationId);
+		CachedProvider cached = providerCache.get(shellIdentificationId);
+		if (cached != null && revision != null && revision.equals(cached.revision)) {
+			return cached.provider;
+		}
+
+		MultiSubmodelProvider provider = createProviderForAASId(shellIdentificationId);
+		if (revision != null) {
+			providerCache.put(shellIdentificationId, new CachedProvider(revision, null, provider));
+		}
+		return provider;
+	}
+
+	/**
+	 * A provider is valid as long as the document it has been created from is
+	 * cached. A changed shell is retrieved as a new document instance.
+	 */
+	private MultiSubmodelProvider getProviderForCachedShell(MongoDBDocumentCache documentCache, String shellIdentificationId) {
+		Object shellDocument = documentCache.get(shellIdentificationId);
+		CachedProvider cached = providerCache.get(shellIdentificationId);
+		if (cached != null && shellDocument != null && shellDocument == cached.shellDocument) {
+			return cached.provider;
+		}
+
+		// The shell is retrieved through the cache while creating the provider. Its
+		// document is only used if no shell has been changed in the meantime.
+		long generation = documentCache.getGeneration();
+		MultiSubmodelProvider provider = createProviderForAASId(shellIdentificationId);
+		shellDocument = documentCache.get(shellIdentificationId);
+		if (shellDocument != null && documentCache.getGeneration() == generation) {
+			providerCache.put(shellIdentificationId, new CachedProvider(null, shellDocument, provider));
+		}
+		return provider;
+	}
+
+	private MultiSubmodelProvider createProviderForAASId(String shellIdentificationId) {
 		AssetAdministrationShell shell = shellStorageApi.retrieve(shellIdentificationId);
 
 		IAASAPI shellApi = this.shellApiFactory.create(shell.getIdentification());
@@ -527,8 +749,125 @@ public class MongoDBAASAggregator implements IAASAggregator {
 		return provider;
 	}
 
+	/**
+	 * Opens the file of a File submodel element for streaming it to the client
+	 * without writing it to the file system
+	 * 
+	 * @param shellIdentificationId
+	 * @param submodelIdShort
+	 * @param idShortPath
+	 *            the path of the File submodel element within the submodel
+	 * @return the download or null, if the submodels are not provided by a
+	 *         {@link MongoDBSubmodelAggregator}
+	 */
+	public MongoDBFileDownload openSubmodelElementFileDownload(String shellIdentificationId, String submodelIdShort, String idShortPath) {
+		ISubmodelAggregator submodelAggregator = getSubmodelAggregatorInstance(new Identifier(IdentifierType.CUSTOM, shellIdentificationId));
+		if (!(submodelAggregator instanceof MongoDBSubmodelAggregator)) {
+			return null;
+		}
+
+		// Only the id of the submodel is retrieved, since the File submodel element
+		// is read by itself
+		String submodelId = ((MongoDBSubmodelAggregator) submodelAggregator).getSubmodelIdByIdShort(submodelIdShort);
+		MongoDBSubmodelAPI submodelApi = new MongoDBSubmodelAPI(submodelStorageApi.getConfiguration(), submodelId, submodelStorageApi.getClient());
+		return submodelApi.openSubmodelElementFileDownload(idShortPath);
+	}
+
+	/**
+	 * Starts a resumable upload of the file of a File submodel element. The
+	 * submodel is retrieved only once for the whole upload.
+	 * 
+	 * @param shellIdentificationId
+	 * @param submodelIdShort
+	 * @param idShortPath
+	 *            the path of the File submodel element within the submodel
+	 * @return the id of the upload or null, if the submodels are not provided by
+	 *         a {@link MongoDBSubmodelAggregator}
+	 * @see MongoDBFileUploadHelper
+	 */
+	@SuppressWarnings("unchecked")
+	public String startSubmodelElementFileUpload(String shellIdentificationId, String submodelIdShort, String idShortPath) {
+		ISubmodelAggregator submodelAggregator = getSubmodelAggregatorInstance(new Identifier(IdentifierType.CUSTOM, shellIdentificationId));
+		if (!(submodelAggregator instanceof MongoDBSubmodelAggregator)) {
+			return null;
+		}
+
+		Submodel submodel = (Submodel) submodelAggregator.getSubmodelbyIdShort(submodelIdShort);
+		Map<String, Object> submodelElement = (Map<String, Object>) new VABSubmodelAPI(new VABLambdaProvider(submodel)).getSubmodelElement(idShortPath);
+		if (!File.isFile(submodelElement)) {
+			throw new MalformedRequestException("The submodel element '" + idShortPath + "' is not a File");
+		}
+		return MongoDBFileUploadHelper.startUpload(submodelStorageApi.getClient(), submodelStorageApi.getConfiguration(), submodel.getIdentification().getId(), File.createAsFacade(submodelElement), idShortPath);
+	}
+
+	/**
+	 * Returns the offset at which the upload has to be continued
+	 * 
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 * @return
+	 */
+	public long getSubmodelElementFileUploadOffset(String uploadId, String idShortPath) {
+		return MongoDBFileUploadHelper.getOffset(submodelStorageApi.getClient(), submodelStorageApi.getConfiguration(), uploadId, idShortPath);
+	}
+
+	/**
+	 * Appends the content to the upload
+	 * 
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 * @param offset
+	 *            the offset of the content
+	 * @param content
+	 * @return the offset after the appended content
+	 */
+	public long appendToSubmodelElementFileUpload(String uploadId, String idShortPath, long offset, InputStream content) {
+		return MongoDBFileUploadHelper.append(submodelStorageApi.getClient(), submodelStorageApi.getConfiguration(), uploadId, idShortPath, offset, content);
+	}
+
+	/**
+	 * Finishes the upload, so that the uploaded file replaces the file of the File
+	 * submodel element
+	 * 
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 */
+	public void finishSubmodelElementFileUpload(String uploadId, String idShortPath) {
+		MongoDBFileUploadHelper.finish(submodelStorageApi.getClient(), submodelStorageApi.getConfiguration(), uploadId, idShortPath);
+	}
+
+	/**
+	 * Discards the upload and its content
+	 * 
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 */
+	public void abortSubmodelElementFileUpload(String uploadId, String idShortPath) {
+		MongoDBFileUploadHelper.abort(submodelStorageApi.getClient(), submodelStorageApi.getConfiguration(), uploadId, idShortPath);
+	}
+
 	@Override
 	public IModelProvider getAASProvider(IIdentifier shellIdentificationId) {
 		return getProviderForAASId(shellIdentificationId.getId());
 	}
+
+	private static class CachedProvider {
+		private final Object revision;
+		private final Object shellDocument;
+		private final MultiSubmodelProvider provider;
+
+		private CachedProvider(Object revision, Object shellDocument, MultiSubmodelProvider provider) {
+			this.revision = revision;
+			this.shellDocument = shellDocument;
+			this.provider = provider;
+		}
+	}
 }
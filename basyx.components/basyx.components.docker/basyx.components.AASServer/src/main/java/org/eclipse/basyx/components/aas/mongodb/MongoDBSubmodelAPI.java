@@ -24,18 +24,37 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.mongodb;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
 import org.eclipse.basyx.components.aas.internal.StorageSubmodelAPI;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileDownload;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.operation.IOperation;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.modeltype.ModelType;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.operation.Operation;
 import org.eclipse.basyx.submodel.restapi.operation.DelegatedInvocationManager;
+import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPI;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.modelprovider.lambda.VABLambdaProvider;
 import org.eclipse.basyx.vab.protocol.http.connector.HTTPConnectorFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * Implements the ISubmodelAPI for a mongoDB backend.
@@ -72,7 +91,10 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 		this(DEFAULT_CONFIG_PATH, submodelIdentificationId, invocationHelper, client);
 	}
 
-	// NEUER KONSTRUKTOR?
+	/**
+	 * Creates the submodel API on the given storage API, which is replaced by a
+	 * storage API created from the given configuration
+	 */
 	public MongoDBSubmodelAPI(BaSyxStorageAPI<Submodel> storageAPI, String identificationId, BaSyxMongoDBConfiguration config) {
 		super(storageAPI, identificationId, new DelegatedInvocationManager(new HTTPConnectorFactory()));
 		this.setConfiguration(config);
@@ -91,7 +113,7 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 
 	public MongoDBSubmodelAPI(BaSyxMongoDBConfiguration config, String submodelIdentificationId, DelegatedInvocationManager invocationHelper, MongoClient client) {
 		super(createSubmodelStorageAPI(config, client), submodelIdentificationId, invocationHelper);
-		this.setConfiguration(config);
+		this.config = config;
 		this.setSubmodelId(submodelIdentificationId);
 		this.invocationHelper = invocationHelper;
 	}
@@ -99,7 +121,6 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 	public MongoDBSubmodelAPI(String resourceConfigPath, String submodelIdentificationId, DelegatedInvocationManager invocationHelper, MongoClient client) {
 		super(createSubmodelStorageAPI(createConfig(resourceConfigPath), client), submodelIdentificationId, invocationHelper);
 		this.config = createConfig(resourceConfigPath);
-		this.setConfiguration(config);
 		this.setSubmodelId(submodelIdentificationId);
 		this.invocationHelper = invocationHelper;
 	}
@@ -117,7 +138,7 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 
 	@Deprecated
 	public MongoDBSubmodelAPI(BaSyxMongoDBConfiguration config, String submodelIdentificationId, DelegatedInvocationManager invocationHelper) {
-		this(config, submodelIdentificationId, invocationHelper, MongoClients.create(config.getConnectionUrl()));
+		this(config, submodelIdentificationId, invocationHelper, MongoDBClientManager.getClient(config));
 	}
 
 	/**
@@ -178,4 +199,223 @@ public class MongoDBSubmodelAPI extends StorageSubmodelAPI {
 	public void setConfiguration(BaSyxMongoDBConfiguration config) {
 		this.storageApi = createSubmodelStorageAPI(config);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes the modified submodel only if it has not been changed concurrently.
+	 * Otherwise, the modification is reapplied on the current state of the
+	 * submodel, so that no concurrent update gets lost.
+	 */
+	@Override
+	protected void modifySubmodel(UnaryOperator<Submodel> modification) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			super.modifySubmodel(modification);
+			return;
+		}
+
+		invalidateWriteBehindBuffer(getSubmodelId());
+		getMongoDBStorageApi().modify(getSubmodelId(), modification);
+	}
+
+	@Override
+	public void setSubmodel(Submodel submodel) {
+		invalidateWriteBehindBuffer(submodel.getIdentification().getId());
+		super.setSubmodel(submodel);
+	}
+
+	@Override
+	public Submodel getSubmodel() {
+		flushWriteBehindBuffer();
+		return super.getSubmodel();
+	}
+
+	/**
+	 * Updates the value of the submodel element directly in the database, if the
+	 * element is a property, the value is plain and the property has the value
+	 * type derived from the value. Otherwise, the whole submodel is loaded and
+	 * written back, so that the value is checked and converted by the element. If
+	 * write-behind is enabled, direct updates are buffered and written in batches.
+	 */
+	@Override
+	public void updateSubmodelElement(String idShortPath, Object newValue) {
+		if (!isPathLevelAccessPossible(idShortPath) || !isPlainValue(newValue)) {
+			super.updateSubmodelElement(idShortPath, newValue);
+			return;
+		}
+
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			if (!buffer.put(getSubmodelId(), idShortPath, newValue)) {
+				// Let the default implementation handle the error case
+				super.updateSubmodelElement(idShortPath, newValue);
+			}
+			return;
+		}
+
+		String valuePath = MongoDBSubmodelElementPathHelper.getValuePath(idShortPath);
+		Criteria isWritable = MongoDBSubmodelElementPathHelper.getDirectlyWritableValueCriteria(idShortPath, newValue);
+		Object persistedValue = MongoDBSubmodelElementPathHelper.getPersistedValue(newValue);
+		if (!getMongoDBStorageApi().setField(getSubmodelId(), valuePath, persistedValue, isWritable)) {
+			// Let the default implementation handle the error case
+			super.updateSubmodelElement(idShortPath, newValue);
+		}
+	}
+
+	@Override
+	public void addSubmodelElement(String idShortPath, ISubmodelElement elem) {
+		if (!isPathLevelAccessPossible(idShortPath)) {
+			super.addSubmodelElement(idShortPath, elem);
+			return;
+		}
+
+		invalidateWriteBehindBuffer(getSubmodelId());
+		String elementPath = MongoDBSubmodelElementPathHelper.getElementPath(idShortPath);
+		if (!getMongoDBStorageApi().setField(getSubmodelId(), elementPath, elem, getParentCollectionCriteria(idShortPath))) {
+			// Let the default implementation handle the error case
+			super.addSubmodelElement(idShortPath, elem);
+		}
+	}
+
+	@Override
+	public void deleteSubmodelElement(String idShortPath) {
+		if (!isPathLevelAccessPossible(idShortPath)) {
+			super.deleteSubmodelElement(idShortPath);
+			return;
+		}
+
+		invalidateWriteBehindBuffer(getSubmodelId());
+		String elementPath = MongoDBSubmodelElementPathHelper.getElementPath(idShortPath);
+		if (!getMongoDBStorageApi().unsetField(getSubmodelId(), elementPath)) {
+			// Let the default implementation handle the error case
+			super.deleteSubmodelElement(idShortPath);
+		}
+	}
+
+	/**
+	 * Retrieves only the requested submodel element from the database instead of
+	 * the whole submodel
+	 */
+	@Override
+	public ISubmodelElement getSubmodelElement(String idShortPath) {
+		if (!isPathLevelAccessPossible(idShortPath)) {
+			return super.getSubmodelElement(idShortPath);
+		}
+
+		flushWriteBehindBuffer();
+		return getPartialSubmodelAPI(idShortPath).getSubmodelElement(idShortPath);
+	}
+
+	@Override
+	public Object getSubmodelElementValue(String idShortPath) {
+		if (!isPathLevelAccessPossible(idShortPath)) {
+			return super.getSubmodelElementValue(idShortPath);
+		}
+
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null && buffer.hasPendingValue(getSubmodelId(), idShortPath)) {
+			return buffer.getPendingValue(getSubmodelId(), idShortPath);
+		}
+
+		flushWriteBehindBuffer();
+		return getPartialSubmodelAPI(idShortPath).getSubmodelElementValue(idShortPath);
+	}
+
+	/**
+	 * Lets the database filter the submodel elements, so that only the operations
+	 * are retrieved
+	 */
+	@Override
+	public Collection<IOperation> getOperations() {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return super.getOperations();
+		}
+
+		String modelTypeNamePath = ModelType.MODELTYPE + "." + ModelType.NAME;
+		Submodel submodel = getMongoDBStorageApi().retrieveFilteredMapField(getSubmodelId(), Submodel.SUBMODELELEMENT, modelTypeNamePath, Operation.MODELTYPE);
+		return submodel.getOperations().values();
+	}
+
+	/**
+	 * Opens the file of the File submodel element for streaming it from the
+	 * database, instead of writing it to the file system first
+	 * 
+	 * @param idShortPath
+	 * @return the download or null, if the submodel is not stored in a MongoDB
+	 */
+	@SuppressWarnings("unchecked")
+	public MongoDBFileDownload openSubmodelElementFileDownload(String idShortPath) {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return null;
+		}
+
+		Map<String, Object> submodelElement = (Map<String, Object>) getSubmodelElement(idShortPath);
+		if (!File.isFile(submodelElement)) {
+			throw new MalformedRequestException("The submodel element '" + idShortPath + "' is not a File");
+		}
+		return getMongoDBStorageApi().openFileDownload(idShortPath, getSubmodelId(), submodelElement);
+	}
+
+	/**
+	 * Creates a submodel API on a submodel that only contains the element with the
+	 * given idShortPath. Of its enclosing collections, only the attributes needed
+	 * for resolving the element are retrieved, but not their other elements.
+	 */
+	private VABSubmodelAPI getPartialSubmodelAPI(String idShortPath) {
+		String elementPath = MongoDBSubmodelElementPathHelper.getElementPath(idShortPath);
+		List<String> ancestorAttributePaths = MongoDBSubmodelElementPathHelper.getAncestorAttributePaths(idShortPath);
+		Submodel partialSubmodel = getMongoDBStorageApi().retrieveField(getSubmodelId(), elementPath, ancestorAttributePaths);
+		return new VABSubmodelAPI(new VABLambdaProvider(partialSubmodel));
+	}
+
+	/**
+	 * Returns the write-behind buffer of the submodel collection or null, if
+	 * write-behind is disabled
+	 */
+	private MongoDBWriteBehindBuffer getWriteBehindBuffer() {
+		if (!(storageApi instanceof MongoDBBaSyxStorageAPI)) {
+			return null;
+		}
+
+		BaSyxMongoDBConfiguration storageConfig = getMongoDBStorageApi().getConfiguration();
+		if (storageConfig == null || !storageConfig.isWriteBehindEnabled()) {
+			return null;
+		}
+		return MongoDBWriteBehindBuffer.getInstance(getMongoDBStorageApi());
+	}
+
+	private void flushWriteBehindBuffer() {
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			buffer.flush(getSubmodelId());
+		}
+	}
+
+	private void invalidateWriteBehindBuffer(String submodelId) {
+		MongoDBWriteBehindBuffer buffer = getWriteBehindBuffer();
+		if (buffer != null) {
+			buffer.invalidate(submodelId);
+		}
+	}
+
+	private boolean isPathLevelAccessPossible(String idShortPath) {
+		return storageApi instanceof MongoDBBaSyxStorageAPI && MongoDBSubmodelElementPathHelper.isResolvable(idShortPath);
+	}
+
+	private MongoDBBaSyxStorageAPI<Submodel> getMongoDBStorageApi() {
+		return (MongoDBBaSyxStorageAPI<Submodel>) storageApi;
+	}
+
+	/**
+	 * Only plain values are written directly, as complex values (e.g. of
+	 * collections or multi language properties) may need a conversion
+	 */
+	private static boolean isPlainValue(Object value) {
+		return value == null || value instanceof String || value instanceof Number || value instanceof Boolean;
+	}
+
+	private static Criteria getParentCollectionCriteria(String idShortPath) {
+		if (!MongoDBSubmodelElementPathHelper.isNested(idShortPath)) {
+			return null;
+		}
+		return where(MongoDBSubmodelElementPathHelper.getParentModelTypeNamePath(idShortPath)).is(SubmodelElementCollection.MODELTYPE);
+	}
+}
@@ -25,12 +25,12 @@
 package org.eclipse.basyx.components.aas.mongodb;
 
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -51,7 +51,7 @@ public class MongoDBSubmodelAPIFactory implements ISubmodelAPIFactory {
 
 	@Deprecated
 	public MongoDBSubmodelAPIFactory(BaSyxMongoDBConfiguration config) {
-		this(config, MongoClients.create(config.getConnectionUrl()));
+		this(config, MongoDBClientManager.getClient(config));
 	}
 
 	@Deprecated
@@ -66,4 +66,15 @@ public class MongoDBSubmodelAPIFactory implements ISubmodelAPIFactory {
 		return getSubmodelAPI(submodel);
 	}
 
+	/**
+	 * Creates the API of a submodel that is already stored, without writing it
+	 * again
+	 * 
+	 * @param submodelId
+	 * @return
+	 */
+	public MongoDBSubmodelAPI createForStoredSubmodel(String submodelId) {
+		return new MongoDBSubmodelAPI(config, submodelId, client);
+	}
+
 }
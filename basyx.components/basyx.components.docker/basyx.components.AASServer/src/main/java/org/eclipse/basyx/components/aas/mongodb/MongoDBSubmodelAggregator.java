@@ -25,24 +25,33 @@
 
 package org.eclipse.basyx.components.aas.mongodb;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
 import org.eclipse.basyx.submodel.aggregator.SubmodelAggregator;
 import org.eclipse.basyx.submodel.metamodel.api.ISubmodel;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IKey;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPI;
 import org.eclipse.basyx.submodel.restapi.api.ISubmodelAPIFactory;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import com.mongodb.client.MongoClient;
 
@@ -53,6 +62,9 @@ import com.mongodb.client.MongoClient;
  *
  */
 public class MongoDBSubmodelAggregator extends SubmodelAggregator {
+	private static final String PARENT_KEY_VALUES = MongoDBIndexManager.PARENT_KEY_VALUES;
+	static final String PARENT_FIRST_KEY_VALUE = Referable.PARENT + "." + Reference.KEY + ".0." + Key.VALUE;
+
 	private MongoDBBaSyxStorageAPI<Submodel> storageApi;
 	private MongoDBBaSyxStorageAPI<AssetAdministrationShell> aasStorageApi;
 	private IIdentifier shellId;
@@ -90,32 +102,67 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 
 	@Override
 	public Collection<ISubmodel> getSubmodelList() {
+		flushWriteBehindBuffer();
 		if (shellId == null)
 			return returnAllSubmodels();
 
-		AssetAdministrationShell shell = aasStorageApi.retrieve(shellId.getId());
-		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
-
-		if (submodelRefs.isEmpty()) {
+		List<String> submodelIds = getReferencedSubmodelIds();
+		if (submodelIds.isEmpty()) {
 			return findSubmodelsWithGivenParentId();
 		}
-		List<String> submodelIds = submodelRefs.stream().map(ref -> {
-			return getLastKeyFromReference(ref).getValue();
-		}).collect(Collectors.toList());
 
+		Map<String, Submodel> submodels = storageApi.retrieveByKeys(submodelIds);
 		return submodelIds.stream().map(sm -> {
-			return storageApi.retrieve(sm);
+			Submodel submodel = submodels.get(sm);
+			if (submodel == null) {
+				throw new ResourceNotFoundException("No Object for key '" + sm + "' found in the database.");
+			}
+			return submodel;
 		}).collect(Collectors.toList());
 	}
 
-	private List<ISubmodel> returnAllSubmodels() {
-		return storageApi.retrieveAll().stream().map(submodel -> (ISubmodel) submodel).collect(Collectors.toList());
+	private Collection<ISubmodel> returnAllSubmodels() {
+		return Collections.unmodifiableCollection(storageApi.retrieveAll());
 	}
 
-	private List<ISubmodel> findSubmodelsWithGivenParentId(){
-		return storageApi.retrieveAll().stream().filter(submodel -> {
-			IReference parentRef = submodel.getParent();
-			return (parentRef != null) && (parentRef.getKeys().get(0).getValue().equals(shellId.getId()));
+	/**
+	 * Passes a page of the submodels to the consumer while they are retrieved
+	 * from the database. If the aggregator belongs to a shell, only the submodels
+	 * of the shell are contained.
+	 * 
+	 * @param limit
+	 *            the maximum number of submodels of the page
+	 * @param cursor
+	 *            the cursor returned for the previous page or null for the first
+	 *            page
+	 * @param consumer
+	 *            receives the submodels of the page
+	 * @return the cursor of the next page or null, if this is the last page
+	 */
+	public String getSubmodelPage(int limit, String cursor, Consumer<ISubmodel> consumer) {
+		flushWriteBehindBuffer();
+		Criteria criteria = shellId == null ? null : getSubmodelsOfShellCriteria();
+		return storageApi.retrievePage(criteria, limit, cursor, consumer::accept);
+	}
+
+	/**
+	 * Lets the database find the submodels whose parent reference starts with the
+	 * shell id. The criterion on all key values can be answered by the index,
+	 * while the criterion on the first key narrows the result down.
+	 */
+	private List<ISubmodel> findSubmodelsWithGivenParentId() {
+		return Collections.unmodifiableList(storageApi.retrieveAll(getHasParentCriteria()));
+	}
+
+	private Criteria getHasParentCriteria() {
+		return where(PARENT_KEY_VALUES).is(shellId.getId()).and(PARENT_FIRST_KEY_VALUE).is(shellId.getId());
+	}
+
+	private List<String> getReferencedSubmodelIds() {
+		AssetAdministrationShell shell = aasStorageApi.retrieve(shellId.getId());
+		Collection<IReference> submodelRefs = shell.getSubmodelReferences();
+		return submodelRefs.stream().map(ref -> {
+			return getLastKeyFromReference(ref).getValue();
 		}).collect(Collectors.toList());
 	}
 
@@ -127,6 +174,7 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 
 	@Override
 	public ISubmodel getSubmodel(IIdentifier identifier) throws ResourceNotFoundException {
+		flushWriteBehindBuffer(identifier.getId());
 		return storageApi.retrieve(identifier.getId());
 	}
 
@@ -145,25 +193,103 @@ public class MongoDBSubmodelAggregator extends SubmodelAggregator {
 		storageApi.createOrUpdate((Submodel) submodelAPI.getSubmodel());
 	}
 
+	/**
+	 * Lets the database find the submodel by its idShort among the submodels of the
+	 * shell, instead of retrieving all of them
+	 */
 	@Override
 	public ISubmodel getSubmodelbyIdShort(String idShort) throws ResourceNotFoundException {
-		Optional<ISubmodel> submodelOptional = getSubmodelList().stream().filter(submodel -> {
-			return submodel.getIdShort().equals(idShort);
-		}).findAny();
-		if (submodelOptional.isEmpty())
+		Submodel submodel = storageApi.retrieveOne(getIdShortCriteria(idShort));
+		if (submodel == null)
 			throw new ResourceNotFoundException("The submodel with idShort '" + idShort + "' could not be found");
-		return submodelOptional.get();
+
+		String submodelId = submodel.getIdentification().getId();
+		if (flushWriteBehindBuffer(submodelId)) {
+			// Retrieve the submodel again with its buffered values
+			return storageApi.retrieve(submodelId);
+		}
+		return submodel;
 	}
 
+	private Criteria getIdShortCriteria(String idShort) {
+		Criteria hasIdShort = where(Referable.IDSHORT).is(idShort);
+		if (shellId != null) {
+			hasIdShort = new Criteria().andOperator(hasIdShort, getSubmodelsOfShellCriteria());
+		}
+		return hasIdShort;
+	}
+
+	private Criteria getSubmodelsOfShellCriteria() {
+		List<String> submodelIds = getReferencedSubmodelIds();
+		if (submodelIds.isEmpty()) {
+			return getHasParentCriteria();
+		}
+		return where(MongoDBSubmodelAPI.SMIDPATH).in(submodelIds);
+	}
+
+	/**
+	 * Writes the buffered values of submodel elements, so that whole submodels
+	 * are read with their latest values
+	 */
+	private void flushWriteBehindBuffer() {
+		if (storageApi.getConfiguration().isWriteBehindEnabled()) {
+			MongoDBWriteBehindBuffer.getInstance(storageApi).flush();
+		}
+	}
+
+	/**
+	 * Writes only the buffered values of the given submodel, so that the values of
+	 * other submodels can still be coalesced
+	 * 
+	 * @return true, if buffered values have been written
+	 */
+	private boolean flushWriteBehindBuffer(String submodelId) {
+		if (storageApi.getConfiguration().isWriteBehindEnabled()) {
+			return MongoDBWriteBehindBuffer.getInstance(storageApi).flush(submodelId);
+		}
+		return false;
+	}
+
+	/**
+	 * If the submodel APIs are not decorated, they are created on the stored
+	 * submodel without retrieving and writing it again
+	 */
 	@Override
 	public ISubmodelAPI getSubmodelAPIById(IIdentifier identifier) throws ResourceNotFoundException {
+		if (submodelApiFactory instanceof MongoDBSubmodelAPIFactory) {
+			if (!storageApi.matches(identifier.getId(), new Criteria())) {
+				throw new ResourceNotFoundException("No Object for key '" + identifier.getId() + "' found in the database.");
+			}
+			return ((MongoDBSubmodelAPIFactory) submodelApiFactory).createForStoredSubmodel(identifier.getId());
+		}
+
 		Submodel submodel = (Submodel) getSubmodel(identifier);
 		return submodelApiFactory.create(submodel);
 	}
 
 	@Override
 	public ISubmodelAPI getSubmodelAPIByIdShort(String idShort) throws ResourceNotFoundException {
+		if (submodelApiFactory instanceof MongoDBSubmodelAPIFactory) {
+			return ((MongoDBSubmodelAPIFactory) submodelApiFactory).createForStoredSubmodel(getSubmodelIdByIdShort(idShort));
+		}
+
 		Submodel submodel = (Submodel) getSubmodelbyIdShort(idShort);
 		return submodelApiFactory.create(submodel);
 	}
+
+	/**
+	 * Retrieves only the identification id of the submodel with the given idShort
+	 * 
+	 * @param idShort
+	 * @return
+	 * @throws ResourceNotFoundException
+	 *             if the submodel does not exist
+	 */
+	public String getSubmodelIdByIdShort(String idShort) throws ResourceNotFoundException {
+		Map<String, String> submodelIds = storageApi.retrieveKeysByFieldValues(getIdShortCriteria(idShort), Referable.IDSHORT, Collections.singletonList(idShort));
+		String submodelId = submodelIds.get(idShort);
+		if (submodelId == null)
+			throw new ResourceNotFoundException("The submodel with idShort '" + idShort + "' could not be found");
+		return submodelId;
+	}
 }
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.aas.mongodb;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.modeltype.ModelType;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Translates idShortPaths of submodel elements into the dot separated field
+ * paths of the persisted submodel documents, e.g. <i>collection/property</i>
+ * becomes <i>submodelElements.collection.value.property</i>.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBSubmodelElementPathHelper {
+	private static final List<String> ANCESTOR_ATTRIBUTES = Arrays.asList(ModelType.MODELTYPE, Referable.IDSHORT, SubmodelElementCollection.ORDERED, SubmodelElementCollection.ALLOWDUPLICATES);
+
+	private MongoDBSubmodelElementPathHelper() {
+	}
+
+	/**
+	 * Checks if the given idShortPath can be expressed as a document field path.
+	 * IdShorts containing characters with special meaning for MongoDB field paths
+	 * have to be handled by loading the whole submodel.
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static boolean isResolvable(String idShortPath) {
+		String[] idShorts = VABPathTools.splitPath(idShortPath);
+		if (idShorts == null || idShorts.length == 0) {
+			return false;
+		}
+		return Arrays.stream(idShorts).noneMatch(MongoDBSubmodelElementPathHelper::containsReservedCharacter);
+	}
+
+	private static boolean containsReservedCharacter(String idShort) {
+		return idShort.isEmpty() || idShort.contains(".") || idShort.startsWith("$");
+	}
+
+	/**
+	 * Returns the field path of the submodel element with the given idShortPath
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static String getElementPath(String idShortPath) {
+		String[] idShorts = VABPathTools.splitPath(idShortPath);
+		StringBuilder builder = new StringBuilder(Submodel.SUBMODELELEMENT);
+		for (int i = 0; i < idShorts.length; i++) {
+			if (i > 0) {
+				builder.append(".").append(Property.VALUE);
+			}
+			builder.append(".").append(idShorts[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the field path of the value of the submodel element with the given
+	 * idShortPath
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static String getValuePath(String idShortPath) {
+		return getElementPath(idShortPath) + "." + Property.VALUE;
+	}
+
+	/**
+	 * Returns the field paths of the attributes of all collections enclosing the
+	 * submodel element with the given idShortPath, which are needed to resolve the
+	 * element within a partially retrieved submodel
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static List<String> getAncestorAttributePaths(String idShortPath) {
+		String[] idShorts = VABPathTools.splitPath(idShortPath);
+		List<String> attributePaths = new ArrayList<>();
+		for (int i = 1; i < idShorts.length; i++) {
+			String ancestorPath = getElementPath(String.join("/", Arrays.copyOfRange(idShorts, 0, i)));
+			for (String attribute : ANCESTOR_ATTRIBUTES) {
+				attributePaths.add(ancestorPath + "." + attribute);
+			}
+		}
+		return attributePaths;
+	}
+
+	/**
+	 * Returns the criteria a submodel element has to fulfill, so that the given
+	 * value can be written directly without loading the element. This only applies
+	 * to properties whose value type is the one a property derives from the value.
+	 * The values of other elements define their structure, and values of another
+	 * type have to be converted or rejected by the property itself.
+	 * 
+	 * @param idShortPath
+	 * @param value
+	 * @return
+	 */
+	public static Criteria getDirectlyWritableValueCriteria(String idShortPath, Object value) {
+		String elementPath = getElementPath(idShortPath);
+		Criteria isProperty = where(elementPath + "." + ModelType.MODELTYPE + "." + ModelType.NAME).is(Property.MODELTYPE);
+		String valueTypePath = elementPath + "." + Property.VALUETYPE;
+		if (value == null) {
+			return isProperty.and(valueTypePath).exists(true);
+		}
+		return isProperty.and(valueTypePath).is(getPersistedValueType(value));
+	}
+
+	/**
+	 * Returns the value type a property derives from the given value, as it is
+	 * persisted, or null, if the value is null
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static Object getPersistedValueType(Object value) {
+		if (value == null) {
+			return null;
+		}
+		return createProperty(value).get(Property.VALUETYPE);
+	}
+
+	/**
+	 * Returns the given value as it is persisted by a property
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static Object getPersistedValue(Object value) {
+		if (value == null) {
+			return null;
+		}
+		return createProperty(value).get(Property.VALUE);
+	}
+
+	private static Property createProperty(Object value) {
+		Property property = new Property();
+		property.setValue(value);
+		return property;
+	}
+
+	/**
+	 * Returns the field path of the model type name of the parent collection of the
+	 * submodel element with the given idShortPath or null, if the element is not
+	 * contained in a collection.
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static String getParentModelTypeNamePath(String idShortPath) {
+		if (!isNested(idShortPath)) {
+			return null;
+		}
+		String parentPath = VABPathTools.getParentPath(VABPathTools.stripSlashes(idShortPath));
+		return getElementPath(parentPath) + "." + ModelType.MODELTYPE + "." + ModelType.NAME;
+	}
+
+	/**
+	 * Checks if the element with the given idShortPath is contained in a
+	 * collection
+	 * 
+	 * @param idShortPath
+	 * @return
+	 */
+	public static boolean isNested(String idShortPath) {
+		return VABPathTools.splitPath(idShortPath).length > 1;
+	}
+}
@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.mongodb;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers value updates of submodel elements and writes them to the database in
+ * batches. Consecutive updates of the same submodel element are coalesced, so
+ * that only the latest value is written. Buffered values are served by
+ * {@link #getPendingValue(String, String)} until they have been written.<br>
+ * <br>
+ * The buffer is written to the database periodically, in the background as soon
+ * as it holds the configured maximum number of values and before the submodel is accessed in
+ * any other way than reading a single value. Thus, buffered values may be lost
+ * if the server terminates unexpectedly.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBWriteBehindBuffer {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBWriteBehindBuffer.class);
+
+	private static Map<String, MongoDBWriteBehindBuffer> buffers = new HashMap<>();
+
+	private final MongoDBBaSyxStorageAPI<Submodel> storageApi;
+	private final int maxSize;
+	private final ScheduledExecutorService flushExecutor;
+
+	// submodel identification id => value field path => value
+	private final Map<String, Map<String, Object>> pendingValues = new LinkedHashMap<>();
+	private int pendingValueCount = 0;
+	private boolean isFlushScheduled = false;
+
+	// Values taken from the buffer that are currently being written
+	private Map<String, Map<String, Object>> writingValues = Collections.emptyMap();
+
+	// Serializes the writing, so that values are written in the order they have
+	// been buffered
+	private final Object writeLock = new Object();
+
+	// submodel identification id => element field path => persisted value type of
+	// the elements known to be directly writable
+	private final Map<String, Map<String, Object>> knownElements = new HashMap<>();
+
+	/**
+	 * Returns the buffer of the collection the given storage API is working on.
+	 * All submodel APIs working on the same collection share one buffer.
+	 * 
+	 * @param storageApi
+	 * @return
+	 */
+	public static synchronized MongoDBWriteBehindBuffer getInstance(MongoDBBaSyxStorageAPI<Submodel> storageApi) {
+		BaSyxMongoDBConfiguration config = storageApi.getConfiguration();
+		String bufferKey = config.getConnectionUrl() + "#" + config.getDatabase() + "#" + storageApi.getCollectionName();
+		return buffers.computeIfAbsent(bufferKey, key -> new MongoDBWriteBehindBuffer(storageApi, config.getWriteBehindInterval(), config.getWriteBehindMaxSize()));
+	}
+
+	/**
+	 * Writes all buffered values to the database and stops the periodic writing
+	 * of all buffers.
+	 */
+	public static synchronized void closeAll() {
+		buffers.values().forEach(MongoDBWriteBehindBuffer::close);
+		buffers.clear();
+	}
+
+	protected MongoDBWriteBehindBuffer(MongoDBBaSyxStorageAPI<Submodel> storageApi, long intervalMillis, int maxSize) {
+		this.storageApi = storageApi;
+		this.maxSize = maxSize;
+		this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "MongoDBWriteBehindBuffer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flushExecutor.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Buffers the new value of a submodel element. The value is only buffered, if
+	 * the submodel element exists and the value can be written directly, see
+	 * {@link MongoDBSubmodelElementPathHelper#getDirectlyWritableValueCriteria(String, Object)}.
+	 * 
+	 * @param submodelId
+	 * @param idShortPath
+	 * @param value
+	 * @return true, if the value has been buffered
+	 */
+	public boolean put(String submodelId, String idShortPath, Object value) {
+		String elementPath = MongoDBSubmodelElementPathHelper.getElementPath(idShortPath);
+		Object valueType = MongoDBSubmodelElementPathHelper.getPersistedValueType(value);
+		if (!isKnownElement(submodelId, elementPath, valueType)) {
+			if (!storageApi.matches(submodelId, MongoDBSubmodelElementPathHelper.getDirectlyWritableValueCriteria(idShortPath, value))) {
+				return false;
+			}
+			addKnownElement(submodelId, elementPath, valueType);
+		}
+
+		boolean isOverfilled;
+		synchronized (this) {
+			Map<String, Object> submodelValues = pendingValues.computeIfAbsent(submodelId, id -> new LinkedHashMap<>());
+			boolean isCoalesced = submodelValues.containsKey(idShortPathToValuePath(idShortPath));
+			submodelValues.put(idShortPathToValuePath(idShortPath), value);
+			if (!isCoalesced) {
+				pendingValueCount++;
+			}
+
+			isOverfilled = pendingValueCount >= 2 * maxSize;
+			if (!isOverfilled && pendingValueCount >= maxSize) {
+				scheduleFlush();
+			}
+		}
+
+		if (isOverfilled) {
+			// The scheduled writing does not keep up, so the request is slowed down
+			// instead of letting the buffer grow without bound
+			flush();
+		}
+		return true;
+	}
+
+	public synchronized boolean hasPendingValue(String submodelId, String idShortPath) {
+		String valuePath = idShortPathToValuePath(idShortPath);
+		return containsValue(pendingValues, submodelId, valuePath) || containsValue(writingValues, submodelId, valuePath);
+	}
+
+	public synchronized Object getPendingValue(String submodelId, String idShortPath) {
+		String valuePath = idShortPathToValuePath(idShortPath);
+		if (containsValue(pendingValues, submodelId, valuePath)) {
+			return pendingValues.get(submodelId).get(valuePath);
+		}
+		return containsValue(writingValues, submodelId, valuePath) ? writingValues.get(submodelId).get(valuePath) : null;
+	}
+
+	/**
+	 * Writes the buffered values of the given submodel to the database. Returns
+	 * after all values buffered before have been written, including those that
+	 * are already being written by another thread.
+	 * 
+	 * @param submodelId
+	 * @return true, if values of the submodel have been written
+	 */
+	public boolean flush(String submodelId) {
+		synchronized (writeLock) {
+			Map<String, Map<String, Object>> fieldValuesByKey = new HashMap<>();
+			synchronized (this) {
+				Map<String, Object> submodelValues = pendingValues.remove(submodelId);
+				if (submodelValues == null) {
+					return false;
+				}
+				pendingValueCount -= submodelValues.size();
+				fieldValuesByKey.put(submodelId, submodelValues);
+			}
+			write(fieldValuesByKey);
+			return true;
+		}
+	}
+
+	/**
+	 * Writes the buffered values of the given submodel to the database and forgets
+	 * which of its submodel elements exist. Has to be called before the structure
+	 * of the submodel is changed.
+	 * 
+	 * @param submodelId
+	 */
+	public void invalidate(String submodelId) {
+		flush(submodelId);
+		synchronized (this) {
+			knownElements.remove(submodelId);
+		}
+	}
+
+	/**
+	 * Drops all buffered values without writing them and forgets which submodel
+	 * elements exist, e.g. before all submodels are deleted. Returns after the
+	 * values that are currently being written by another thread have been written,
+	 * so that they are not written after the deletion.
+	 */
+	public void discard() {
+		synchronized (writeLock) {
+			synchronized (this) {
+				pendingValues.clear();
+				pendingValueCount = 0;
+				knownElements.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes all buffered values to the database within one bulk request
+	 */
+	public void flush() {
+		synchronized (writeLock) {
+			Map<String, Map<String, Object>> fieldValuesByKey;
+			synchronized (this) {
+				isFlushScheduled = false;
+				if (pendingValues.isEmpty()) {
+					return;
+				}
+				fieldValuesByKey = new LinkedHashMap<>(pendingValues);
+				pendingValues.clear();
+				pendingValueCount = 0;
+			}
+			write(fieldValuesByKey);
+		}
+	}
+
+	/**
+	 * Writes all buffered values to the database and stops the periodic writing
+	 */
+	public void close() {
+		flushExecutor.shutdown();
+		try {
+			flushExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	/**
+	 * Writes values that have been taken from the buffer. The buffer is only
+	 * locked while taking and returning values, so that buffering further values
+	 * does not wait for the database. While being written, the values are still
+	 * served by {@link #getPendingValue(String, String)}. If the database is not
+	 * available, the values are buffered again, unless they have been updated in
+	 * the meantime, so that they are retried.
+	 */
+	private void write(Map<String, Map<String, Object>> fieldValuesByKey) {
+		int valueCount = fieldValuesByKey.values().stream().mapToInt(Map::size).sum();
+		synchronized (this) {
+			writingValues = fieldValuesByKey;
+		}
+
+		try {
+			int writtenCount = storageApi.setExistingFields(toPersistedValues(fieldValuesByKey));
+			if (writtenCount < valueCount) {
+				logger.warn("Dropped " + (valueCount - writtenCount) + " buffered values of submodel elements that have been deleted in the meantime");
+				synchronized (this) {
+					fieldValuesByKey.keySet().forEach(knownElements::remove);
+				}
+			}
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				fieldValuesByKey.forEach(this::rebuffer);
+			}
+			throw e;
+		} finally {
+			synchronized (this) {
+				writingValues = Collections.emptyMap();
+			}
+		}
+	}
+
+	private void rebuffer(String submodelId, Map<String, Object> fieldValues) {
+		Map<String, Object> submodelValues = pendingValues.computeIfAbsent(submodelId, id -> new LinkedHashMap<>());
+		fieldValues.forEach((fieldPath, value) -> {
+			if (!submodelValues.containsKey(fieldPath)) {
+				submodelValues.put(fieldPath, value);
+				pendingValueCount++;
+			}
+		});
+	}
+
+	private static boolean containsValue(Map<String, Map<String, Object>> fieldValuesByKey, String submodelId, String valuePath) {
+		Map<String, Object> submodelValues = fieldValuesByKey.get(submodelId);
+		return submodelValues != null && submodelValues.containsKey(valuePath);
+	}
+
+	/**
+	 * Lets the buffer be written by the flush thread, so that the request that
+	 * filled the buffer does not wait for the database
+	 */
+	private void scheduleFlush() {
+		if (isFlushScheduled) {
+			return;
+		}
+
+		try {
+			flushExecutor.execute(this::flushSafely);
+			isFlushScheduled = true;
+		} catch (RejectedExecutionException e) {
+			// The buffer is being closed, which writes the remaining values
+		}
+	}
+
+	private void flushSafely() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			logger.error("Could not write buffered values to the database", e);
+		}
+	}
+
+	/**
+	 * Null values can be written to properties of any value type, other values
+	 * only to properties of the value type derived from them
+	 */
+	private synchronized boolean isKnownElement(String submodelId, String elementPath, Object valueType) {
+		Map<String, Object> elementValueTypes = knownElements.get(submodelId);
+		if (elementValueTypes == null || !elementValueTypes.containsKey(elementPath)) {
+			return false;
+		}
+		return valueType == null || valueType.equals(elementValueTypes.get(elementPath));
+	}
+
+	private synchronized void addKnownElement(String submodelId, String elementPath, Object valueType) {
+		if (valueType == null) {
+			// The value type of the element is still unknown
+			return;
+		}
+		knownElements.computeIfAbsent(submodelId, id -> new HashMap<>()).put(elementPath, valueType);
+	}
+
+	/**
+	 * The buffered values are kept as they have been set, so that they are served
+	 * unchanged until they have been written
+	 */
+	private static Map<String, Map<String, Object>> toPersistedValues(Map<String, Map<String, Object>> fieldValuesByKey) {
+		Map<String, Map<String, Object>> persistedValuesByKey = new LinkedHashMap<>();
+		fieldValuesByKey.forEach((key, fieldValues) -> {
+			Map<String, Object> persistedValues = new LinkedHashMap<>();
+			fieldValues.forEach((fieldPath, value) -> persistedValues.put(fieldPath, MongoDBSubmodelElementPathHelper.getPersistedValue(value)));
+			persistedValuesByKey.put(key, persistedValues);
+		});
+		return persistedValuesByKey;
+	}
+
+	private static String idShortPathToValuePath(String idShortPath) {
+		return MongoDBSubmodelElementPathHelper.getValuePath(idShortPath);
+	}
+}
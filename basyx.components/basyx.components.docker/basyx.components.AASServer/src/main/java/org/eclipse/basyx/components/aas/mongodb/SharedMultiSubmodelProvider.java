@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.mongodb;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.eclipse.basyx.aas.registration.api.IAASRegistry;
+import org.eclipse.basyx.aas.restapi.AASModelProvider;
+import org.eclipse.basyx.aas.restapi.MultiSubmodelProvider;
+import org.eclipse.basyx.aas.restapi.api.IAASAPIFactory;
+import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
+import org.eclipse.basyx.vab.protocol.api.IConnectorFactory;
+
+/**
+ * MultiSubmodelProvider that can be shared by concurrent requests. The shell
+ * and its submodels are read and written through the database on every
+ * access, but the provider may keep the structure of the shell, e.g. its
+ * submodel providers. Thus, requests that may change the structure are
+ * executed exclusively, while reading requests and operation invocations are
+ * executed concurrently.
+ * 
+ * @author fischer
+ *
+ */
+class SharedMultiSubmodelProvider extends MultiSubmodelProvider {
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public SharedMultiSubmodelProvider(AASModelProvider contentProvider, IAASRegistry registry, IConnectorFactory connectorFactory, IAASAPIFactory aasApiProvider, ISubmodelAggregator submodelAggregator) {
+		super(contentProvider, registry, connectorFactory, aasApiProvider, submodelAggregator);
+	}
+
+	@Override
+	public Object getValue(String path) {
+		return read(() -> super.getValue(path));
+	}
+
+	@Override
+	public Object invokeOperation(String path, Object... parameters) {
+		return read(() -> super.invokeOperation(path, parameters));
+	}
+
+	@Override
+	public void setValue(String path, Object newValue) {
+		write(() -> super.setValue(path, newValue));
+	}
+
+	@Override
+	public void createValue(String path, Object newEntity) {
+		write(() -> super.createValue(path, newEntity));
+	}
+
+	@Override
+	public void deleteValue(String path) {
+		write(() -> super.deleteValue(path));
+	}
+
+	@Override
+	public void deleteValue(String path, Object obj) {
+		write(() -> super.deleteValue(path, obj));
+	}
+
+	private Object read(Supplier<Object> access) {
+		lock.readLock().lock();
+		try {
+			return access.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void write(Runnable access) {
+		lock.writeLock().lock();
+		try {
+			access.run();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
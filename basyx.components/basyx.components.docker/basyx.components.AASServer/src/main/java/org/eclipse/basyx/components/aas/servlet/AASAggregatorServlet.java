@@ -24,20 +24,93 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.aas.servlet;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.eclipse.basyx.aas.aggregator.AASAggregator;
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
 import org.eclipse.basyx.aas.aggregator.restapi.AASAggregatorProvider;
+import org.eclipse.basyx.aas.metamodel.api.IAssetAdministrationShell;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBAsyncExecutor;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileDownload;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileUploadConflictException;
+import org.eclipse.basyx.submodel.restapi.MultiSubmodelElementProvider;
+import org.eclipse.basyx.submodel.restapi.SubmodelProvider;
+import org.eclipse.basyx.vab.coder.json.metaprotocol.Result;
+import org.eclipse.basyx.vab.coder.json.serialization.DefaultTypeFactory;
+import org.eclipse.basyx.vab.coder.json.serialization.GSONTools;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.eclipse.basyx.vab.protocol.http.server.ExceptionToHTTPCodeMapper;
 import org.eclipse.basyx.vab.protocol.http.server.VABHTTPInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A servlet containing the empty infrastructure needed to support receiving
  * AAS/Submodels by clients and hosting them
  * 
+ * If the shells are stored in a MongoDB, they can be retrieved page by page
+ * using <i>GET /shells?limit=&lt;n&gt;&amp;cursor=&lt;cursor&gt;</i>. The
+ * shells of a page are serialized while they are read from the database.
+ * 
+ * Files of File submodel elements stored in a MongoDB are streamed directly from
+ * the database. Single byte ranges can be requested by the <i>Range</i> header.
+ * 
+ * These files can also be uploaded in pieces, so that interrupted uploads can be
+ * resumed. An upload is started by <i>POST .../File/uploads</i>, which returns
+ * the id of the upload. The pieces are appended by <i>PUT
+ * .../File/uploads/{uploadId}</i> with the <i>Upload-Offset</i> header
+ * containing the offset of the piece. The current offset is returned by <i>GET
+ * .../File/uploads/{uploadId}</i>. The upload is finished by <i>POST
+ * .../File/uploads/{uploadId}</i> and discarded by <i>DELETE
+ * .../File/uploads/{uploadId}</i>. Pieces at another offset and concurrent
+ * requests to the same upload are answered with <i>409 Conflict</i>.
+ * 
+ * If an asynchronous executor is given, the requests are handed off to its
+ * threads using the asynchronous processing of the servlet container, so that
+ * the threads of the HTTP server are not blocked during the database latency.
+ * Requests waiting longer than the given timeout for a thread of the executor
+ * are answered with 503 without being processed. Only the thread serving a
+ * request completes it, so that its response is never written concurrently.
+ * 
  * @author schnicke
  *
  */
+@WebServlet(asyncSupported = true)
 public class AASAggregatorServlet extends VABHTTPInterface<AASAggregatorProvider> {
 	private static final long serialVersionUID = 1244938902937878401L;
+	private static Logger logger = LoggerFactory.getLogger(AASAggregatorServlet.class);
+
+	public static final String SHELLS_PATH = "/shells";
+	public static final String LIMIT_PARAMETER = "limit";
+	public static final String CURSOR_PARAMETER = "cursor";
+
+	private static final String SHELLS = "shells";
+	private static final String AAS = "aas";
+	private static final String SUBMODELS = "submodels";
+	private static final String SUBMODEL = "submodel";
+	private static final String UPLOADS = "uploads";
+	private static final String RANGE_HEADER = "Range";
+	private static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+	private transient MongoDBAASAggregator pageableAggregator;
+	private transient MongoDBAsyncExecutor asyncExecutor;
+	private long asyncTimeoutMillis;
+	private static GSONTools serializer = new GSONTools(new DefaultTypeFactory());
 
 	public AASAggregatorServlet() {
 		super(new AASAggregatorProvider(new AASAggregator()));
@@ -45,5 +118,395 @@ public class AASAggregatorServlet extends VABHTTPInterface<AASAggregatorProvider
 
 	public AASAggregatorServlet(IAASAggregator aggregator) {
 		super(new AASAggregatorProvider(aggregator));
+		if (aggregator instanceof MongoDBAASAggregator) {
+			this.pageableAggregator = (MongoDBAASAggregator) aggregator;
+		}
+	}
+
+	/**
+	 * Serves the requests asynchronously by the threads of the given executor
+	 * 
+	 * @param aggregator
+	 * @param asyncExecutor
+	 * @param asyncTimeoutMillis
+	 *            the maximum time a request waits for a thread of the executor.
+	 *            Requests waiting longer are answered with 503.
+	 */
+	public AASAggregatorServlet(IAASAggregator aggregator, MongoDBAsyncExecutor asyncExecutor, long asyncTimeoutMillis) {
+		this(aggregator);
+		this.asyncExecutor = asyncExecutor;
+		this.asyncTimeoutMillis = asyncTimeoutMillis;
+	}
+
+	@Override
+	protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (asyncExecutor == null || !req.isAsyncSupported()) {
+			super.service(req, resp);
+			return;
+		}
+
+		AsyncContext asyncContext = req.startAsync();
+		// The container must not time out a request while it is served, thus the
+		// timeout is checked before serving it
+		asyncContext.setTimeout(0);
+		long queuedAt = System.nanoTime();
+		try {
+			asyncExecutor.run(() -> serviceAsync(asyncContext, req, resp, queuedAt));
+		} catch (RejectedExecutionException e) {
+			logger.warn("Rejected request, since too many requests are waiting for the database");
+			resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			asyncContext.complete();
+		}
+	}
+
+	private void serviceAsync(AsyncContext asyncContext, HttpServletRequest req, HttpServletResponse resp, long queuedAt) {
+		try {
+			if (hasWaitedTooLong(queuedAt)) {
+				logger.warn("Request has waited longer than the asynchronous timeout for the database");
+				resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				return;
+			}
+			super.service(req, resp);
+		} catch (Exception e) {
+			logger.error("Exception while serving an asynchronous request", e);
+			sendInternalServerError(resp);
+		} finally {
+			asyncContext.complete();
+		}
+	}
+
+	private boolean hasWaitedTooLong(long queuedAt) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt) > asyncTimeoutMillis;
+	}
+
+	private void sendInternalServerError(HttpServletResponse resp) {
+		if (resp.isCommitted()) {
+			return;
+		}
+		try {
+			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		} catch (IOException e) {
+			logger.error("Could not send the error response", e);
+		}
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String[] fileDownloadPath = getFilePath(req, 0);
+		if (fileDownloadPath != null && sendFile(req, resp, fileDownloadPath)) {
+			return;
+		}
+
+		String[] uploadPath = getFileUploadPath(req, true);
+		if (uploadPath != null) {
+			sendUploadOffset(resp, uploadPath);
+			return;
+		}
+
+		if (!isPagedShellsRequest(req)) {
+			super.doGet(req, resp);
+			return;
+		}
+
+		ShellPageWriter pageWriter = new ShellPageWriter(resp);
+		try {
+			String nextCursor = pageableAggregator.getAASPage(getLimit(req), req.getParameter(CURSOR_PARAMETER), pageWriter::write);
+			pageWriter.finish(nextCursor);
+		} catch (ProviderException e) {
+			if (pageWriter.hasStarted()) {
+				throw e;
+			}
+			sendError(resp, e);
+		}
+	}
+
+	@Override
+	protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String[] uploadPath = getFileUploadPath(req, false);
+		if (uploadPath != null && startUpload(req, resp, uploadPath)) {
+			return;
+		}
+
+		uploadPath = getFileUploadPath(req, true);
+		if (uploadPath != null) {
+			finishUpload(resp, uploadPath);
+			return;
+		}
+
+		super.doPost(req, resp);
+	}
+
+	@Override
+	protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String[] uploadPath = getFileUploadPath(req, true);
+		if (uploadPath == null) {
+			super.doPut(req, resp);
+			return;
+		}
+
+		appendToUpload(req, resp, uploadPath);
+	}
+
+	@Override
+	protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String[] uploadPath = getFileUploadPath(req, true);
+		if (uploadPath == null) {
+			super.doDelete(req, resp);
+			return;
+		}
+
+		try {
+			pageableAggregator.abortSubmodelElementFileUpload(getUploadId(uploadPath), getIdShortPath(uploadPath, 2));
+			resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+		} catch (MongoDBFileUploadConflictException e) {
+			sendConflict(resp, e);
+		} catch (ProviderException e) {
+			sendError(resp, e);
+		}
+	}
+
+	private void sendError(HttpServletResponse resp, ProviderException e) throws IOException {
+		resp.setStatus(ExceptionToHTTPCodeMapper.mapFromException(e));
+		resp.getWriter().write(serializer.serialize(new Result(e)));
+	}
+
+	/**
+	 * Returns the elements of the path, if it addresses the file of a File
+	 * submodel element, i.e.
+	 * <i>/shells/{aasId}/aas/submodels/{submodelIdShort}/submodel/submodelElements/{idShortPath}/File</i>,
+	 * followed by the given number of further elements. Otherwise, null is
+	 * returned.
+	 */
+	private String[] getFilePath(HttpServletRequest req, int suffixLength) {
+		if (pageableAggregator == null) {
+			return null;
+		}
+
+		String rawPath = req.getRequestURI().substring(req.getContextPath().length() + req.getServletPath().length());
+		String[] elements = VABPathTools.splitPath(rawPath);
+		if (elements == null || elements.length < 9 + suffixLength) {
+			return null;
+		}
+
+		boolean isFilePath = SHELLS.equals(elements[0]) && AAS.equals(elements[2]) && SUBMODELS.equals(elements[3]) && SUBMODEL.equals(elements[5])
+				&& MultiSubmodelElementProvider.ELEMENTS.equals(elements[6]) && SubmodelProvider.FILE.equals(elements[elements.length - 1 - suffixLength]);
+		return isFilePath ? elements : null;
+	}
+
+	/**
+	 * Returns the elements of the path, if it addresses the uploads of the file of
+	 * a File submodel element, i.e. <i>.../File/uploads</i> or, if an upload id is
+	 * expected, <i>.../File/uploads/{uploadId}</i>. Otherwise, null is returned.
+	 */
+	private String[] getFileUploadPath(HttpServletRequest req, boolean withUploadId) {
+		int suffixLength = withUploadId ? 2 : 1;
+		String[] elements = getFilePath(req, suffixLength);
+		if (elements == null || !UPLOADS.equals(elements[elements.length - suffixLength])) {
+			return null;
+		}
+		return elements;
+	}
+
+	private String getIdShortPath(String[] pathElements, int suffixLength) {
+		return String.join("/", Arrays.copyOfRange(pathElements, 7, pathElements.length - 1 - suffixLength));
+	}
+
+	private String getUploadId(String[] uploadPath) {
+		return uploadPath[uploadPath.length - 1];
+	}
+
+	/**
+	 * Starts an upload and returns its id
+	 * 
+	 * @return false, if the file is not stored in the database and the request has
+	 *         to be served by the default implementation
+	 */
+	private boolean startUpload(HttpServletRequest req, HttpServletResponse resp, String[] uploadPath) throws IOException {
+		String shellId = VABPathTools.decodePathElement(uploadPath[1]);
+		String uploadId;
+		try {
+			uploadId = pageableAggregator.startSubmodelElementFileUpload(shellId, uploadPath[4], getIdShortPath(uploadPath, 1));
+		} catch (ProviderException e) {
+			sendError(resp, e);
+			return true;
+		}
+		if (uploadId == null) {
+			return false;
+		}
+
+		resp.setStatus(HttpServletResponse.SC_CREATED);
+		resp.setHeader("Location", req.getRequestURL() + "/" + uploadId);
+		resp.setHeader(UPLOAD_OFFSET_HEADER, "0");
+		resp.setContentType("application/json");
+		resp.getWriter().write(serializer.serialize(uploadId));
+		return true;
+	}
+
+	private void sendUploadOffset(HttpServletResponse resp, String[] uploadPath) throws IOException {
+		try {
+			long offset = pageableAggregator.getSubmodelElementFileUploadOffset(getUploadId(uploadPath), getIdShortPath(uploadPath, 2));
+			resp.setHeader(UPLOAD_OFFSET_HEADER, Long.toString(offset));
+			resp.setContentType("application/json");
+			resp.getWriter().write(serializer.serialize(offset));
+		} catch (ProviderException e) {
+			sendError(resp, e);
+		}
+	}
+
+	/**
+	 * Appends the request body to the upload. If the offset of the body does not
+	 * match the offset of the upload or the upload is continued concurrently,
+	 * <i>409 Conflict</i> is returned together with the offset at which the upload
+	 * has to be continued.
+	 */
+	private void appendToUpload(HttpServletRequest req, HttpServletResponse resp, String[] uploadPath) throws IOException {
+		try {
+			long offset = getUploadOffset(req);
+			long newOffset = pageableAggregator.appendToSubmodelElementFileUpload(getUploadId(uploadPath), getIdShortPath(uploadPath, 2), offset, req.getInputStream());
+			resp.setHeader(UPLOAD_OFFSET_HEADER, Long.toString(newOffset));
+			resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+		} catch (MongoDBFileUploadConflictException e) {
+			sendConflict(resp, e);
+		} catch (ProviderException e) {
+			sendError(resp, e);
+		}
+	}
+
+	private void sendConflict(HttpServletResponse resp, MongoDBFileUploadConflictException e) {
+		resp.setHeader(UPLOAD_OFFSET_HEADER, Long.toString(e.getOffset()));
+		resp.setStatus(HttpServletResponse.SC_CONFLICT);
+	}
+
+	private long getUploadOffset(HttpServletRequest req) {
+		String offset = req.getHeader(UPLOAD_OFFSET_HEADER);
+		if (offset == null) {
+			throw new MalformedRequestException("The header '" + UPLOAD_OFFSET_HEADER + "' is missing.");
+		}
+		try {
+			return Long.parseLong(offset.trim());
+		} catch (NumberFormatException e) {
+			throw new MalformedRequestException("The upload offset '" + offset + "' is not a number.");
+		}
+	}
+
+	private void finishUpload(HttpServletResponse resp, String[] uploadPath) throws IOException {
+		try {
+			pageableAggregator.finishSubmodelElementFileUpload(getUploadId(uploadPath), getIdShortPath(uploadPath, 2));
+			resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+		} catch (MongoDBFileUploadConflictException e) {
+			sendConflict(resp, e);
+		} catch (ProviderException e) {
+			sendError(resp, e);
+		}
+	}
+
+	/**
+	 * Streams the file from the database to the response
+	 * 
+	 * @return false, if the file is not stored in the database and has to be
+	 *         served by the default implementation
+	 */
+	private boolean sendFile(HttpServletRequest req, HttpServletResponse resp, String[] pathElements) throws IOException {
+		String shellId = VABPathTools.decodePathElement(pathElements[1]);
+		String idShortPath = getIdShortPath(pathElements, 0);
+
+		MongoDBFileDownload download;
+		try {
+			download = pageableAggregator.openSubmodelElementFileDownload(shellId, pathElements[4], idShortPath);
+		} catch (ProviderException e) {
+			sendError(resp, e);
+			return true;
+		}
+		if (download == null) {
+			return false;
+		}
+
+		long length = download.getLength();
+		resp.setHeader("Accept-Ranges", "bytes");
+		ByteRange range = ByteRange.parse(req.getHeader(RANGE_HEADER), length);
+		if (range == null) {
+			range = new ByteRange(0, length - 1);
+			resp.setStatus(HttpServletResponse.SC_OK);
+		} else if (!range.isSatisfiable(length)) {
+			resp.setHeader("Content-Range", "bytes */" + length);
+			resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return true;
+		} else {
+			resp.setHeader("Content-Range", "bytes " + range.getStart() + "-" + range.getEnd() + "/" + length);
+			resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		}
+
+		if (download.getMimeType() != null) {
+			resp.setContentType(download.getMimeType());
+		}
+		resp.setContentLengthLong(range.getLength());
+		OutputStream outputStream = resp.getOutputStream();
+		download.transferTo(outputStream, range.getStart(), range.getLength());
+		outputStream.flush();
+		return true;
+	}
+
+	private boolean isPagedShellsRequest(HttpServletRequest req) {
+		return pageableAggregator != null && SHELLS_PATH.equals(req.getPathInfo()) && req.getParameter(LIMIT_PARAMETER) != null;
+	}
+
+	private int getLimit(HttpServletRequest req) {
+		String limit = req.getParameter(LIMIT_PARAMETER);
+		try {
+			return Integer.parseInt(limit);
+		} catch (NumberFormatException e) {
+			throw new MalformedRequestException("The page limit '" + limit + "' is not a number.");
+		}
+	}
+
+	/**
+	 * Writes a page of shells as <i>{"result": [...], "paging_metadata":
+	 * {"cursor": ...}}</i>, where the cursor is omitted for the last page
+	 */
+	private class ShellPageWriter {
+		private final HttpServletResponse resp;
+		private PrintWriter writer;
+		private boolean isFirstShell = true;
+
+		private ShellPageWriter(HttpServletResponse resp) {
+			this.resp = resp;
+		}
+
+		private void write(IAssetAdministrationShell shell) {
+			start();
+			if (!isFirstShell) {
+				writer.write(',');
+			}
+			writer.write(serializer.serialize(shell));
+			isFirstShell = false;
+		}
+
+		private void finish(String nextCursor) {
+			start();
+			writer.write("],\"paging_metadata\":{");
+			if (nextCursor != null) {
+				writer.write("\"cursor\":\"" + nextCursor + "\"");
+			}
+			writer.write("}}");
+			writer.flush();
+		}
+
+		private boolean hasStarted() {
+			return writer != null;
+		}
+
+		private void start() {
+			if (hasStarted()) {
+				return;
+			}
+			try {
+				resp.setContentType("application/json");
+				resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+				writer = resp.getWriter();
+			} catch (IOException e) {
+				throw new ProviderException("Could not write the page of shells.", e);
+			}
+			writer.write("{\"result\":[");
+		}
 	}
 }
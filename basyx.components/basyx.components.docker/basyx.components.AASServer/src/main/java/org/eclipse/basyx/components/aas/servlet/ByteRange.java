@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.aas.servlet;
+
+/**
+ * A single range of bytes requested by the <i>Range</i> header
+ * 
+ * @author fischer
+ *
+ */
+public class ByteRange {
+	private static final String BYTES_UNIT = "bytes=";
+
+	private final long start;
+	private final long end;
+
+	public ByteRange(long start, long end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Parses the Range header. Headers that are missing, malformed or request
+	 * multiple ranges are ignored by returning null, so that the whole file is
+	 * sent.
+	 * 
+	 * @param header
+	 *            the value of the Range header
+	 * @param length
+	 *            the length of the requested file
+	 * @return the range or null, if the header is ignored
+	 */
+	public static ByteRange parse(String header, long length) {
+		if (header == null || !header.startsWith(BYTES_UNIT) || header.contains(",")) {
+			return null;
+		}
+
+		String range = header.substring(BYTES_UNIT.length()).trim();
+		int dashIndex = range.indexOf('-');
+		if (dashIndex < 0) {
+			return null;
+		}
+
+		try {
+			String first = range.substring(0, dashIndex).trim();
+			String last = range.substring(dashIndex + 1).trim();
+			if (first.isEmpty()) {
+				// Suffix range requesting the last bytes of the file
+				long suffixLength = Long.parseLong(last);
+				return new ByteRange(Math.max(0, length - suffixLength), suffixLength > 0 ? length - 1 : -1);
+			}
+
+			long start = Long.parseLong(first);
+			long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+			if (!last.isEmpty() && Long.parseLong(last) < start) {
+				return null;
+			}
+			return new ByteRange(start, end);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns true, if the range contains at least one byte of a file with the
+	 * given length
+	 * 
+	 * @param length
+	 * @return
+	 */
+	public boolean isSatisfiable(long length) {
+		return start < length && start <= end;
+	}
+
+	public long getLength() {
+		return end - start + 1;
+	}
+}
@@ -27,6 +27,7 @@ package org.eclipse.basyx.regression.AASServer.mongodb;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.eclipse.basyx.aas.metamodel.api.IAssetAdministrationShell;
@@ -37,7 +38,12 @@ import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.api.reference.IReference;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyElements;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyType;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -102,6 +108,25 @@ public class TestMongoDBAAASAPI {
 
 	}
 
+	@Test
+	public void addSubmodelTwiceAddsReferenceOnce() {
+		IIdentifier identification = new CustomId(SHELL_IDENTIFICATION_ID);
+		AssetAdministrationShell shell = new AssetAdministrationShell("testIdShortShell", identification, null);
+		shellAPI.setAAS(shell);
+
+		IReference testReference = new Submodel("testIdShortSubmodel", identification).getReference();
+		shellAPI.addSubmodel(testReference);
+		shellAPI.addSubmodel(testReference);
+
+		assertEquals(1, shellAPI.getAAS().getSubmodelReferences().size());
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void addSubmodelToNotExistingShell() {
+		IReference testReference = new Submodel("testIdShortSubmodel", new CustomId(SHELL_IDENTIFICATION_ID)).getReference();
+		shellAPI.addSubmodel(testReference);
+	}
+
 	@Test
 	public void removeSubmodel() {
 		String idShortShell = "testIdShortShell";
@@ -122,4 +147,17 @@ public class TestMongoDBAAASAPI {
 		Collection<IReference> submodelReferences = resultShell.getSubmodelReferences();
 		assertTrue(submodelReferences.isEmpty());
 	}
+
+	@Test
+	public void removeSubmodelComparesOnlyLastKey() {
+		IIdentifier identification = new CustomId(SHELL_IDENTIFICATION_ID);
+		shellAPI.setAAS(new AssetAdministrationShell("testIdShortShell", identification, null));
+
+		Key shellKey = new Key(KeyElements.ASSETADMINISTRATIONSHELL, true, "removedSubmodel", KeyType.IDSHORT);
+		Key submodelKey = new Key(KeyElements.SUBMODEL, true, "keptSubmodel", KeyType.IDSHORT);
+		shellAPI.addSubmodel(new Reference(Arrays.asList(shellKey, submodelKey)));
+		shellAPI.removeSubmodel("removedSubmodel");
+
+		assertEquals(1, shellAPI.getAAS().getSubmodelReferences().size());
+	}
 }
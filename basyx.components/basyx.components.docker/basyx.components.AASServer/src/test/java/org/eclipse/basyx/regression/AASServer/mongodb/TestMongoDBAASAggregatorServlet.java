@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.AASServer.mongodb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
+import org.eclipse.basyx.components.aas.servlet.AASAggregatorServlet;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBAsyncExecutor;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
+import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.vab.coder.json.serialization.DefaultTypeFactory;
+import org.eclipse.basyx.vab.coder.json.serialization.GSONTools;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.eclipse.basyx.vab.modelprovider.VABPathTools;
+import org.eclipse.basyx.vab.protocol.http.server.BaSyxContext;
+import org.eclipse.basyx.vab.protocol.http.server.BaSyxHTTPServer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the endpoints the AASAggregatorServlet adds for shells stored in a
+ * MongoDB, i.e. the resumable file uploads, while the requests are served
+ * asynchronously
+ *
+ * @author fischer
+ *
+ */
+public class TestMongoDBAASAggregatorServlet {
+	private static final String HOST = "localhost";
+	private static final int PORT = 4010;
+	private static final String CONTEXT_PATH = "/aasServer";
+	private static final long ASYNC_TIMEOUT_MILLIS = 500;
+	private static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+	private static final Identifier SHELL_ID = new Identifier(IdentifierType.CUSTOM, "fileShell");
+	private static final Identifier SUBMODEL_ID = new Identifier(IdentifierType.CUSTOM, "fileSubmodel");
+	private static final String SUBMODEL_ID_SHORT = "fileSubmodel";
+	private static final String FILE_ID_SHORT = "file";
+
+	private static BaSyxMongoDBConfiguration mongoDBConfig;
+	private static MongoDBAASAggregator aggregator;
+	private static GatedAsyncExecutor asyncExecutor;
+	private static BaSyxHTTPServer server;
+
+	private static GSONTools serializer = new GSONTools(new DefaultTypeFactory());
+
+	@SuppressWarnings("deprecation")
+	@BeforeClass
+	public static void setUpClass() {
+		mongoDBConfig = new BaSyxMongoDBConfiguration();
+		mongoDBConfig.setAASCollection("basyxTestAAS");
+		mongoDBConfig.setSubmodelCollection("basyxTestSM");
+		aggregator = new MongoDBAASAggregator(mongoDBConfig);
+
+		asyncExecutor = new GatedAsyncExecutor();
+		BaSyxContext context = new BaSyxContext(CONTEXT_PATH, "", HOST, PORT);
+		context.addServletMapping("/*", new AASAggregatorServlet(aggregator, asyncExecutor, ASYNC_TIMEOUT_MILLIS));
+		server = new BaSyxHTTPServer(context);
+		server.start();
+	}
+
+	@AfterClass
+	public static void tearDownClass() {
+		server.shutdown();
+	}
+
+	@Before
+	public void setUp() {
+		aggregator.reset();
+		asyncExecutor.open();
+		createShellWithFile();
+	}
+
+	private void createShellWithFile() {
+		AssetAdministrationShell shell = new AssetAdministrationShell();
+		shell.setIdShort(SHELL_ID.getId());
+		shell.setIdentification(SHELL_ID);
+		aggregator.createAAS(shell);
+
+		Submodel submodel = new Submodel(SUBMODEL_ID_SHORT, SUBMODEL_ID);
+		File file = new File("text/plain");
+		file.setIdShort(FILE_ID_SHORT);
+		submodel.addSubmodelElement(file);
+		aggregator.getAASProvider(SHELL_ID).setValue("/aas/submodels/" + SUBMODEL_ID_SHORT, submodel);
+	}
+
+	@Test
+	public void requestIsServedByAsyncExecutor() {
+		int executedCount = asyncExecutor.getExecutedCount();
+
+		assertEquals(HttpServletResponse.SC_OK, get("/shells"));
+		assertEquals(executedCount + 1, asyncExecutor.getExecutedCount());
+	}
+
+	@Test
+	public void requestWaitingLongerThanTimeoutIsNotProcessed() throws InterruptedException {
+		Identifier shellId = new Identifier(IdentifierType.CUSTOM, "timedOutShell");
+		asyncExecutor.close();
+		assertEquals(HttpServletResponse.SC_OK, get("/shells"));
+		CompletableFuture<Integer> waitingRequest = CompletableFuture.supplyAsync(() -> putShell(shellId));
+		waitUntil(() -> asyncExecutor.getSubmittedCount() == 2);
+
+		Thread.sleep(ASYNC_TIMEOUT_MILLIS + 200);
+		asyncExecutor.open();
+
+		assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, (int) waitingRequest.join());
+		assertShellDoesNotExist(shellId);
+	}
+
+	@Test
+	public void requestExceedingQueueIsRejected() throws InterruptedException {
+		asyncExecutor.close();
+		assertEquals(HttpServletResponse.SC_OK, get("/shells"));
+		CompletableFuture<Integer> waitingRequest = CompletableFuture.supplyAsync(() -> get("/shells"));
+		waitUntil(() -> asyncExecutor.getSubmittedCount() == 2);
+
+		assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, get("/shells"));
+
+		asyncExecutor.open();
+		assertEquals(HttpServletResponse.SC_OK, (int) waitingRequest.join());
+	}
+
+	@Test
+	public void fileIsUploadedInPieces() {
+		byte[] content = createContent(600 * 1024);
+
+		Response started = send("POST", getUploadsPath(), null, null);
+		assertEquals(HttpServletResponse.SC_CREATED, started.status);
+		assertEquals("0", started.uploadOffset);
+		String uploadPath = getUploadsPath() + "/" + getUploadId(started);
+
+		Response appended = send("PUT", uploadPath, 0L, Arrays.copyOfRange(content, 0, 400 * 1024));
+		assertEquals(HttpServletResponse.SC_NO_CONTENT, appended.status);
+		assertEquals(Integer.toString(400 * 1024), appended.uploadOffset);
+		assertEquals(Integer.toString(400 * 1024), send("GET", uploadPath, null, null).uploadOffset);
+
+		appended = send("PUT", uploadPath, 400L * 1024, Arrays.copyOfRange(content, 400 * 1024, content.length));
+		assertEquals(HttpServletResponse.SC_NO_CONTENT, appended.status);
+		assertEquals(HttpServletResponse.SC_NO_CONTENT, send("POST", uploadPath, null, null).status);
+
+		Response downloaded = send("GET", getFilePath(), null, null);
+		assertEquals(HttpServletResponse.SC_OK, downloaded.status);
+		assertArrayEquals(content, downloaded.body);
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, send("GET", uploadPath, null, null).status);
+	}
+
+	@Test
+	public void pieceAtWrongOffsetIsAnsweredWithConflict() {
+		byte[] content = createContent(1024);
+		String uploadPath = getUploadsPath() + "/" + getUploadId(send("POST", getUploadsPath(), null, null));
+		send("PUT", uploadPath, 0L, Arrays.copyOfRange(content, 0, 512));
+
+		Response conflict = send("PUT", uploadPath, 0L, Arrays.copyOfRange(content, 0, 512));
+		assertEquals(HttpServletResponse.SC_CONFLICT, conflict.status);
+		assertEquals("512", conflict.uploadOffset);
+		assertEquals("512", send("GET", uploadPath, null, null).uploadOffset);
+	}
+
+	@Test
+	public void abortedUploadIsDiscarded() {
+		String uploadPath = getUploadsPath() + "/" + getUploadId(send("POST", getUploadsPath(), null, null));
+		send("PUT", uploadPath, 0L, createContent(1024));
+
+		assertEquals(HttpServletResponse.SC_NO_CONTENT, send("DELETE", uploadPath, null, null).status);
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, send("GET", uploadPath, null, null).status);
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, send("POST", uploadPath, null, null).status);
+	}
+
+	private String getFilePath() {
+		return "/shells/" + VABPathTools.encodePathElement(SHELL_ID.getId()) + "/aas/submodels/" + SUBMODEL_ID_SHORT + "/submodel/submodelElements/" + FILE_ID_SHORT + "/File";
+	}
+
+	private String getUploadsPath() {
+		return getFilePath() + "/uploads";
+	}
+
+	private String getUploadId(Response started) {
+		return (String) serializer.deserialize(new String(started.body, StandardCharsets.UTF_8));
+	}
+
+	private byte[] createContent(int length) {
+		byte[] content = new byte[length];
+		new Random(42).nextBytes(content);
+		return content;
+	}
+
+	private void assertShellDoesNotExist(Identifier shellId) {
+		try {
+			aggregator.getAAS(shellId);
+			throw new AssertionError("The shell of the timed out request has been created");
+		} catch (ResourceNotFoundException e) {
+			// expected
+		}
+	}
+
+	private static int get(String path) {
+		return send("GET", path, null, null).status;
+	}
+
+	private static int putShell(Identifier shellId) {
+		AssetAdministrationShell shell = new AssetAdministrationShell();
+		shell.setIdShort(shellId.getId());
+		shell.setIdentification(shellId);
+		return send("PUT", "/shells/" + VABPathTools.encodePathElement(shellId.getId()), null, serializer.serialize(shell).getBytes(StandardCharsets.UTF_8)).status;
+	}
+
+	private static Response send(String method, String path, Long uploadOffset, byte[] body) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL("http://" + HOST + ":" + PORT + CONTEXT_PATH + path).openConnection();
+			try {
+				connection.setRequestMethod(method);
+				if (uploadOffset != null) {
+					connection.setRequestProperty(UPLOAD_OFFSET_HEADER, Long.toString(uploadOffset));
+				}
+				if (body != null) {
+					connection.setRequestProperty("Content-Type", "application/octet-stream");
+					connection.setDoOutput(true);
+					try (OutputStream outputStream = connection.getOutputStream()) {
+						outputStream.write(body);
+					}
+				}
+				return new Response(connection);
+			} finally {
+				connection.disconnect();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+	}
+
+	private static class Response {
+		private final int status;
+		private final String uploadOffset;
+		private final byte[] body;
+
+		private Response(HttpURLConnection connection) throws IOException {
+			this.status = connection.getResponseCode();
+			this.uploadOffset = connection.getHeaderField(UPLOAD_OFFSET_HEADER);
+			InputStream bodyStream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			this.body = bodyStream == null ? new byte[0] : bodyStream.readAllBytes();
+		}
+	}
+
+	/**
+	 * Executor with a single thread and a single waiting request. While it is
+	 * closed, its thread does not take the next request after serving one.
+	 */
+	private static class GatedAsyncExecutor extends MongoDBAsyncExecutor {
+		private final AtomicInteger submittedCount = new AtomicInteger();
+		private final AtomicInteger executedCount = new AtomicInteger();
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+
+		private GatedAsyncExecutor() {
+			super(1, 1);
+		}
+
+		@Override
+		public CompletableFuture<Void> run(Runnable operation) {
+			submittedCount.incrementAndGet();
+			CountDownLatch currentGate = gate;
+			return super.run(() -> {
+				executedCount.incrementAndGet();
+				operation.run();
+				awaitGate(currentGate);
+			});
+		}
+
+		private void awaitGate(CountDownLatch currentGate) {
+			try {
+				currentGate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void close() {
+			submittedCount.set(0);
+			gate = new CountDownLatch(1);
+		}
+
+		private void open() {
+			gate.countDown();
+		}
+
+		private int getSubmittedCount() {
+			return submittedCount.get();
+		}
+
+		private int getExecutedCount() {
+			return executedCount.get();
+		}
+	}
+}
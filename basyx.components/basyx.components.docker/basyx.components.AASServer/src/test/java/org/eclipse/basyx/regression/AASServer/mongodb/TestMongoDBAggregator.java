@@ -25,15 +25,22 @@
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.eclipse.basyx.aas.aggregator.api.IAASAggregator;
 import org.eclipse.basyx.aas.aggregator.proxy.AASAggregatorProxy;
+import org.eclipse.basyx.aas.bundle.AASBundle;
 import org.eclipse.basyx.aas.manager.ConnectedAssetAdministrationShellManager;
 import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.ModelUrn;
@@ -46,13 +53,21 @@ import org.eclipse.basyx.components.aas.configuration.BaSyxAASServerConfiguratio
 import org.eclipse.basyx.components.aas.mongodb.MongoDBAASAggregator;
 import org.eclipse.basyx.components.configuration.BaSyxContextConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBDocumentCache;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
 import org.eclipse.basyx.components.registry.mongodb.MongoDBRegistryHandler;
 import org.eclipse.basyx.submodel.metamodel.api.ISubmodel;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyElements;
+import org.eclipse.basyx.submodel.metamodel.api.reference.enums.KeyType;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
 import org.eclipse.basyx.testsuite.regression.aas.aggregator.AASAggregatorSuite;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
 import org.eclipse.basyx.vab.modelprovider.api.IModelProvider;
@@ -81,6 +96,7 @@ public class TestMongoDBAggregator extends AASAggregatorSuite {
 	private static final String SM_IDSHORT = "MongoDB";
 
 	protected static final String AAS_ID_2 = "testId2";
+	private static final String BUNDLED_AAS_ID = "bundledTestId";
 	private static final Identifier SM_IDENTIFICATION_2 = new Identifier(IdentifierType.CUSTOM, "MongoDBId2");
 
 	private static final String PREFIX_SUBMODEL_PATH = "/aas/submodels/";
@@ -213,6 +229,172 @@ public class TestMongoDBAggregator extends AASAggregatorSuite {
 		assertEquals(SM_IDSHORT, persistentSubmodel.getIdShort());
 	}
 
+	@SuppressWarnings("deprecation")
+	@Test
+	public void providerIsReusedUntilShellIsChanged() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		IIdentifier shellIdentifier = new ModelUrn(AAS_ID);
+
+		IModelProvider provider = aggregator.getAASProvider(shellIdentifier);
+		assertSame(provider, aggregator.getAASProvider(shellIdentifier));
+
+		// Changes by other aggregators, e.g. of other server instances, are detected
+		MongoDBAASAggregator otherAggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		AssetAdministrationShell shell = (AssetAdministrationShell) otherAggregator.getAAS(shellIdentifier);
+		otherAggregator.updateAAS(shell);
+
+		assertNotSame(provider, aggregator.getAASProvider(shellIdentifier));
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void providerIsReusedUntilCachedShellIsChanged() throws InterruptedException {
+		BaSyxMongoDBConfiguration cacheConfig = new BaSyxMongoDBConfiguration();
+		cacheConfig.setAASCollection(mongoDBConfig.getAASCollection());
+		cacheConfig.setSubmodelCollection(mongoDBConfig.getSubmodelCollection());
+		cacheConfig.enableCache();
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(cacheConfig, registry);
+		IIdentifier shellIdentifier = new ModelUrn(AAS_ID);
+
+		// Change streams are only available on replica sets, otherwise the revisions
+		// of the shells are checked
+		MongoDBDocumentCache documentCache = MongoDBBaSyxStorageAPIFactory.<AssetAdministrationShell>create(cacheConfig.getAASCollection(), AssetAdministrationShell.class, cacheConfig).getDocumentCache();
+		waitUntil(documentCache::isCoherent);
+
+		IModelProvider provider = aggregator.getAASProvider(shellIdentifier);
+		assertSame(provider, aggregator.getAASProvider(shellIdentifier));
+
+		MongoDBAASAggregator otherAggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		AssetAdministrationShell shell = (AssetAdministrationShell) otherAggregator.getAAS(shellIdentifier);
+		otherAggregator.updateAAS(shell);
+
+		// The change stream notifies the cache asynchronously
+		waitUntil(() -> provider != aggregator.getAASProvider(shellIdentifier));
+		assertNotSame(provider, aggregator.getAASProvider(shellIdentifier));
+	}
+
+	private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void bundlesAreImportedWithoutOverwritingExistingShells() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+
+		AssetAdministrationShell existingShell = createShell(AAS_ID, "changedIdShort");
+		Submodel addedSubmodel = new Submodel("bundledSubmodel", new Identifier(IdentifierType.CUSTOM, "bundledSubmodelId"));
+		AssetAdministrationShell newShell = createShell(BUNDLED_AAS_ID, "bundledShell");
+		Submodel newShellSubmodel = new Submodel("newShellSubmodel", new Identifier(IdentifierType.CUSTOM, "newShellSubmodelId"));
+		aggregator.importBundles(Arrays.asList(new AASBundle(existingShell, Collections.singleton(addedSubmodel)), new AASBundle(newShell, Collections.singleton(newShellSubmodel))));
+
+		assertEquals("aasIdShort", aggregator.getAAS(new ModelUrn(AAS_ID)).getIdShort());
+		assertEquals("bundledSubmodel", getSubmodelFromAggregator(aggregator, AAS_ID, "bundledSubmodel").getIdShort());
+		assertEquals("bundledShell", aggregator.getAAS(new ModelUrn(BUNDLED_AAS_ID)).getIdShort());
+		ISubmodel importedSubmodel = getSubmodelFromAggregator(aggregator, BUNDLED_AAS_ID, "newShellSubmodel");
+		assertEquals("newShellSubmodel", importedSubmodel.getIdShort());
+		assertEquals(BUNDLED_AAS_ID, importedSubmodel.getParent().getKeys().get(0).getValue());
+
+		aggregator.deleteAAS(new ModelUrn(BUNDLED_AAS_ID));
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void submodelReferencedByIdShortIsResolvedAmongSubmodelsOfShell() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi = MongoDBBaSyxStorageAPIFactory.<Submodel>create(mongoDBConfig.getSubmodelCollection(), Submodel.class, mongoDBConfig);
+
+		AssetAdministrationShell otherShell = createShell(AAS_ID_2, "otherShell");
+		Submodel otherSubmodel = new Submodel("referencedByIdShort", new Identifier(IdentifierType.CUSTOM, "otherReferencedId"));
+		otherSubmodel.setParent(otherShell.getReference());
+		submodelStorageApi.createOrUpdate(otherSubmodel);
+
+		AssetAdministrationShell shell = createShell(BUNDLED_AAS_ID, "referencingShell");
+		Submodel submodel = new Submodel("referencedByIdShort", new Identifier(IdentifierType.CUSTOM, "referencedId"));
+		submodel.setParent(shell.getReference());
+		submodelStorageApi.createOrUpdate(submodel);
+		shell.addSubmodelReference(new Reference(new Key(KeyElements.SUBMODEL, true, submodel.getIdShort(), KeyType.IDSHORT)));
+		aggregator.createAAS(shell);
+
+		ISubmodel resolved = getSubmodelFromAggregator(aggregator, BUNDLED_AAS_ID, submodel.getIdShort());
+
+		// References that cannot be resolved are skipped
+		shell.addSubmodelReference(new Reference(new Key(KeyElements.SUBMODEL, true, "notExisting", KeyType.IDSHORT)));
+		aggregator.updateAAS(shell);
+		ISubmodel resolvedBesideUnresolved = getSubmodelFromAggregator(aggregator, BUNDLED_AAS_ID, submodel.getIdShort());
+
+		aggregator.deleteAAS(shell.getIdentification());
+		submodelStorageApi.delete(submodel.getIdentification().getId());
+		submodelStorageApi.delete(otherSubmodel.getIdentification().getId());
+
+		assertEquals(submodel.getIdentification(), resolved.getIdentification());
+		assertEquals(submodel.getIdentification(), resolvedBesideUnresolved.getIdentification());
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void submodelWithoutParentReferencedByIdShortIsResolved() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		MongoDBBaSyxStorageAPI<Submodel> submodelStorageApi = MongoDBBaSyxStorageAPIFactory.<Submodel>create(mongoDBConfig.getSubmodelCollection(), Submodel.class, mongoDBConfig);
+
+		// E.g. stored by an older version
+		Submodel submodel = new Submodel("withoutParent", new Identifier(IdentifierType.CUSTOM, "withoutParentId"));
+		submodelStorageApi.createOrUpdate(submodel);
+
+		AssetAdministrationShell shell = createShell(BUNDLED_AAS_ID, "referencingShell");
+		shell.addSubmodelReference(new Reference(new Key(KeyElements.SUBMODEL, true, submodel.getIdShort(), KeyType.IDSHORT)));
+		aggregator.createAAS(shell);
+
+		ISubmodel resolved = getSubmodelFromAggregator(aggregator, BUNDLED_AAS_ID, submodel.getIdShort());
+
+		aggregator.deleteAAS(shell.getIdentification());
+		submodelStorageApi.delete(submodel.getIdentification().getId());
+
+		assertEquals(submodel.getIdentification(), resolved.getIdentification());
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void resetWithoutKeepingIndexesRemovesAllData() {
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		aggregator.reset(false);
+
+		assertEquals(0, aggregator.getAASList().size());
+		MongoTemplate mongoOps = new MongoTemplate(MongoClients.create(mongoDBConfig.getConnectionUrl()), mongoDBConfig.getDatabase());
+		assertEquals(0, mongoOps.findAll(Submodel.class, mongoDBConfig.getSubmodelCollection()).size());
+
+		// The aggregator is still usable afterwards
+		aggregator.createAAS(createShell(AAS_ID, "aasIdShort"));
+		assertEquals("aasIdShort", aggregator.getAAS(new ModelUrn(AAS_ID)).getIdShort());
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void resetKeepingIndexesRemovesAllData() {
+		MongoClient client = MongoClients.create(mongoDBConfig.getConnectionUrl());
+		new MongoDBIndexManager(mongoDBConfig, client).ensureAASServerIndexes();
+
+		MongoDBAASAggregator aggregator = new MongoDBAASAggregator(mongoDBConfig, registry);
+		aggregator.createAAS(createShell(AAS_ID_2, "resetShell"));
+		aggregator.reset(true);
+
+		assertEquals(0, aggregator.getAASList().size());
+		MongoTemplate mongoOps = new MongoTemplate(client, mongoDBConfig.getDatabase());
+		assertEquals(0, mongoOps.findAll(Submodel.class, mongoDBConfig.getSubmodelCollection()).size());
+		assertTrue(mongoOps.indexOps(mongoDBConfig.getAASCollection()).getIndexInfo().stream().anyMatch(index -> index.isIndexForFields(Collections.singleton(Referable.IDSHORT))));
+		client.close();
+	}
+
+	private AssetAdministrationShell createShell(String aasId, String idShort) {
+		AssetAdministrationShell shell = new AssetAdministrationShell();
+		shell.setIdentification(new ModelUrn(aasId));
+		shell.setIdShort(idShort);
+		return shell;
+	}
+
 	@SuppressWarnings("unchecked")
 	private ISubmodel getSubmodelFromAggregator(IAASAggregator aggregator, String aasId, String smIdShort) {
 		IModelProvider aasProvider = aggregator.getAASProvider(new ModelUrn(aasId));
@@ -25,27 +25,41 @@
 
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPI;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBWriteBehindBuffer;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileDownload;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
+import org.eclipse.basyx.submodel.metamodel.api.submodelelement.operation.IOperation;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.modeltype.ModelType;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.LangStrings;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.MultiLanguageProperty;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.operation.Operation;
+import org.eclipse.basyx.submodel.restapi.vab.VABSubmodelAPI;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+import org.eclipse.basyx.vab.modelprovider.lambda.VABLambdaProvider;
 import org.junit.Test;
 
 import com.mongodb.MongoGridFSException;
@@ -96,6 +110,25 @@ public class TestMongoDBSubmodelAPI {
 		assertEquals(expected.length(), value.length());
 	}
 
+	@Test
+	public void fileSubmodelElementFileIsStreamedInRanges() throws IOException {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		uploadDummyFile(submodelAPI, "fileSmeIdShort");
+		byte[] expected = Files.readAllBytes(new java.io.File("src/test/resources/testfile.xml").toPath());
+
+		MongoDBFileDownload download = submodelAPI.openSubmodelElementFileDownload("fileSmeIdShort");
+		assertEquals(expected.length, download.getLength());
+		assertEquals("application/xml", download.getMimeType());
+
+		ByteArrayOutputStream wholeFile = new ByteArrayOutputStream();
+		download.transferTo(wholeFile);
+		assertArrayEquals(expected, wholeFile.toByteArray());
+
+		ByteArrayOutputStream range = new ByteArrayOutputStream();
+		download.transferTo(range, 2, 5);
+		assertArrayEquals(Arrays.copyOfRange(expected, 2, 7), range.toByteArray());
+	}
+
 	@Test(expected = MongoGridFSException.class)
 	public void fileSubmodelElementFileIsAutomaticallyDeleted() throws FileNotFoundException {
 		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
@@ -134,6 +167,156 @@ public class TestMongoDBSubmodelAPI {
 		assertEquals(expected, value);
 	}
 
+	@Test
+	public void updatePropertyInCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		SubmodelElementCollection collection = new SubmodelElementCollection("collection");
+		Property property = new Property("prop", 5);
+		collection.addSubmodelElement(property);
+		submodelAPI.addSubmodelElement(collection);
+
+		String idShortPath = collection.getIdShort() + "/" + property.getIdShort();
+		submodelAPI.updateSubmodelElement(idShortPath, 10);
+
+		assertEquals(10, submodelAPI.getSubmodelElementValue(idShortPath));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getElementInNestedCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		submodelAPI.addSubmodelElement(createNestedCollection());
+
+		Map<String, Object> element = (Map<String, Object>) submodelAPI.getSubmodelElement("outer/inner/prop");
+
+		assertEquals("prop", element.get(Referable.IDSHORT));
+		assertEquals(Property.MODELTYPE, ((Map<String, Object>) element.get(ModelType.MODELTYPE)).get(ModelType.NAME));
+		assertEquals(5, element.get(Property.VALUE));
+	}
+
+	@Test
+	public void getValueInNestedCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		submodelAPI.addSubmodelElement(createNestedCollection());
+
+		assertEquals(5, submodelAPI.getSubmodelElementValue("outer/inner/prop"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getNestedCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		submodelAPI.addSubmodelElement(createNestedCollection());
+
+		Map<String, Object> inner = (Map<String, Object>) submodelAPI.getSubmodelElement("outer/inner");
+
+		assertEquals("inner", inner.get(Referable.IDSHORT));
+		assertEquals(SubmodelElementCollection.MODELTYPE, ((Map<String, Object>) inner.get(ModelType.MODELTYPE)).get(ModelType.NAME));
+		assertEquals(2, ((Collection<?>) inner.get(Property.VALUE)).size());
+	}
+
+	private SubmodelElementCollection createNestedCollection() {
+		SubmodelElementCollection inner = new SubmodelElementCollection("inner");
+		inner.addSubmodelElement(new Property("prop", 5));
+		inner.addSubmodelElement(new Property("otherProp", 6));
+		SubmodelElementCollection outer = new SubmodelElementCollection("outer");
+		outer.addSubmodelElement(inner);
+		outer.addSubmodelElement(new Property("outerProp", 7));
+		return outer;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void scalarValueDoesNotReplaceCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		SubmodelElementCollection collection = new SubmodelElementCollection("collection");
+		collection.addSubmodelElement(new Property("prop", 5));
+		submodelAPI.addSubmodelElement(collection);
+
+		try {
+			submodelAPI.updateSubmodelElement(collection.getIdShort(), "scalar");
+		} catch (RuntimeException e) {
+			// The collection may reject the value
+		}
+
+		Map<String, Object> collectionMap = (Map<String, Object>) submodelAPI.getSubmodelElement(collection.getIdShort());
+		assertEquals(SubmodelElementCollection.MODELTYPE, ((Map<String, Object>) collectionMap.get(ModelType.MODELTYPE)).get(ModelType.NAME));
+		assertEquals(5, submodelAPI.getSubmodelElementValue(collection.getIdShort() + "/prop"));
+	}
+
+	@Test
+	public void updateWithMismatchingValueTypeIsHandledByProperty() {
+		Submodel referenceSM = new Submodel("mySubmodel", new CustomId("mySubmodelId"));
+		referenceSM.addSubmodelElement(new Property("prop", 5));
+		VABSubmodelAPI referenceAPI = new VABSubmodelAPI(new VABLambdaProvider(referenceSM));
+		referenceAPI.updateSubmodelElement("prop", "10");
+
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		submodelAPI.addSubmodelElement(new Property("prop", 5));
+		submodelAPI.updateSubmodelElement("prop", "10");
+
+		assertEquals(referenceAPI.getSubmodelElementValue("prop"), submodelAPI.getSubmodelElementValue("prop"));
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void updateNotExistingProperty() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+
+		submodelAPI.updateSubmodelElement("notExisting", 10);
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void addAndDeletePropertyInCollection() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		SubmodelElementCollection collection = new SubmodelElementCollection("collection");
+		submodelAPI.addSubmodelElement(collection);
+
+		String idShortPath = collection.getIdShort() + "/prop";
+		submodelAPI.addSubmodelElement(idShortPath, new Property("prop", 5));
+		assertEquals(5, submodelAPI.getSubmodelElementValue(idShortPath));
+
+		submodelAPI.deleteSubmodelElement(idShortPath);
+		submodelAPI.getSubmodelElement(idShortPath);
+	}
+
+	@Test
+	public void getOperationsOnlyReturnsOperations() {
+		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
+		submodelAPI.addSubmodelElement(new Property("prop", 5));
+		submodelAPI.addSubmodelElement(new Operation("operation"));
+
+		Collection<IOperation> operations = submodelAPI.getOperations();
+
+		assertEquals(1, operations.size());
+		assertEquals("operation", operations.iterator().next().getIdShort());
+	}
+
+	@Test
+	public void writeBehindBuffersUpdatedValues() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setSubmodelCollection("writeBehindSubmodels");
+		client = MongoClients.create(config.getConnectionUrl());
+		MongoDBSubmodelAPI directAPI = new MongoDBSubmodelAPI(config, "mySubmodelId", client);
+
+		Submodel mySM = new Submodel("mySubmodel", new CustomId("mySubmodelId"));
+		mySM.addSubmodelElement(new Property("prop", 5));
+		directAPI.setSubmodel(mySM);
+
+		BaSyxMongoDBConfiguration writeBehindConfig = new BaSyxMongoDBConfiguration();
+		writeBehindConfig.setSubmodelCollection(config.getSubmodelCollection());
+		writeBehindConfig.enableWriteBehind();
+		writeBehindConfig.setWriteBehindInterval(TimeUnit.HOURS.toMillis(1));
+		MongoDBSubmodelAPI bufferedAPI = new MongoDBSubmodelAPI(writeBehindConfig, "mySubmodelId", client);
+
+		bufferedAPI.updateSubmodelElement("prop", 7);
+		bufferedAPI.updateSubmodelElement("prop", 10);
+		assertEquals(10, bufferedAPI.getSubmodelElementValue("prop"));
+		assertEquals(5, directAPI.getSubmodelElementValue("prop"));
+
+		MongoDBWriteBehindBuffer.closeAll();
+		assertEquals(10, directAPI.getSubmodelElementValue("prop"));
+	}
+
 	@Test(expected = ResourceNotFoundException.class)
 	public void submodelElementInCollectionNotExistingAsHighLevelElement() {
 		MongoDBSubmodelAPI submodelAPI = createAPIWithPreconfiguredSubmodel();
@@ -26,18 +26,30 @@
 
 package org.eclipse.basyx.regression.AASServer.mongodb;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPI;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAPIFactory;
 import org.eclipse.basyx.components.aas.mongodb.MongoDBSubmodelAggregator;
+import org.eclipse.basyx.components.aas.mongodb.MongoDBWriteBehindBuffer;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
 import org.eclipse.basyx.submodel.aggregator.api.ISubmodelAggregator;
+import org.eclipse.basyx.submodel.metamodel.api.ISubmodel;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
 import org.eclipse.basyx.testsuite.regression.submodel.aggregator.SubmodelAggregatorSuite;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -72,6 +84,106 @@ public class TestMongoDBSubmodelAggregator extends SubmodelAggregatorSuite {
 		assertSubmodelDoesNotExist(toDelete);
 	}
 
+	@Test
+	public void submodelsAreFoundByParentShell() {
+		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
+		MongoClient client = MongoClients.create(config.getConnectionUrl());
+		MongoDBBaSyxStorageAPI<AssetAdministrationShell> shellStorageApi = MongoDBBaSyxStorageAPIFactory.<AssetAdministrationShell>create(config.getAASCollection(), AssetAdministrationShell.class, config, client);
+
+		AssetAdministrationShell shell = new AssetAdministrationShell();
+		shell.setIdShort("parentShell");
+		shell.setIdentification(new CustomId("parentShellId"));
+		shellStorageApi.createOrUpdate(shell);
+
+		Submodel child = new Submodel("childIdShort", new CustomId("child"));
+		child.setParent(shell.getReference());
+		Submodel unrelated = new Submodel("unrelatedIdShort", new CustomId("unrelated"));
+
+		MongoDBSubmodelAggregator shellAggregator = new MongoDBSubmodelAggregator(new MongoDBSubmodelAPIFactory(config, client), config, client, shell.getIdentification());
+		shellAggregator.createSubmodel(child);
+		shellAggregator.createSubmodel(unrelated);
+
+		Collection<ISubmodel> submodels = shellAggregator.getSubmodelList();
+		ISubmodel foundByIdShort = shellAggregator.getSubmodelbyIdShort(child.getIdShort());
+		boolean isUnrelatedFound = isFoundByIdShort(shellAggregator, unrelated.getIdShort());
+
+		shellAggregator.deleteSubmodelByIdentifier(child.getIdentification());
+		shellAggregator.deleteSubmodelByIdentifier(unrelated.getIdentification());
+		shellStorageApi.delete(shell.getIdentification().getId());
+
+		assertEquals(1, submodels.size());
+		assertEquals(child.getIdentification(), submodels.iterator().next().getIdentification());
+		assertEquals(child.getIdentification(), foundByIdShort.getIdentification());
+		assertFalse(isUnrelatedFound);
+	}
+
+	@Test
+	public void bufferedValuesAreContainedInReadSubmodels() {
+		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
+		config.enableWriteBehind();
+		config.setWriteBehindInterval(TimeUnit.HOURS.toMillis(1));
+		MongoClient client = MongoClients.create(config.getConnectionUrl());
+		MongoDBSubmodelAggregator bufferedAggregator = new MongoDBSubmodelAggregator(new MongoDBSubmodelAPIFactory(config, client), config, client);
+
+		Submodel submodel = new Submodel("bufferedIdShort", new CustomId("buffered"));
+		submodel.addSubmodelElement(new Property("prop", 5));
+		bufferedAggregator.createSubmodel(submodel);
+
+		MongoDBSubmodelAPI submodelAPI = new MongoDBSubmodelAPI(config, submodel.getIdentification().getId(), client);
+		submodelAPI.updateSubmodelElement("prop", 7);
+
+		ISubmodel byId = bufferedAggregator.getSubmodel(submodel.getIdentification());
+		submodelAPI.updateSubmodelElement("prop", 10);
+		ISubmodel byIdShort = bufferedAggregator.getSubmodelbyIdShort(submodel.getIdShort());
+
+		MongoDBWriteBehindBuffer.closeAll();
+		bufferedAggregator.deleteSubmodelByIdentifier(submodel.getIdentification());
+
+		assertEquals(7, byId.getSubmodelElement("prop").getValue());
+		assertEquals(10, byIdShort.getSubmodelElement("prop").getValue());
+	}
+
+	@Test
+	public void readingSubmodelOnlyWritesItsBufferedValues() {
+		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
+		config.enableWriteBehind();
+		config.setWriteBehindInterval(TimeUnit.HOURS.toMillis(1));
+		MongoClient client = MongoClients.create(config.getConnectionUrl());
+		MongoDBSubmodelAggregator bufferedAggregator = new MongoDBSubmodelAggregator(new MongoDBSubmodelAPIFactory(config, client), config, client);
+		MongoDBBaSyxStorageAPI<Submodel> storageApi = MongoDBBaSyxStorageAPIFactory.<Submodel>create(config.getSubmodelCollection(), Submodel.class, config, client);
+		MongoDBWriteBehindBuffer buffer = MongoDBWriteBehindBuffer.getInstance(storageApi);
+
+		Submodel read = new Submodel("readIdShort", new CustomId("read"));
+		read.addSubmodelElement(new Property("prop", 5));
+		bufferedAggregator.createSubmodel(read);
+		Submodel other = new Submodel("otherIdShort", new CustomId("other"));
+		other.addSubmodelElement(new Property("prop", 5));
+		bufferedAggregator.createSubmodel(other);
+
+		bufferedAggregator.getSubmodelAPIById(read.getIdentification()).updateSubmodelElement("prop", 7);
+		bufferedAggregator.getSubmodelAPIById(other.getIdentification()).updateSubmodelElement("prop", 7);
+		ISubmodel readSubmodel = bufferedAggregator.getSubmodelbyIdShort(read.getIdShort());
+		boolean isReadValuePending = buffer.hasPendingValue(read.getIdentification().getId(), "prop");
+		boolean isOtherValuePending = buffer.hasPendingValue(other.getIdentification().getId(), "prop");
+
+		MongoDBWriteBehindBuffer.closeAll();
+		bufferedAggregator.deleteSubmodelByIdentifier(read.getIdentification());
+		bufferedAggregator.deleteSubmodelByIdentifier(other.getIdentification());
+
+		assertEquals(7, readSubmodel.getSubmodelElement("prop").getValue());
+		assertFalse(isReadValuePending);
+		assertTrue(isOtherValuePending);
+	}
+
+	private boolean isFoundByIdShort(ISubmodelAggregator submodelAggregator, String idShort) {
+		try {
+			submodelAggregator.getSubmodelbyIdShort(idShort);
+			return true;
+		} catch (ResourceNotFoundException e) {
+			return false;
+		}
+	}
+
 	private void assertSubmodelDoesNotExist(Submodel toDelete) {
 		BaSyxMongoDBConfiguration config = getMongoDBConfiguration();
 
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.AASServer.servlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.basyx.components.aas.servlet.ByteRange;
+import org.junit.Test;
+
+/**
+ * Tests the parsing of the Range header
+ * 
+ * @author fischer
+ *
+ */
+public class TestByteRange {
+	private static final long LENGTH = 100;
+
+	@Test
+	public void closedRange() {
+		assertRange(ByteRange.parse("bytes=10-19", LENGTH), 10, 19);
+	}
+
+	@Test
+	public void openRangeEndsAtLastByte() {
+		assertRange(ByteRange.parse("bytes=90-", LENGTH), 90, 99);
+	}
+
+	@Test
+	public void endBeyondFileIsLimitedToLastByte() {
+		assertRange(ByteRange.parse("bytes=90-200", LENGTH), 90, 99);
+	}
+
+	@Test
+	public void suffixRangeContainsLastBytes() {
+		assertRange(ByteRange.parse("bytes=-10", LENGTH), 90, 99);
+	}
+
+	@Test
+	public void suffixLongerThanFileContainsWholeFile() {
+		assertRange(ByteRange.parse("bytes=-200", LENGTH), 0, 99);
+	}
+
+	@Test
+	public void emptySuffixIsNotSatisfiable() {
+		ByteRange range = ByteRange.parse("bytes=-0", LENGTH);
+		assertFalse(range.isSatisfiable(LENGTH));
+	}
+
+	@Test
+	public void startBeyondFileIsNotSatisfiable() {
+		ByteRange range = ByteRange.parse("bytes=100-", LENGTH);
+		assertFalse(range.isSatisfiable(LENGTH));
+	}
+
+	@Test
+	public void unsupportedHeadersAreIgnored() {
+		assertNull(ByteRange.parse(null, LENGTH));
+		assertNull(ByteRange.parse("items=0-10", LENGTH));
+		assertNull(ByteRange.parse("bytes=0-10,20-30", LENGTH));
+		assertNull(ByteRange.parse("bytes=10", LENGTH));
+		assertNull(ByteRange.parse("bytes=-", LENGTH));
+		assertNull(ByteRange.parse("bytes=a-10", LENGTH));
+		assertNull(ByteRange.parse("bytes=20-10", LENGTH));
+	}
+
+	private void assertRange(ByteRange range, long start, long end) {
+		assertTrue(range.isSatisfiable(LENGTH));
+		assertEquals(start, range.getStart());
+		assertEquals(end, range.getEnd());
+		assertEquals(end - start + 1, range.getLength());
+	}
+}
@@ -35,6 +35,7 @@ import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxMqttConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxSQLConfiguration;
 import org.eclipse.basyx.components.configuration.BaSyxSecurityConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
 import org.eclipse.basyx.components.registry.authorization.internal.AuthorizedAASRegistryFeatureFactory;
 import org.eclipse.basyx.components.registry.configuration.BaSyxRegistryConfiguration;
 import org.eclipse.basyx.components.registry.configuration.RegistryBackend;
@@ -60,6 +61,8 @@ import org.eclipse.basyx.vab.protocol.http.server.BaSyxHTTPServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.client.MongoClient;
+
 /**
  * Generic registry that can start and stop a registry with different kinds of
  * backends. Currently supports MongoDB and SQL. For development purposes, the
@@ -84,6 +87,13 @@ public class RegistryComponent implements IComponent {
 	private BaSyxMqttConfiguration mqttConfig;
 	private BaSyxSecurityConfiguration securityConfig;
 
+	// The shared client of the MongoDB backend, released when the component stops
+	private MongoClient mongoDBClient;
+
+	// The MongoDB backend, closed when the component stops to stop watching changes
+	private MongoDBRegistry mongoDBRegistry;
+	private MongoDBTaggedDirectory mongoDBTaggedDirectory;
+
 	/**
 	 * Default constructor that loads default configurations
 	 */
@@ -265,7 +275,9 @@ public class RegistryComponent implements IComponent {
 		IAASTaggedDirectory taggedDirectory;
 		if (registryConfig.getRegistryBackend().equals(RegistryBackend.MONGODB)) {
 			try (final var ignored = ElevatedCodeAuthentication.enterElevatedCodeAuthenticationArea()) {
-				taggedDirectory = new MongoDBTaggedDirectory(loadMongoDBConfiguration(), new HashMap<>());
+				BaSyxMongoDBConfiguration mongoDBConfiguration = loadMongoDBConfiguration();
+				mongoDBTaggedDirectory = new MongoDBTaggedDirectory(mongoDBConfiguration, new HashMap<>(), acquireMongoDBClient(mongoDBConfiguration));
+				taggedDirectory = mongoDBTaggedDirectory;
 			}
 		} else {
 			taggedDirectory = new MapTaggedDirectory(new HashedMap<>(), new HashedMap<>());
@@ -340,8 +352,33 @@ public class RegistryComponent implements IComponent {
 		logger.info("Creating MongoDBRegistry");
 		final BaSyxMongoDBConfiguration mongoDBConfiguration = loadMongoDBConfiguration();
 		try (final var ignored = ElevatedCodeAuthentication.enterElevatedCodeAuthenticationArea()) {
-			return new MongoDBRegistry(mongoDBConfiguration);
+			mongoDBRegistry = new MongoDBRegistry(mongoDBConfiguration, acquireMongoDBClient(mongoDBConfiguration));
+			return mongoDBRegistry;
+		}
+	}
+
+	private MongoClient acquireMongoDBClient(BaSyxMongoDBConfiguration mongoDBConfiguration) {
+		mongoDBClient = MongoDBClientManager.acquire(mongoDBConfiguration);
+		return mongoDBClient;
+	}
+
+	private void closeMongoDBBackend() {
+		if (mongoDBRegistry != null) {
+			mongoDBRegistry.close();
+			mongoDBRegistry = null;
+		}
+		if (mongoDBTaggedDirectory != null) {
+			mongoDBTaggedDirectory.close();
+			mongoDBTaggedDirectory = null;
+		}
+	}
+
+	private void releaseMongoDBClient() {
+		if (mongoDBClient == null) {
+			return;
 		}
+		MongoDBClientManager.release(mongoDBClient);
+		mongoDBClient = null;
 	}
 
 	private IAASRegistry decorate(IAASRegistry aasRegistry) {
@@ -425,6 +462,8 @@ public class RegistryComponent implements IComponent {
 	@Override
 	public void stopComponent() {
 		server.shutdown();
+		closeMongoDBBackend();
+		releaseMongoDBClient();
 		logger.info("Registry server stopped");
 	}
 }
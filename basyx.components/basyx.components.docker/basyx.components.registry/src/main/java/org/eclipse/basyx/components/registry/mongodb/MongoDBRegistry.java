@@ -1,7 +1,14 @@
 package org.eclipse.basyx.components.registry.mongodb;
 
+import java.util.function.Consumer;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
 import org.eclipse.basyx.aas.registration.memory.AASRegistry;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
+
+import com.mongodb.client.MongoClient;
 
 /**
  * Wrapper class for AASRegistry with MongoDB backend
@@ -9,7 +16,7 @@ import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
  * @author espen
  *
  */
-public class MongoDBRegistry extends AASRegistry {
+public class MongoDBRegistry extends AASRegistry implements IPageableRegistry {
 
 	/**
 	 * Constructor for initializing the registry with a mongoDB config
@@ -19,4 +26,28 @@ public class MongoDBRegistry extends AASRegistry {
 	public MongoDBRegistry(BaSyxMongoDBConfiguration mongoDBConfig) {
 		super(new MongoDBRegistryHandler(mongoDBConfig));
 	}
+
+	/**
+	 * Constructor for initializing the registry with a mongoDB config and an
+	 * existing client
+	 * 
+	 * @param mongoDBConfig
+	 * @param client
+	 */
+	public MongoDBRegistry(BaSyxMongoDBConfiguration mongoDBConfig, MongoClient client) {
+		super(new MongoDBRegistryHandler(mongoDBConfig, client));
+	}
+
+	/**
+	 * Stops watching the changes of the registry collection, if the registry cache
+	 * is enabled
+	 */
+	public void close() {
+		((MongoDBRegistryHandler) handler).close();
+	}
+
+	@Override
+	public String lookupPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer) {
+		return ((MongoDBRegistryHandler) handler).getPage(filter, limit, cursor, consumer);
+	}
 }
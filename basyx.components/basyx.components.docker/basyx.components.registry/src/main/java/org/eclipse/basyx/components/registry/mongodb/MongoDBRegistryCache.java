@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.registry.mongodb;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * In-memory copy of all descriptors of a registry collection, indexed by shell
+ * id and asset id. Reads do not lock and do not access the database. Since the
+ * collection may be modified by other registry instances, the cache watches the
+ * change stream of the collection and reads every changed descriptor again.
+ * Change streams are only available on replica sets. As long as the change
+ * stream is not available, the cache is not coherent and has to be bypassed.<br>
+ * <br>
+ * The raw documents are held instead of deserialized descriptors, since the
+ * retrieved descriptors are modified by their users.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBRegistryCache {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBRegistryCache.class);
+
+	private static final String OBJECT_ID_KEY = "_id";
+	private static final List<String> SHELL_IDENTIFICATION_ID = Arrays.asList(Identifiable.IDENTIFICATION, Identifier.ID);
+	private static final List<String> ASSET_IDENTIFICATION_ID = Arrays.asList(AASDescriptor.ASSET, Identifiable.IDENTIFICATION, Identifier.ID);
+	private static final long CHANGE_STREAM_AWAIT_MILLIS = 1000;
+	private static final long CHANGE_STREAM_RETRY_MILLIS = 10000;
+
+	private final MongoCollection<Document> collection;
+	private final MongoConverter converter;
+	private final Thread changeStreamWatcher;
+
+	// Replaced as a whole when all descriptors are loaded again, so that readers
+	// never see a partially loaded cache
+	private volatile DescriptorIndex index = new DescriptorIndex();
+	private volatile boolean isCoherent = false;
+	private volatile boolean isClosed = false;
+
+	private static class DescriptorIndex {
+		private final Map<String, Document> documentsByShellId = new ConcurrentHashMap<>();
+		private final Map<String, String> shellIdsByAssetId = new ConcurrentHashMap<>();
+
+		// Only accessed while holding the lock of the cache
+		private final Map<Object, String> shellIdsByObjectId = new HashMap<>();
+	}
+
+	public MongoDBRegistryCache(MongoOperations mongoOps, String collectionName) {
+		this.collection = mongoOps.getCollection(collectionName);
+		this.converter = mongoOps.getConverter();
+
+		changeStreamWatcher = new Thread(this::watchChangeStream, "MongoDBRegistryCache-" + collectionName);
+		changeStreamWatcher.setDaemon(true);
+		changeStreamWatcher.start();
+	}
+
+	/**
+	 * Returns true, if all descriptors are loaded and changes are received. If
+	 * false, reads have to be answered by the database.
+	 */
+	public boolean isCoherent() {
+		return isCoherent;
+	}
+
+	/**
+	 * Returns the descriptor with the given shell id or, if there is no such
+	 * shell, the descriptor of the shell with the given asset id
+	 * 
+	 * @param identificationId
+	 * @return the descriptor or null, if there is none
+	 */
+	public AASDescriptor get(String identificationId) {
+		DescriptorIndex current = index;
+		Document document = current.documentsByShellId.get(identificationId);
+		if (document == null) {
+			String shellId = current.shellIdsByAssetId.get(identificationId);
+			document = shellId == null ? null : current.documentsByShellId.get(shellId);
+		}
+		return document == null ? null : toDescriptor(document);
+	}
+
+	public boolean contains(String identificationId) {
+		DescriptorIndex current = index;
+		return current.documentsByShellId.containsKey(identificationId) || current.shellIdsByAssetId.containsKey(identificationId);
+	}
+
+	public List<AASDescriptor> getAll() {
+		return index.documentsByShellId.values().stream().map(this::toDescriptor).collect(Collectors.toList());
+	}
+
+	/**
+	 * Reads the descriptors with the given shell or asset id from the database
+	 * again. Has to be called after they have been written, so that subsequent
+	 * reads do not have to wait for the change stream.
+	 * 
+	 * @param identificationId
+	 */
+	public synchronized void refresh(String identificationId) {
+		if (!isCoherent) {
+			return;
+		}
+
+		String assetShellId = index.shellIdsByAssetId.get(identificationId);
+		refreshByShellId(identificationId);
+		if (assetShellId != null) {
+			refreshByShellId(assetShellId);
+		}
+	}
+
+	public void close() {
+		isClosed = true;
+		try {
+			changeStreamWatcher.join(2 * CHANGE_STREAM_AWAIT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		isCoherent = false;
+	}
+
+	private void watchChangeStream() {
+		boolean hasLoggedFailure = false;
+		while (!isClosed) {
+			try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = collection.watch().maxAwaitTime(CHANGE_STREAM_AWAIT_MILLIS, TimeUnit.MILLISECONDS).cursor()) {
+				// Changes during loading are received afterwards and applied again
+				reload();
+				hasLoggedFailure = false;
+				boolean isOpen = true;
+				while (isOpen && !isClosed) {
+					ChangeStreamDocument<Document> change = cursor.tryNext();
+					if (change != null) {
+						isOpen = handleChange(change);
+					}
+				}
+			} catch (MongoException e) {
+				isCoherent = false;
+				if (!hasLoggedFailure) {
+					logger.warn("Could not watch changes of collection " + collection.getNamespace() + ", the registry cache is bypassed: " + e.getMessage());
+					hasLoggedFailure = true;
+				}
+				waitForRetry();
+			}
+		}
+	}
+
+	/**
+	 * Applies the change and returns false, if the change stream has been closed
+	 * by the database, e.g. since the collection has been dropped
+	 */
+	private boolean handleChange(ChangeStreamDocument<Document> change) {
+		OperationType operationType = change.getOperationType();
+		BsonDocument documentKey = change.getDocumentKey();
+		boolean isDocumentChange = operationType == OperationType.INSERT || operationType == OperationType.UPDATE || operationType == OperationType.REPLACE || operationType == OperationType.DELETE;
+		if (!isDocumentChange || documentKey == null || !documentKey.isObjectId(OBJECT_ID_KEY)) {
+			isCoherent = false;
+			return false;
+		}
+
+		refreshByObjectId(documentKey.getObjectId(OBJECT_ID_KEY).getValue());
+		return true;
+	}
+
+	private synchronized void reload() {
+		DescriptorIndex loaded = new DescriptorIndex();
+		for (Document document : collection.find()) {
+			put(loaded, document);
+		}
+		index = loaded;
+		isCoherent = true;
+		logger.info("Loaded " + loaded.documentsByShellId.size() + " descriptors of collection " + collection.getNamespace() + " into the registry cache");
+	}
+
+	// The current state is read instead of using the state of the change event,
+	// so that events arriving late cannot overwrite newer states
+	private synchronized void refreshByObjectId(Object objectId) {
+		Document document = collection.find(Filters.eq(OBJECT_ID_KEY, objectId)).first();
+		if (document != null) {
+			put(index, document);
+			return;
+		}
+
+		String shellId = index.shellIdsByObjectId.get(objectId);
+		if (shellId != null) {
+			remove(index, shellId);
+		}
+	}
+
+	private void refreshByShellId(String shellId) {
+		Document document = collection.find(Filters.eq(String.join(".", SHELL_IDENTIFICATION_ID), shellId)).first();
+		if (document != null) {
+			put(index, document);
+		} else {
+			remove(index, shellId);
+		}
+	}
+
+	private void put(DescriptorIndex target, Document document) {
+		String shellId = document.getEmbedded(SHELL_IDENTIFICATION_ID, String.class);
+		if (shellId == null) {
+			return;
+		}
+
+		Document previous = target.documentsByShellId.put(shellId, document);
+		target.shellIdsByObjectId.put(document.get(OBJECT_ID_KEY), shellId);
+		String assetId = getAssetId(document);
+		if (assetId != null) {
+			target.shellIdsByAssetId.put(assetId, shellId);
+		}
+
+		if (previous != null) {
+			String previousAssetId = getAssetId(previous);
+			if (previousAssetId != null && !previousAssetId.equals(assetId)) {
+				releaseAssetId(target, previousAssetId, shellId);
+			}
+		}
+	}
+
+	private void remove(DescriptorIndex target, String shellId) {
+		Document removed = target.documentsByShellId.remove(shellId);
+		if (removed == null) {
+			return;
+		}
+		target.shellIdsByObjectId.remove(removed.get(OBJECT_ID_KEY));
+		String assetId = getAssetId(removed);
+		if (assetId != null) {
+			releaseAssetId(target, assetId, shellId);
+		}
+	}
+
+	// Another shell of the same asset takes over the asset id, if there is one
+	private void releaseAssetId(DescriptorIndex target, String assetId, String shellId) {
+		if (!target.shellIdsByAssetId.remove(assetId, shellId)) {
+			return;
+		}
+		target.documentsByShellId.values().stream().filter(document -> assetId.equals(getAssetId(document))).findAny()
+				.ifPresent(document -> target.shellIdsByAssetId.putIfAbsent(assetId, document.getEmbedded(SHELL_IDENTIFICATION_ID, String.class)));
+	}
+
+	private String getAssetId(Document document) {
+		Object asset = document.get(AASDescriptor.ASSET);
+		if (!(asset instanceof Document)) {
+			return null;
+		}
+		return document.getEmbedded(ASSET_IDENTIFICATION_ID, String.class);
+	}
+
+	private AASDescriptor toDescriptor(Document document) {
+		AASDescriptor descriptor = converter.read(AASDescriptor.class, document);
+		descriptor.remove(OBJECT_ID_KEY);
+		descriptor.remove(MongoDBBaSyxStorageAPI.REVISION_KEY);
+		return descriptor;
+	}
+
+	private void waitForRetry() {
+		try {
+			Thread.sleep(CHANGE_STREAM_RETRY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			isClosed = true;
+		}
+	}
+}
@@ -27,18 +27,27 @@ package org.eclipse.basyx.components.registry.mongodb;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
 import org.eclipse.basyx.aas.registration.memory.IRegistryHandler;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.result.DeleteResult;
 
 /**
  * A registry handler based on MongoDB
@@ -49,9 +58,12 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 	private static final String DEFAULT_CONFIG_PATH = "mongodb.properties";
 
 	private MongoDBBaSyxStorageAPI<AASDescriptor> storageApi;
+	private volatile MongoDBRegistryCache registryCache;
 
 	private static final String SHELL_IDENTIFICATION_ID = Identifiable.IDENTIFICATION + "." + Identifier.ID;
 	private static final String ASSET_IDENTIFICATION_ID = AASDescriptor.ASSET + "." + Identifiable.IDENTIFICATION + "." + Identifier.ID;
+	private static final String ASSET_KIND = AASDescriptor.ASSET + "." + AASDescriptorFilter.ASSET_KIND;
+	private static final String ENDPOINT_ADDRESS = AASDescriptorFilter.ENDPOINTS + "." + AASDescriptorFilter.ENDPOINT_ADDRESS;
 
 	/**
 	 * Receives the path of the configuration.properties file in it's constructor.
@@ -62,6 +74,16 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 		this.initStorageApi(config);
 	}
 
+	/**
+	 * Uses the given client for connecting to the database
+	 * 
+	 * @param config
+	 * @param client
+	 */
+	public MongoDBRegistryHandler(BaSyxMongoDBConfiguration config, MongoClient client) {
+		this.initStorageApi(new MongoDBBaSyxStorageAPIFactory<>(config, AASDescriptor.class, config.getRegistryCollection(), client), config);
+	}
+
 	/**
 	 * Receives the path of the .properties file in it's constructor from a
 	 * resource.
@@ -89,17 +111,57 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 
 	private void initStorageApi(BaSyxMongoDBConfiguration config) {
 		String collectionName = config.getRegistryCollection();
-		MongoDBBaSyxStorageAPIFactory<AASDescriptor> storageApiFactory = new MongoDBBaSyxStorageAPIFactory<>(config, AASDescriptor.class, collectionName);
+		initStorageApi(new MongoDBBaSyxStorageAPIFactory<>(config, AASDescriptor.class, collectionName), config);
+	}
+
+	private void initStorageApi(MongoDBBaSyxStorageAPIFactory<AASDescriptor> storageApiFactory, BaSyxMongoDBConfiguration config) {
 		this.storageApi = storageApiFactory.create();
+		new MongoDBIndexManager(config, storageApi.getClient()).ensureRegistryIndexes();
+
+		close();
+		if (config.isRegistryCacheEnabled()) {
+			this.registryCache = new MongoDBRegistryCache(getStorageConnection(), storageApi.getCollectionName());
+		}
+	}
+
+	/**
+	 * Stops watching the changes of the registry collection, if the registry cache
+	 * is enabled
+	 */
+	public void close() {
+		if (registryCache != null) {
+			registryCache.close();
+			registryCache = null;
+		}
+	}
+
+	/**
+	 * Returns the registry cache, if it can answer reads
+	 * 
+	 * @return the cache or null, if reads have to be answered by the database
+	 */
+	private MongoDBRegistryCache getCoherentCache() {
+		MongoDBRegistryCache cache = registryCache;
+		return cache != null && cache.isCoherent() ? cache : null;
 	}
 
 	@Override
 	public boolean contains(IIdentifier identifier) {
 		String identificationId = identifier.getId();
-		Criteria hasId = new Criteria();
-		hasId.orOperator(where(SHELL_IDENTIFICATION_ID).is(identificationId), where(ASSET_IDENTIFICATION_ID).is(identificationId));
+		MongoDBRegistryCache cache = getCoherentCache();
+		if (cache != null) {
+			return cache.contains(identificationId);
+		}
+
+		String collectionName = this.storageApi.getCollectionName();
 
-		return getStorageConnection().exists(query(hasId), this.storageApi.getCollectionName());
+		// Separate queries instead of an $or, so that each one is answered by a single index
+		return getStorageConnection().exists(hasId(SHELL_IDENTIFICATION_ID, identificationId), collectionName)
+				|| getStorageConnection().exists(hasId(ASSET_IDENTIFICATION_ID, identificationId), collectionName);
+	}
+
+	private Query hasId(String fieldPath, String identificationId) {
+		return query(where(fieldPath).is(identificationId));
 	}
 
 	private MongoOperations getStorageConnection() {
@@ -108,10 +170,14 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 
 	@Override
 	public void remove(IIdentifier identifier) {
-		String indentificationId = identifier.getId();
-		Criteria hasId = new Criteria();
-		hasId.orOperator(where(SHELL_IDENTIFICATION_ID).is(indentificationId), where(ASSET_IDENTIFICATION_ID).is(indentificationId));
-		getStorageConnection().remove(query(hasId), this.storageApi.getCollectionName());
+		String identificationId = identifier.getId();
+		String collectionName = this.storageApi.getCollectionName();
+
+		DeleteResult result = getStorageConnection().remove(hasId(SHELL_IDENTIFICATION_ID, identificationId), collectionName);
+		if (result.getDeletedCount() == 0) {
+			getStorageConnection().remove(hasId(ASSET_IDENTIFICATION_ID, identificationId), collectionName);
+		}
+		refreshCache(identificationId);
 	}
 
 	@Override
@@ -122,20 +188,74 @@ public class MongoDBRegistryHandler implements IRegistryHandler {
 	@Override
 	public void update(AASDescriptor descriptor) {
 		this.storageApi.createOrUpdate(descriptor);
+		refreshCache(descriptor.getIdentifier().getId());
+	}
+
+	private void refreshCache(String identificationId) {
+		MongoDBRegistryCache cache = registryCache;
+		if (cache != null) {
+			cache.refresh(identificationId);
+		}
 	}
 
+	/**
+	 * Looks up the descriptor by its shell id first. Only if there is no such
+	 * shell, the descriptor of the shell with the given asset id is returned.
+	 */
 	@Override
 	public AASDescriptor get(IIdentifier identifier) {
-		String indentificationId = identifier.getId();
-		Criteria hasId = new Criteria();
-		hasId.orOperator(where(SHELL_IDENTIFICATION_ID).is(indentificationId), where(ASSET_IDENTIFICATION_ID).is(indentificationId));
+		String identificationId = identifier.getId();
+		MongoDBRegistryCache cache = getCoherentCache();
+		if (cache != null) {
+			return cache.get(identificationId);
+		}
+
+		String collectionName = this.storageApi.getCollectionName();
 
-		AASDescriptor result = getStorageConnection().findOne(query(hasId), AASDescriptor.class, this.storageApi.getCollectionName());
+		AASDescriptor result = getStorageConnection().findOne(hasId(SHELL_IDENTIFICATION_ID, identificationId), AASDescriptor.class, collectionName);
+		if (result == null) {
+			result = getStorageConnection().findOne(hasId(ASSET_IDENTIFICATION_ID, identificationId), AASDescriptor.class, collectionName);
+		}
 		return this.storageApi.handleMongoDbIdAttribute(result);
 	}
 
+	/**
+	 * Passes a page of the descriptors matching the filter to the consumer while
+	 * they are retrieved from the database. The filter is evaluated by the
+	 * database.
+	 * 
+	 * @see org.eclipse.basyx.components.registry.paging.IPageableRegistry#lookupPage(AASDescriptorFilter,
+	 *      int, String, Consumer)
+	 */
+	public String getPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer) {
+		return this.storageApi.retrievePage(toCriteria(filter), limit, cursor, consumer);
+	}
+
+	private Criteria toCriteria(AASDescriptorFilter filter) {
+		List<Criteria> conditions = new ArrayList<>();
+		if (filter.getIdShortPrefix() != null) {
+			// Anchored prefixes without special characters are answered by the idShort index
+			conditions.add(where(Referable.IDSHORT).regex("^" + escapeRegex(filter.getIdShortPrefix())));
+		}
+		if (filter.getAssetKind() != null) {
+			conditions.add(where(ASSET_KIND).is(filter.getAssetKind()));
+		}
+		if (filter.getEndpointHost() != null) {
+			conditions.add(where(ENDPOINT_ADDRESS).regex("^[^:/?#]+://([^@/?#]*@)?" + escapeRegex(filter.getEndpointHost()) + "([:/?#]|$)", "i"));
+		}
+		return conditions.isEmpty() ? null : new Criteria().andOperator(conditions);
+	}
+
+	private static String escapeRegex(String literal) {
+		return literal.replaceAll("\\W", "\\\\$0");
+	}
+
 	@Override
 	public List<AASDescriptor> getAll() {
+		MongoDBRegistryCache cache = getCoherentCache();
+		if (cache != null) {
+			return cache.getAll();
+		}
 		return (List<AASDescriptor>) this.storageApi.retrieveAll();
 	}
 }
@@ -28,32 +28,55 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.ModelDescriptor;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
 import org.eclipse.basyx.extensions.aas.directory.tagged.api.TaggedAASDescriptor;
 import org.eclipse.basyx.extensions.aas.directory.tagged.api.TaggedSubmodelDescriptor;
 import org.eclipse.basyx.extensions.aas.directory.tagged.map.MapTaggedDirectory;
 import org.eclipse.basyx.submodel.metamodel.api.identifier.IIdentifier;
 
+import com.mongodb.client.MongoClient;
+
 /**
  * A tagged Directory with MongoDB backend
  * 
  * @author zhangzai, jungjan
  *
  */
-public class MongoDBTaggedDirectory extends MapTaggedDirectory {
+public class MongoDBTaggedDirectory extends MapTaggedDirectory implements IPageableRegistry {
 
 	public MongoDBTaggedDirectory(BaSyxMongoDBConfiguration mongoDBConfig, Map<String, Set<TaggedAASDescriptor>> tagMap) {
 		super(new MongoDBRegistryHandler(mongoDBConfig), tagMap);
 		initializeTagMap();
 	}
 	
+	public MongoDBTaggedDirectory(BaSyxMongoDBConfiguration mongoDBConfig, Map<String, Set<TaggedAASDescriptor>> tagMap, MongoClient client) {
+		super(new MongoDBRegistryHandler(mongoDBConfig, client), tagMap);
+		initializeTagMap();
+	}
+
 	public MongoDBTaggedDirectory(BaSyxMongoDBConfiguration mongoDBConfig) {
 		this(mongoDBConfig, new HashMap<>());
 	}
 
+	/**
+	 * Stops watching the changes of the registry collection, if the registry cache
+	 * is enabled
+	 */
+	public void close() {
+		((MongoDBRegistryHandler) handler).close();
+	}
+
+	@Override
+	public String lookupPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer) {
+		return ((MongoDBRegistryHandler) handler).getPage(filter, limit, cursor, consumer);
+	}
+
 	private void initializeTagMap() {
 		List<AASDescriptor> shellDescriptors = super.handler.getAll();	
 		shellDescriptors.stream().filter(this::isTaggedDescriptor).map(TaggedAASDescriptor::createAsFacade).forEach(super::addTags);
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.registry.paging;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+
+/**
+ * Filter for the paged lookup of descriptors. Conditions that are null are not
+ * checked.
+ * 
+ * @author fischer
+ *
+ */
+public class AASDescriptorFilter {
+	// Keys of the asset and endpoint maps of the descriptors
+	public static final String ASSET_KIND = "kind";
+	public static final String ENDPOINTS = "endpoints";
+	public static final String ENDPOINT_ADDRESS = "address";
+
+	private final String idShortPrefix;
+	private final String assetKind;
+	private final String endpointHost;
+
+	/**
+	 * @param idShortPrefix
+	 *            the prefix of the idShort of the shell, may be null
+	 * @param assetKind
+	 *            the kind of the asset, i.e. <i>Type</i> or <i>Instance</i>, may be
+	 *            null
+	 * @param endpointHost
+	 *            the host of one of the endpoints, may be null
+	 */
+	public AASDescriptorFilter(String idShortPrefix, String assetKind, String endpointHost) {
+		this.idShortPrefix = idShortPrefix;
+		this.assetKind = assetKind;
+		this.endpointHost = endpointHost;
+	}
+
+	public String getIdShortPrefix() {
+		return idShortPrefix;
+	}
+
+	public String getAssetKind() {
+		return assetKind;
+	}
+
+	public String getEndpointHost() {
+		return endpointHost;
+	}
+
+	/**
+	 * Returns true, if no condition is set
+	 */
+	public boolean isEmpty() {
+		return idShortPrefix == null && assetKind == null && endpointHost == null;
+	}
+
+	/**
+	 * Checks the filter against a descriptor in memory, for backends that cannot
+	 * evaluate it in their queries
+	 * 
+	 * @param descriptor
+	 * @return true, if the descriptor fulfills all conditions
+	 */
+	public boolean matches(AASDescriptor descriptor) {
+		return matchesIdShort(descriptor) && matchesAssetKind(descriptor) && matchesEndpointHost(descriptor);
+	}
+
+	private boolean matchesIdShort(AASDescriptor descriptor) {
+		if (idShortPrefix == null) {
+			return true;
+		}
+		String idShort = descriptor.getIdShort();
+		return idShort != null && idShort.startsWith(idShortPrefix);
+	}
+
+	private boolean matchesAssetKind(AASDescriptor descriptor) {
+		if (assetKind == null) {
+			return true;
+		}
+		Object asset = descriptor.get(AASDescriptor.ASSET);
+		return asset instanceof Map<?, ?> && assetKind.equals(((Map<?, ?>) asset).get(ASSET_KIND));
+	}
+
+	private boolean matchesEndpointHost(AASDescriptor descriptor) {
+		if (endpointHost == null) {
+			return true;
+		}
+		Object endpoints = descriptor.get(ENDPOINTS);
+		if (!(endpoints instanceof Collection<?>)) {
+			return false;
+		}
+		return ((Collection<?>) endpoints).stream().filter(Map.class::isInstance).map(endpoint -> ((Map<?, ?>) endpoint).get(ENDPOINT_ADDRESS)).anyMatch(this::hasEndpointHost);
+	}
+
+	private boolean hasEndpointHost(Object address) {
+		if (!(address instanceof String)) {
+			return false;
+		}
+		try {
+			return endpointHost.equalsIgnoreCase(new URI((String) address).getHost());
+		} catch (URISyntaxException e) {
+			return false;
+		}
+	}
+}
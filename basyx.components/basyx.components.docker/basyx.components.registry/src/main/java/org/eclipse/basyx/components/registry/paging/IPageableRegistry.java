@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.registry.paging;
+
+import java.util.function.Consumer;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+
+/**
+ * A registry whose descriptors can be looked up page by page, so that not all
+ * descriptors have to be held in memory at once
+ * 
+ * @author fischer
+ *
+ */
+public interface IPageableRegistry {
+	/**
+	 * Passes a page of the descriptors matching the filter to the consumer while
+	 * they are retrieved from the backend. Depending on the backend, a page can
+	 * contain fewer descriptors than the limit, even though it is not the last
+	 * page.
+	 * 
+	 * @param filter
+	 *            the filter the descriptors have to match
+	 * @param limit
+	 *            the maximum number of descriptors of the page
+	 * @param cursor
+	 *            the cursor returned for the previous page or null for the first
+	 *            page
+	 * @param consumer
+	 *            receives the descriptors of the page
+	 * @return the cursor of the next page or null, if this is the last page
+	 * @throws org.eclipse.basyx.vab.exception.provider.MalformedRequestException
+	 *             if the limit is not positive or the cursor is invalid
+	 */
+	public String lookupPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer);
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.registry.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
+import org.eclipse.basyx.vab.coder.json.metaprotocol.Result;
+import org.eclipse.basyx.vab.coder.json.serialization.DefaultTypeFactory;
+import org.eclipse.basyx.vab.coder.json.serialization.GSONTools;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.protocol.http.server.ExceptionToHTTPCodeMapper;
+
+/**
+ * Answers <i>GET /api/v1/registry</i> page by page, if one of the parameters
+ * <i>limit</i>, <i>cursor</i>, <i>idShortPrefix</i>, <i>assetKind</i> or
+ * <i>endpointHost</i> is given. The descriptors of a page are serialized while
+ * they are read from the registry. Limits above {@value #MAX_LIMIT} are reduced
+ * to it, so that a single request cannot read the whole registry.
+ * 
+ * @author fischer
+ *
+ */
+class PagedLookupHandler {
+	public static final String REGISTRY_PATH = "/api/v1/registry";
+	public static final String LIMIT_PARAMETER = "limit";
+	public static final String CURSOR_PARAMETER = "cursor";
+	public static final String ID_SHORT_PREFIX_PARAMETER = "idShortPrefix";
+	public static final String ASSET_KIND_PARAMETER = "assetKind";
+	public static final String ENDPOINT_HOST_PARAMETER = "endpointHost";
+	public static final int DEFAULT_LIMIT = 100;
+	public static final int MAX_LIMIT = 1000;
+
+	private static final List<String> PAGING_PARAMETERS = Arrays.asList(LIMIT_PARAMETER, CURSOR_PARAMETER, ID_SHORT_PREFIX_PARAMETER, ASSET_KIND_PARAMETER, ENDPOINT_HOST_PARAMETER);
+	private static GSONTools serializer = new GSONTools(new DefaultTypeFactory());
+
+	private final IPageableRegistry registry;
+
+	PagedLookupHandler(IPageableRegistry registry) {
+		this.registry = registry;
+	}
+
+	boolean isPagedLookupRequest(HttpServletRequest req) {
+		String path = req.getPathInfo();
+		boolean isRegistryPath = REGISTRY_PATH.equals(path) || (REGISTRY_PATH + "/").equals(path);
+		return isRegistryPath && PAGING_PARAMETERS.stream().anyMatch(parameter -> req.getParameter(parameter) != null);
+	}
+
+	void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		DescriptorPageWriter pageWriter = new DescriptorPageWriter(resp);
+		try {
+			AASDescriptorFilter filter = new AASDescriptorFilter(req.getParameter(ID_SHORT_PREFIX_PARAMETER), req.getParameter(ASSET_KIND_PARAMETER), req.getParameter(ENDPOINT_HOST_PARAMETER));
+			String nextCursor = registry.lookupPage(filter, getLimit(req), req.getParameter(CURSOR_PARAMETER), pageWriter::write);
+			pageWriter.finish(nextCursor);
+		} catch (ProviderException e) {
+			if (pageWriter.hasStarted()) {
+				throw e;
+			}
+			resp.setStatus(ExceptionToHTTPCodeMapper.mapFromException(e));
+			resp.getWriter().write(serializer.serialize(new Result(e)));
+		}
+	}
+
+	private int getLimit(HttpServletRequest req) {
+		String limit = req.getParameter(LIMIT_PARAMETER);
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+		try {
+			return Math.min(Integer.parseInt(limit), MAX_LIMIT);
+		} catch (NumberFormatException e) {
+			throw new MalformedRequestException("The page limit '" + limit + "' is not a number.");
+		}
+	}
+
+	/**
+	 * Writes a page of descriptors as <i>{"result": [...], "paging_metadata":
+	 * {"cursor": ...}}</i>, where the cursor is omitted for the last page
+	 */
+	private static class DescriptorPageWriter {
+		private final HttpServletResponse resp;
+		private PrintWriter writer;
+		private boolean isFirstDescriptor = true;
+
+		private DescriptorPageWriter(HttpServletResponse resp) {
+			this.resp = resp;
+		}
+
+		private void write(AASDescriptor descriptor) {
+			start();
+			if (!isFirstDescriptor) {
+				writer.write(',');
+			}
+			writer.write(serializer.serialize(descriptor));
+			isFirstDescriptor = false;
+		}
+
+		private void finish(String nextCursor) {
+			start();
+			writer.write("],\"paging_metadata\":{");
+			if (nextCursor != null) {
+				writer.write("\"cursor\":" + serializer.serialize(nextCursor));
+			}
+			writer.write("}}");
+			writer.flush();
+		}
+
+		private boolean hasStarted() {
+			return writer != null;
+		}
+
+		private void start() {
+			if (hasStarted()) {
+				return;
+			}
+			try {
+				resp.setContentType("application/json");
+				resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+				writer = resp.getWriter();
+			} catch (IOException e) {
+				throw new ProviderException("Could not write the page of descriptors.", e);
+			}
+			writer.write("{\"result\":[");
+		}
+	}
+}
@@ -24,22 +24,47 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.registry.servlet;
 
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.aas.registration.restapi.AASRegistryModelProvider;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
 import org.eclipse.basyx.vab.protocol.http.server.VABHTTPInterface;
 
 /**
  * A registry servlet based on a provided registry implementation.
  *
+ * If the registry is an {@link IPageableRegistry}, e.g. with a MongoDB or SQL
+ * backend, the descriptors can be looked up page by page and filtered, see
+ * {@link PagedLookupHandler}.
+ *
  * @author pneuschwander
  */
 public class RegistryServlet extends VABHTTPInterface<AASRegistryModelProvider> {
 	private static final long serialVersionUID = 1L;
 
+	private transient PagedLookupHandler pagedLookupHandler;
+
 	/**
 	 * Provides registry servlet based on the provided registry implementation.
 	 */
 	public RegistryServlet(IAASRegistry aasRegistry) {
 		super(new AASRegistryModelProvider(aasRegistry));
+		if (aasRegistry instanceof IPageableRegistry) {
+			this.pagedLookupHandler = new PagedLookupHandler((IPageableRegistry) aasRegistry);
+		}
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (pagedLookupHandler != null && pagedLookupHandler.isPagedLookupRequest(req)) {
+			pagedLookupHandler.handle(req, resp);
+			return;
+		}
+		super.doGet(req, resp);
 	}
 }
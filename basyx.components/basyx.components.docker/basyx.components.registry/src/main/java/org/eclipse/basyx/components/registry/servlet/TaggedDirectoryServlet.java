@@ -24,7 +24,14 @@
  ******************************************************************************/
 package org.eclipse.basyx.components.registry.servlet;
 
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.eclipse.basyx.aas.registration.restapi.AASRegistryModelProvider;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
 import org.eclipse.basyx.extensions.aas.directory.tagged.api.IAASTaggedDirectory;
 import org.eclipse.basyx.extensions.aas.directory.tagged.restapi.TaggedDirectoryProvider;
 import org.eclipse.basyx.vab.protocol.http.server.VABHTTPInterface;
@@ -32,15 +39,33 @@ import org.eclipse.basyx.vab.protocol.http.server.VABHTTPInterface;
 /**
  * A registry servlet based on a provided MapTaggedDirectory implementation.
  *
+ * If the directory is an {@link IPageableRegistry}, e.g. with a MongoDB
+ * backend, the descriptors can be looked up page by page and filtered, see
+ * {@link PagedLookupHandler}.
+ *
  * @author jungjan
  */
 public class TaggedDirectoryServlet extends VABHTTPInterface<AASRegistryModelProvider> {
 	private static final long serialVersionUID = 1L;
 
+	private transient PagedLookupHandler pagedLookupHandler;
+
 	/**
 	 * Provides registry servlet based on the provided registry implementation.
 	 */
 	public TaggedDirectoryServlet(IAASTaggedDirectory directory) {
 		super(new TaggedDirectoryProvider(directory));
+		if (directory instanceof IPageableRegistry) {
+			this.pagedLookupHandler = new PagedLookupHandler((IPageableRegistry) directory);
+		}
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		if (pagedLookupHandler != null && pagedLookupHandler.isPagedLookupRequest(req)) {
+			pagedLookupHandler.handle(req, resp);
+			return;
+		}
+		super.doGet(req, resp);
 	}
-}
\ No newline at end of file
+}
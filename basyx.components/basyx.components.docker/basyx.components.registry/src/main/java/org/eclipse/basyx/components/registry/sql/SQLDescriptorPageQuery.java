@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.registry.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.tools.sqlproxy.SQLMap;
+import org.eclipse.basyx.tools.sqlproxy.SQLRootElement;
+import org.eclipse.basyx.tools.sqlproxy.SQLTableRow;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+
+/**
+ * Looks up the descriptors of a {@link SQLRegistry} page by page. The root table
+ * references one table per descriptor. The rows of a page are read from the
+ * root table by keyset queries ordered by the descriptor ids. The idShort and
+ * the endpoints of the descriptors are rows of their tables, so that these
+ * conditions are evaluated by one query over the tables of the visited
+ * descriptors. The asset is stored in a further table, so that its kind is
+ * only checked for the descriptors fulfilling the other conditions after they
+ * have been loaded.
+ * 
+ * @author fischer
+ *
+ */
+class SQLDescriptorPageQuery {
+	/**
+	 * Bounds the number of descriptors visited for a page relative to its limit
+	 */
+	public static final int MAX_VISITED_DESCRIPTORS_PER_LIMIT = 10;
+
+	private static final Pattern TABLE_ID_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+	private static final String LIKE_ESCAPE = "!";
+
+	private final SQLRootElement rootElement;
+	private final SQLMap rootMap;
+
+	SQLDescriptorPageQuery(SQLRootElement rootElement, SQLMap rootMap) {
+		this.rootElement = rootElement;
+		this.rootMap = rootMap;
+	}
+
+	/**
+	 * Passes a page of the descriptors matching the filter to the consumer. At most
+	 * {@value #MAX_VISITED_DESCRIPTORS_PER_LIMIT} times the limit descriptors are
+	 * visited per page. Thus, a page can contain fewer descriptors than the limit
+	 * or none at all, while there are still further pages.
+	 * 
+	 * @param filter
+	 *            the filter the descriptors have to match
+	 * @param limit
+	 *            the maximum number of descriptors of the page
+	 * @param cursor
+	 *            the id of the last visited descriptor of the previous page or
+	 *            null for the first page
+	 * @param consumer
+	 *            receives the descriptors of the page
+	 * @return the cursor of the next page or null, if this is the last page
+	 * @throws MalformedRequestException
+	 *             if the limit is not positive
+	 */
+	String getPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer) {
+		if (limit <= 0) {
+			throw new MalformedRequestException("The page limit has to be positive, but was " + limit + ".");
+		}
+
+		int maxVisitedDescriptors = (int) Math.min((long) limit * MAX_VISITED_DESCRIPTORS_PER_LIMIT, Integer.MAX_VALUE);
+		String lastId = cursor;
+		int visitedCount = 0;
+		int count = 0;
+		while (true) {
+			// With a filter, further batches are likely needed, so that they are not
+			// reduced to the remaining descriptors of the page
+			int batchSize = filter.isEmpty() ? limit - count : limit;
+			batchSize = Math.min(batchSize, maxVisitedDescriptors - visitedCount);
+			Map<String, String> tableIdsByDescriptorId = retrieveDescriptorTableIds(lastId, batchSize);
+			boolean hasFurtherDescriptors = tableIdsByDescriptorId.size() == batchSize;
+			Set<String> matchingTableIds = retrieveMatchingTableIds(filter, tableIdsByDescriptorId.values());
+
+			List<Entry<String, String>> batch = new ArrayList<>(tableIdsByDescriptorId.entrySet());
+			for (int i = 0; i < batch.size(); i++) {
+				lastId = batch.get(i).getKey();
+				visitedCount++;
+				String tableId = batch.get(i).getValue();
+				if (!matchingTableIds.contains(tableId)) {
+					continue;
+				}
+
+				AASDescriptor descriptor = new AASDescriptor(new SQLMap(rootElement, tableId));
+				if (!filter.matches(descriptor)) {
+					continue;
+				}
+				consumer.accept(descriptor);
+				count++;
+				if (count == limit) {
+					return i < batch.size() - 1 || hasFurtherDescriptors ? lastId : null;
+				}
+			}
+
+			if (!hasFurtherDescriptors) {
+				return null;
+			}
+			if (visitedCount >= maxVisitedDescriptors) {
+				return lastId;
+			}
+		}
+	}
+
+	/**
+	 * Reads the ids of the descriptors following the given id and the tables they
+	 * are stored in
+	 */
+	private Map<String, String> retrieveDescriptorTableIds(String previousId, int batchSize) {
+		List<Object> parameters = new ArrayList<>();
+		StringBuilder query = new StringBuilder("SELECT name, value FROM elements." + rootMap.getSqlTableID() + " WHERE type = ?");
+		parameters.add(SQLTableRow.TYPE_SQLMAP);
+		if (previousId != null) {
+			query.append(" AND name > ?");
+			parameters.add(previousId);
+		}
+		query.append(" ORDER BY name LIMIT ?");
+		parameters.add(batchSize);
+
+		Map<String, String> tableIdsByDescriptorId = new LinkedHashMap<>();
+		ResultSet result = query(query.toString(), parameters);
+		try {
+			while (result.next()) {
+				tableIdsByDescriptorId.put(result.getString("name"), result.getString("value"));
+			}
+			return tableIdsByDescriptorId;
+		} catch (SQLException e) {
+			throw new ProviderException("Could not read the page of descriptors.", e);
+		}
+	}
+
+	/**
+	 * Evaluates the conditions on the idShort and the endpoints by one query over
+	 * the tables of the given descriptors. Each of these conditions matches at most
+	 * one row of a descriptor table.
+	 */
+	private Set<String> retrieveMatchingTableIds(AASDescriptorFilter filter, Iterable<String> tableIds) {
+		List<String> conditions = new ArrayList<>();
+		List<Object> conditionParameters = new ArrayList<>();
+		if (filter.getIdShortPrefix() != null) {
+			conditions.add("(name = '" + Referable.IDSHORT + "' AND value LIKE ? ESCAPE '" + LIKE_ESCAPE + "')");
+			conditionParameters.add(escapeLike(filter.getIdShortPrefix()) + "%");
+		}
+		if (filter.getEndpointHost() != null) {
+			// Only preselects the descriptors, the host itself is compared by the filter
+			conditions.add("(name = '" + AASDescriptorFilter.ENDPOINTS + "' AND LOWER(value) LIKE ? ESCAPE '" + LIKE_ESCAPE + "')");
+			conditionParameters.add("%" + escapeLike(filter.getEndpointHost().toLowerCase()) + "%");
+		}
+
+		Set<String> matchingTableIds = new HashSet<>();
+		if (conditions.isEmpty()) {
+			tableIds.forEach(matchingTableIds::add);
+			return matchingTableIds;
+		}
+
+		List<String> tableQueries = new ArrayList<>();
+		List<Object> parameters = new ArrayList<>();
+		for (String tableId : tableIds) {
+			if (!TABLE_ID_PATTERN.matcher(tableId).matches()) {
+				throw new ProviderException("The descriptor table '" + tableId + "' is invalid.");
+			}
+			tableQueries.add("SELECT '" + tableId + "' AS tableid FROM elements." + tableId + " WHERE " + String.join(" OR ", conditions) + " HAVING COUNT(*) = " + conditions.size());
+			parameters.addAll(conditionParameters);
+		}
+		if (tableQueries.isEmpty()) {
+			return matchingTableIds;
+		}
+
+		ResultSet result = query(String.join(" UNION ALL ", tableQueries), parameters);
+		try {
+			while (result.next()) {
+				matchingTableIds.add(result.getString("tableid"));
+			}
+			return matchingTableIds;
+		} catch (SQLException e) {
+			throw new ProviderException("Could not filter the page of descriptors.", e);
+		}
+	}
+
+	private ResultSet query(String query, List<Object> parameters) {
+		ResultSet result = rootMap.getDriver().sqlQuery(query, parameters);
+		if (result == null) {
+			throw new ProviderException("Could not query the descriptors of table '" + rootMap.getSqlTableID() + "'.");
+		}
+		return result;
+	}
+
+	private static String escapeLike(String value) {
+		for (String specialCharacter : Arrays.asList(LIKE_ESCAPE, "%", "_")) {
+			value = value.replace(specialCharacter, LIKE_ESCAPE + specialCharacter);
+		}
+		return value;
+	}
+}
@@ -26,13 +26,17 @@ package org.eclipse.basyx.components.registry.sql;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.servlet.ServletException;
 
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
 import org.eclipse.basyx.aas.registration.memory.AASRegistry;
 import org.eclipse.basyx.aas.registration.memory.MapRegistryHandler;
 import org.eclipse.basyx.components.configuration.BaSyxSQLConfiguration;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
+import org.eclipse.basyx.components.registry.paging.IPageableRegistry;
+import org.eclipse.basyx.tools.sqlproxy.SQLMap;
 import org.eclipse.basyx.tools.sqlproxy.SQLRootElement;
 
 /**
@@ -41,25 +45,43 @@ import org.eclipse.basyx.tools.sqlproxy.SQLRootElement;
  * @author espen
  *
  */
-public class SQLRegistry extends AASRegistry {
+public class SQLRegistry extends AASRegistry implements IPageableRegistry {
 	public final static String TABLE_ID = "root_registry";
 
+	private final SQLDescriptorPageQuery pageQuery;
+
 	/**
 	 * Constructor using default sql connection
 	 */
 	public SQLRegistry() {
-		super(new MapRegistryHandler(new AASDescriptorMap(createRootMap(new BaSyxSQLConfiguration()))));
+		this(new BaSyxSQLConfiguration());
 	}
 
 	/**
 	 * Creates a SQLRegistry from a sql configuration
 	 */
 	public SQLRegistry(BaSyxSQLConfiguration configuration) {
-		super(new MapRegistryHandler(new AASDescriptorMap(createRootMap(configuration))));
+		this(initSQLConnection(configuration));
+	}
+
+	private SQLRegistry(SQLRootElement sqlRootElement) {
+		this(sqlRootElement, createRootMap(sqlRootElement));
+	}
+
+	private SQLRegistry(SQLRootElement sqlRootElement, SQLMap rootMap) {
+		super(new MapRegistryHandler(new AASDescriptorMap(rootMap)));
+		this.pageQuery = new SQLDescriptorPageQuery(sqlRootElement, rootMap);
+	}
+
+	/**
+	 * The pages are read by keyset queries, see {@link SQLDescriptorPageQuery}
+	 */
+	@Override
+	public String lookupPage(AASDescriptorFilter filter, int limit, String cursor, Consumer<AASDescriptor> consumer) {
+		return pageQuery.getPage(filter, limit, cursor, consumer);
 	}
 
-	private static Map<String, Object> createRootMap(BaSyxSQLConfiguration config) {
-		SQLRootElement sqlRootElement = initSQLConnection(config);
+	private static SQLMap createRootMap(SQLRootElement sqlRootElement) {
 		sqlRootElement.createRootTableIfNotExists();
 		return sqlRootElement.retrieveRootMap();
 	}
@@ -24,10 +24,26 @@
  ******************************************************************************/
 package org.eclipse.basyx.regression.registry;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.basyx.aas.metamodel.api.parts.asset.AssetKind;
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.aas.metamodel.map.parts.Asset;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.aas.registration.memory.AASRegistry;
 import org.eclipse.basyx.components.registry.mongodb.MongoDBRegistryHandler;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
 import org.eclipse.basyx.testsuite.regression.aas.registration.TestRegistryProviderSuite;
+import org.junit.Test;
 
 /**
  * Test class for a local registry provider based on SQL tables
@@ -41,4 +57,39 @@ public class TestMongoDBRegistry extends TestRegistryProviderSuite {
 	protected IAASRegistry getRegistryService() {
 		return new AASRegistry(new MongoDBRegistryHandler("mongodb.properties"));
 	}
+
+	@Test
+	public void descriptorIsFoundAndRemovedByAssetId() {
+		MongoDBRegistryHandler handler = new MongoDBRegistryHandler("mongodb.properties");
+		CustomId shellId = new CustomId("assetLookupShell");
+		CustomId assetId = new CustomId("assetLookupAsset");
+		AssetAdministrationShell shell = new AssetAdministrationShell("assetLookupShell", shellId, new Asset("assetLookupAsset", assetId, AssetKind.INSTANCE));
+		handler.insert(new AASDescriptor(shell, "http://localhost/aas"));
+
+		assertTrue(handler.contains(assetId));
+		assertEquals(shellId.getId(), handler.get(assetId).getIdentifier().getId());
+
+		handler.remove(assetId);
+		assertFalse(handler.contains(shellId));
+		assertNull(handler.get(shellId));
+	}
+
+	@Test
+	public void descriptorsAreLookedUpPageByPage() {
+		MongoDBRegistryHandler handler = new MongoDBRegistryHandler("mongodb.properties");
+		List<CustomId> shellIds = Arrays.asList(new CustomId("pagedShell1"), new CustomId("pagedShell2"), new CustomId("pagedShell3"));
+		for (CustomId shellId : shellIds) {
+			String host = shellId.getId().endsWith("3") ? "otherhost" : "pagedhost";
+			handler.insert(new AASDescriptor(new AssetAdministrationShell(shellId.getId(), shellId, new Asset(shellId.getId() + "Asset", new CustomId(shellId.getId() + "Asset"), AssetKind.INSTANCE)), "http://" + host + ":4001/aas"));
+		}
+
+		List<String> idShorts = new ArrayList<>();
+		AASDescriptorFilter filter = new AASDescriptorFilter("pagedShell", null, "pagedhost");
+		String cursor = handler.getPage(filter, 1, null, descriptor -> idShorts.add(descriptor.getIdShort()));
+		cursor = handler.getPage(filter, 1, cursor, descriptor -> idShorts.add(descriptor.getIdShort()));
+		assertNull(cursor);
+		assertEquals(Arrays.asList("pagedShell1", "pagedShell2"), idShorts);
+
+		shellIds.forEach(handler::remove);
+	}
 }
@@ -24,9 +24,20 @@
  ******************************************************************************/
 package org.eclipse.basyx.regression.registry;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.basyx.aas.metamodel.api.parts.asset.AssetKind;
+import org.eclipse.basyx.aas.metamodel.map.AssetAdministrationShell;
 import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.aas.metamodel.map.descriptor.CustomId;
+import org.eclipse.basyx.aas.metamodel.map.parts.Asset;
 import org.eclipse.basyx.aas.registration.api.IAASRegistry;
 import org.eclipse.basyx.components.configuration.BaSyxSQLConfiguration;
+import org.eclipse.basyx.components.registry.paging.AASDescriptorFilter;
 import org.eclipse.basyx.components.registry.sql.SQLRegistry;
 import org.eclipse.basyx.testsuite.regression.aas.registration.TestRegistryProviderSuite;
 import org.eclipse.basyx.tools.sqlproxy.SQLRootElement;
@@ -98,4 +109,27 @@ public class TestSQLRegistryProvider extends TestRegistryProviderSuite {
 		AASDescriptor descriptor2 = registry.lookupAAS(aasId2);
 		super.validateDescriptor2(descriptor2);
 	}
+
+	@Test
+	public void descriptorsAreLookedUpPageByPage() {
+		BaSyxSQLConfiguration sqlConfig = new BaSyxSQLConfiguration();
+		sqlConfig.loadFromResource("sql.properties");
+		SQLRegistry registry = new SQLRegistry(sqlConfig);
+		List<CustomId> shellIds = Arrays.asList(new CustomId("pagedShell1"), new CustomId("pagedShell2"), new CustomId("pagedShell3"), new CustomId("pagedShell4"));
+		for (CustomId shellId : shellIds) {
+			String host = shellId.getId().endsWith("3") ? "otherhost" : "pagedhost";
+			AssetKind kind = shellId.getId().endsWith("4") ? AssetKind.TYPE : AssetKind.INSTANCE;
+			registry.register(new AASDescriptor(new AssetAdministrationShell(shellId.getId(), shellId, new Asset(shellId.getId() + "Asset", new CustomId(shellId.getId() + "Asset"), kind)), "http://" + host + ":4001/aas"));
+		}
+
+		List<String> idShorts = new ArrayList<>();
+		AASDescriptorFilter filter = new AASDescriptorFilter("pagedShell", AssetKind.INSTANCE.toString(), "pagedhost");
+		String cursor = null;
+		do {
+			cursor = registry.lookupPage(filter, 1, cursor, descriptor -> idShorts.add(descriptor.getIdShort()));
+		} while (cursor != null);
+		assertEquals(Arrays.asList("pagedShell1", "pagedShell2"), idShorts);
+
+		shellIds.forEach(registry::delete);
+	}
 }
@@ -46,6 +46,29 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 	public static final String DEFAULT_AAS_COLLECTION = "basyxaas";
 	public static final String DEFAULT_SUBMODEL_COLLECTION = "basyxsubmodel";
 	public static final String DEFAULT_FILE_COLLECTION = "basyxfiles";
+	public static final String DEFAULT_WRITE_BEHIND = "Disabled";
+	public static final String DEFAULT_WRITE_BEHIND_INTERVAL = "1000";
+	public static final String DEFAULT_WRITE_BEHIND_MAX_SIZE = "10000";
+	public static final String DEFAULT_CACHE = "Disabled";
+	public static final String DEFAULT_CACHE_MAX_SIZE = "1000";
+	public static final String DEFAULT_INDEX_CREATION = "Enabled";
+	public static final String DEFAULT_BULK_IMPORT = "Disabled";
+	public static final String DEFAULT_BULK_BATCH_SIZE = "1000";
+	public static final String DEFAULT_BULK_PARALLELISM = "4";
+	public static final String DEFAULT_BULK_ORDERED = "Disabled";
+	public static final String DEFAULT_CONNECTION_POOL_MAX_SIZE = "100";
+	public static final String DEFAULT_CONNECTION_POOL_MAX_IDLE_TIME = "0";
+	public static final String DEFAULT_CONNECT_TIMEOUT = "10000";
+	public static final String DEFAULT_SOCKET_TIMEOUT = "0";
+	public static final String DEFAULT_SERVER_SELECTION_TIMEOUT = "30000";
+	public static final String DEFAULT_ASYNC_REQUESTS = "Disabled";
+	public static final String DEFAULT_ASYNC_POOL_SIZE = "16";
+	public static final String DEFAULT_ASYNC_QUEUE_SIZE = "10000";
+	public static final String DEFAULT_ASYNC_TIMEOUT = "60000";
+	public static final String DEFAULT_FILE_DEDUPLICATION = "Disabled";
+	public static final String DEFAULT_FILE_DEDUPLICATION_BUFFER_SIZE = "4194304";
+	public static final String DEFAULT_FILE_UPLOAD_EXPIRATION = "86400000";
+	public static final String DEFAULT_REGISTRY_CACHE = "Disabled";
 
 	public static final String DATABASE = "dbname";
 	public static final String CONNECTIONURL = "dbconnectionstring";
@@ -53,6 +76,33 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 	public static final String AAS_COLLECTION = "dbcollectionAAS";
 	public static final String SUBMODEL_COLLECTION = "dbcollectionSubmodels";
 	public static final String FILE_COLLECTION = "dbcollectionFiles";
+	public static final String WRITE_BEHIND = "dbwriteBehind";
+	public static final String WRITE_BEHIND_INTERVAL = "dbwriteBehindInterval";
+	public static final String WRITE_BEHIND_MAX_SIZE = "dbwriteBehindMaxSize";
+	public static final String CACHE = "dbcache";
+	public static final String CACHE_MAX_SIZE = "dbcacheMaxSize";
+	public static final String INDEX_CREATION = "dbindexCreation";
+	public static final String BULK_IMPORT = "dbbulkImport";
+	public static final String BULK_BATCH_SIZE = "dbbulkBatchSize";
+	public static final String BULK_PARALLELISM = "dbbulkParallelism";
+	public static final String BULK_ORDERED = "dbbulkOrdered";
+	public static final String CONNECTION_POOL_MAX_SIZE = "dbconnectionPoolMaxSize";
+	public static final String CONNECTION_POOL_MAX_IDLE_TIME = "dbconnectionPoolMaxIdleTime";
+	public static final String CONNECT_TIMEOUT = "dbconnectTimeout";
+	public static final String SOCKET_TIMEOUT = "dbsocketTimeout";
+	public static final String SERVER_SELECTION_TIMEOUT = "dbserverSelectionTimeout";
+	public static final String ASYNC_REQUESTS = "dbasyncRequests";
+	public static final String ASYNC_POOL_SIZE = "dbasyncPoolSize";
+	public static final String ASYNC_QUEUE_SIZE = "dbasyncQueueSize";
+	public static final String ASYNC_TIMEOUT = "dbasyncTimeout";
+	public static final String FILE_DEDUPLICATION = "dbfileDeduplication";
+	public static final String FILE_DEDUPLICATION_BUFFER_SIZE = "dbfileDeduplicationBufferSize";
+	public static final String FILE_UPLOAD_EXPIRATION = "dbfileUploadExpiration";
+	public static final String REGISTRY_CACHE = "dbregistryCache";
+
+	// Values for enabling/disabling features
+	private static final String FEATURE_ENABLED = "Enabled";
+	private static final String FEATURE_DISABLED = "Disabled";
 
 	// The default path for the context properties file
 	public static final String DEFAULT_CONFIG_PATH = "mongodb.properties";
@@ -68,6 +118,29 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 		defaultProps.put(AAS_COLLECTION, DEFAULT_AAS_COLLECTION);
 		defaultProps.put(SUBMODEL_COLLECTION, DEFAULT_SUBMODEL_COLLECTION);
 		defaultProps.put(FILE_COLLECTION, DEFAULT_FILE_COLLECTION);
+		defaultProps.put(WRITE_BEHIND, DEFAULT_WRITE_BEHIND);
+		defaultProps.put(WRITE_BEHIND_INTERVAL, DEFAULT_WRITE_BEHIND_INTERVAL);
+		defaultProps.put(WRITE_BEHIND_MAX_SIZE, DEFAULT_WRITE_BEHIND_MAX_SIZE);
+		defaultProps.put(CACHE, DEFAULT_CACHE);
+		defaultProps.put(CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE);
+		defaultProps.put(INDEX_CREATION, DEFAULT_INDEX_CREATION);
+		defaultProps.put(BULK_IMPORT, DEFAULT_BULK_IMPORT);
+		defaultProps.put(BULK_BATCH_SIZE, DEFAULT_BULK_BATCH_SIZE);
+		defaultProps.put(BULK_PARALLELISM, DEFAULT_BULK_PARALLELISM);
+		defaultProps.put(BULK_ORDERED, DEFAULT_BULK_ORDERED);
+		defaultProps.put(CONNECTION_POOL_MAX_SIZE, DEFAULT_CONNECTION_POOL_MAX_SIZE);
+		defaultProps.put(CONNECTION_POOL_MAX_IDLE_TIME, DEFAULT_CONNECTION_POOL_MAX_IDLE_TIME);
+		defaultProps.put(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
+		defaultProps.put(SOCKET_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
+		defaultProps.put(SERVER_SELECTION_TIMEOUT, DEFAULT_SERVER_SELECTION_TIMEOUT);
+		defaultProps.put(ASYNC_REQUESTS, DEFAULT_ASYNC_REQUESTS);
+		defaultProps.put(ASYNC_POOL_SIZE, DEFAULT_ASYNC_POOL_SIZE);
+		defaultProps.put(ASYNC_QUEUE_SIZE, DEFAULT_ASYNC_QUEUE_SIZE);
+		defaultProps.put(ASYNC_TIMEOUT, DEFAULT_ASYNC_TIMEOUT);
+		defaultProps.put(FILE_DEDUPLICATION, DEFAULT_FILE_DEDUPLICATION);
+		defaultProps.put(FILE_DEDUPLICATION_BUFFER_SIZE, DEFAULT_FILE_DEDUPLICATION_BUFFER_SIZE);
+		defaultProps.put(FILE_UPLOAD_EXPIRATION, DEFAULT_FILE_UPLOAD_EXPIRATION);
+		defaultProps.put(REGISTRY_CACHE, DEFAULT_REGISTRY_CACHE);
 
 		return defaultProps;
 	}
@@ -148,7 +221,11 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 
 	public void loadFromEnvironmentVariables() {
 		String[] properties = { DATABASE, CONNECTIONURL, REGISTRY_COLLECTION, AAS_COLLECTION, SUBMODEL_COLLECTION,
-				FILE_COLLECTION };
+				FILE_COLLECTION, WRITE_BEHIND, WRITE_BEHIND_INTERVAL, WRITE_BEHIND_MAX_SIZE, CACHE, CACHE_MAX_SIZE, INDEX_CREATION,
+				BULK_IMPORT, BULK_BATCH_SIZE, BULK_PARALLELISM, BULK_ORDERED, CONNECTION_POOL_MAX_SIZE,
+				CONNECTION_POOL_MAX_IDLE_TIME, CONNECT_TIMEOUT, SOCKET_TIMEOUT, SERVER_SELECTION_TIMEOUT, ASYNC_REQUESTS,
+				ASYNC_POOL_SIZE, ASYNC_QUEUE_SIZE, ASYNC_TIMEOUT, FILE_DEDUPLICATION, FILE_DEDUPLICATION_BUFFER_SIZE, FILE_UPLOAD_EXPIRATION,
+				REGISTRY_CACHE };
 		loadFromEnvironmentVariables(ENV_PREFIX, properties);
 	}
 
@@ -205,6 +282,314 @@ public class BaSyxMongoDBConfiguration extends BaSyxConfiguration {
 		setProperty(FILE_COLLECTION, fileCollection);
 	}
 
+	/**
+	 * Returns true, if value updates of submodel elements are buffered and written
+	 * to the database in batches
+	 */
+	public boolean isWriteBehindEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(WRITE_BEHIND));
+	}
+
+	public void enableWriteBehind() {
+		setProperty(WRITE_BEHIND, FEATURE_ENABLED);
+	}
+
+	public void disableWriteBehind() {
+		setProperty(WRITE_BEHIND, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the interval in milliseconds in which buffered updates are written to
+	 * the database
+	 */
+	public long getWriteBehindInterval() {
+		return Long.parseLong(getPropertyOrDefault(WRITE_BEHIND_INTERVAL, DEFAULT_WRITE_BEHIND_INTERVAL));
+	}
+
+	public void setWriteBehindInterval(long intervalMillis) {
+		setProperty(WRITE_BEHIND_INTERVAL, Long.toString(intervalMillis));
+	}
+
+	/**
+	 * Returns the number of buffered updates that triggers an immediate write to
+	 * the database
+	 */
+	public int getWriteBehindMaxSize() {
+		return Integer.parseInt(getPropertyOrDefault(WRITE_BEHIND_MAX_SIZE, DEFAULT_WRITE_BEHIND_MAX_SIZE));
+	}
+
+	public void setWriteBehindMaxSize(int maxSize) {
+		setProperty(WRITE_BEHIND_MAX_SIZE, Integer.toString(maxSize));
+	}
+
+	/**
+	 * Returns true, if retrieved objects are cached. The cache is kept coherent
+	 * using change streams, which require a replica set.
+	 */
+	public boolean isCacheEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(CACHE));
+	}
+
+	public void enableCache() {
+		setProperty(CACHE, FEATURE_ENABLED);
+	}
+
+	public void disableCache() {
+		setProperty(CACHE, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the maximum number of cached objects per collection
+	 */
+	public int getCacheMaxSize() {
+		return Integer.parseInt(getPropertyOrDefault(CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE));
+	}
+
+	public void setCacheMaxSize(int maxSize) {
+		setProperty(CACHE_MAX_SIZE, Integer.toString(maxSize));
+	}
+
+	/**
+	 * Returns true, if the indexes of the collections are created on startup
+	 */
+	public boolean isIndexCreationEnabled() {
+		return !FEATURE_DISABLED.equals(getProperty(INDEX_CREATION));
+	}
+
+	public void enableIndexCreation() {
+		setProperty(INDEX_CREATION, FEATURE_ENABLED);
+	}
+
+	public void disableIndexCreation() {
+		setProperty(INDEX_CREATION, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns true, if AAS bundles are imported on startup using bulk writes
+	 * instead of creating each shell and submodel separately
+	 */
+	public boolean isBulkImportEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(BULK_IMPORT));
+	}
+
+	public void enableBulkImport() {
+		setProperty(BULK_IMPORT, FEATURE_ENABLED);
+	}
+
+	public void disableBulkImport() {
+		setProperty(BULK_IMPORT, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the number of documents that are sent to the database within one
+	 * bulk write
+	 */
+	public int getBulkBatchSize() {
+		return Integer.parseInt(getPropertyOrDefault(BULK_BATCH_SIZE, DEFAULT_BULK_BATCH_SIZE));
+	}
+
+	public void setBulkBatchSize(int batchSize) {
+		setProperty(BULK_BATCH_SIZE, Integer.toString(batchSize));
+	}
+
+	/**
+	 * Returns the number of bulk writes that are sent to the database in parallel
+	 */
+	public int getBulkParallelism() {
+		return Integer.parseInt(getPropertyOrDefault(BULK_PARALLELISM, DEFAULT_BULK_PARALLELISM));
+	}
+
+	public void setBulkParallelism(int parallelism) {
+		setProperty(BULK_PARALLELISM, Integer.toString(parallelism));
+	}
+
+	/**
+	 * Returns true, if the documents of a bulk write are written in order and the
+	 * write stops at the first error
+	 */
+	public boolean isBulkOrderedEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(BULK_ORDERED));
+	}
+
+	public void enableBulkOrdered() {
+		setProperty(BULK_ORDERED, FEATURE_ENABLED);
+	}
+
+	public void disableBulkOrdered() {
+		setProperty(BULK_ORDERED, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the maximum number of connections of the pool shared by all
+	 * components using the same connection url
+	 */
+	public int getConnectionPoolMaxSize() {
+		return Integer.parseInt(getPropertyOrDefault(CONNECTION_POOL_MAX_SIZE, DEFAULT_CONNECTION_POOL_MAX_SIZE));
+	}
+
+	public void setConnectionPoolMaxSize(int maxSize) {
+		setProperty(CONNECTION_POOL_MAX_SIZE, Integer.toString(maxSize));
+	}
+
+	/**
+	 * Returns the time in milliseconds after which idle connections are closed.
+	 * Zero means no limit.
+	 */
+	public long getConnectionPoolMaxIdleTime() {
+		return Long.parseLong(getPropertyOrDefault(CONNECTION_POOL_MAX_IDLE_TIME, DEFAULT_CONNECTION_POOL_MAX_IDLE_TIME));
+	}
+
+	public void setConnectionPoolMaxIdleTime(long maxIdleTimeMillis) {
+		setProperty(CONNECTION_POOL_MAX_IDLE_TIME, Long.toString(maxIdleTimeMillis));
+	}
+
+	/**
+	 * Returns the timeout in milliseconds for establishing a connection
+	 */
+	public int getConnectTimeout() {
+		return Integer.parseInt(getPropertyOrDefault(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+	}
+
+	public void setConnectTimeout(int timeoutMillis) {
+		setProperty(CONNECT_TIMEOUT, Integer.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns the timeout in milliseconds for reading from a connection. Zero
+	 * means no timeout.
+	 */
+	public int getSocketTimeout() {
+		return Integer.parseInt(getPropertyOrDefault(SOCKET_TIMEOUT, DEFAULT_SOCKET_TIMEOUT));
+	}
+
+	public void setSocketTimeout(int timeoutMillis) {
+		setProperty(SOCKET_TIMEOUT, Integer.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns the timeout in milliseconds for finding a server to send a request
+	 * to
+	 */
+	public long getServerSelectionTimeout() {
+		return Long.parseLong(getPropertyOrDefault(SERVER_SELECTION_TIMEOUT, DEFAULT_SERVER_SELECTION_TIMEOUT));
+	}
+
+	public void setServerSelectionTimeout(long timeoutMillis) {
+		setProperty(SERVER_SELECTION_TIMEOUT, Long.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns true, if requests are served asynchronously by a bounded pool of
+	 * database threads instead of the threads of the HTTP server
+	 */
+	public boolean isAsyncRequestsEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(ASYNC_REQUESTS));
+	}
+
+	public void enableAsyncRequests() {
+		setProperty(ASYNC_REQUESTS, FEATURE_ENABLED);
+	}
+
+	public void disableAsyncRequests() {
+		setProperty(ASYNC_REQUESTS, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the number of threads executing asynchronous database operations
+	 */
+	public int getAsyncPoolSize() {
+		return Integer.parseInt(getPropertyOrDefault(ASYNC_POOL_SIZE, DEFAULT_ASYNC_POOL_SIZE));
+	}
+
+	public void setAsyncPoolSize(int poolSize) {
+		setProperty(ASYNC_POOL_SIZE, Integer.toString(poolSize));
+	}
+
+	/**
+	 * Returns the maximum number of asynchronous database operations waiting for a
+	 * thread. Further operations are rejected.
+	 */
+	public int getAsyncQueueSize() {
+		return Integer.parseInt(getPropertyOrDefault(ASYNC_QUEUE_SIZE, DEFAULT_ASYNC_QUEUE_SIZE));
+	}
+
+	public void setAsyncQueueSize(int queueSize) {
+		setProperty(ASYNC_QUEUE_SIZE, Integer.toString(queueSize));
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds an asynchronously served request
+	 * waits for a thread. Requests waiting longer are answered with 503.
+	 */
+	public long getAsyncTimeout() {
+		return Long.parseLong(getPropertyOrDefault(ASYNC_TIMEOUT, DEFAULT_ASYNC_TIMEOUT));
+	}
+
+	public void setAsyncTimeout(long timeoutMillis) {
+		setProperty(ASYNC_TIMEOUT, Long.toString(timeoutMillis));
+	}
+
+	/**
+	 * Returns true, if files with identical content are stored only once
+	 */
+	public boolean isFileDeduplicationEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(FILE_DEDUPLICATION));
+	}
+
+	public void enableFileDeduplication() {
+		setProperty(FILE_DEDUPLICATION, FEATURE_ENABLED);
+	}
+
+	public void disableFileDeduplication() {
+		setProperty(FILE_DEDUPLICATION, FEATURE_DISABLED);
+	}
+
+	/**
+	 * Returns the size in bytes up to which uploaded files are hashed in memory
+	 * before they are written, so that unchanged files are not written again
+	 */
+	public int getFileDeduplicationBufferSize() {
+		return Integer.parseInt(getPropertyOrDefault(FILE_DEDUPLICATION_BUFFER_SIZE, DEFAULT_FILE_DEDUPLICATION_BUFFER_SIZE));
+	}
+
+	public void setFileDeduplicationBufferSize(int bufferSize) {
+		setProperty(FILE_DEDUPLICATION_BUFFER_SIZE, Integer.toString(bufferSize));
+	}
+
+	/**
+	 * Returns the time in milliseconds after which resumable file uploads that
+	 * have not been continued are discarded
+	 */
+	public long getFileUploadExpiration() {
+		return Long.parseLong(getPropertyOrDefault(FILE_UPLOAD_EXPIRATION, DEFAULT_FILE_UPLOAD_EXPIRATION));
+	}
+
+	public void setFileUploadExpiration(long expiration) {
+		setProperty(FILE_UPLOAD_EXPIRATION, Long.toString(expiration));
+	}
+
+	/**
+	 * Returns true, if the registry holds all descriptors in memory. The
+	 * descriptors are kept up to date using change streams, which require a
+	 * replica set.
+	 */
+	public boolean isRegistryCacheEnabled() {
+		return FEATURE_ENABLED.equals(getProperty(REGISTRY_CACHE));
+	}
+
+	public void enableRegistryCache() {
+		setProperty(REGISTRY_CACHE, FEATURE_ENABLED);
+	}
+
+	public void disableRegistryCache() {
+		setProperty(REGISTRY_CACHE, FEATURE_DISABLED);
+	}
+
+	private String getPropertyOrDefault(String name, String defaultValue) {
+		String value = getProperty(name);
+		return value == null ? defaultValue : value;
+	}
+
 	private static List<String> getPropertiesExcludedFromLogging() {
 		return Collections.singletonList(CONNECTIONURL);
 	}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of threads the requests to the server are handed off to, so that
+ * the threads of the HTTP server are not blocked while the requests wait for the
+ * database. The requests still use the synchronous driver on the threads of this
+ * pool. Requests exceeding the capacity of the queue are rejected with a
+ * {@link RejectedExecutionException}.<br>
+ * <br>
+ * All users of the same connection url share one pool.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBAsyncExecutor {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBAsyncExecutor.class);
+
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+	private static Map<String, MongoDBAsyncExecutor> executors = new HashMap<>();
+
+	private final ThreadPoolExecutor threadPool;
+
+	/**
+	 * Returns the executor of the connection url of the configuration
+	 * 
+	 * @param config
+	 * @return
+	 */
+	public static synchronized MongoDBAsyncExecutor getInstance(BaSyxMongoDBConfiguration config) {
+		return executors.computeIfAbsent(config.getConnectionUrl(), url -> new MongoDBAsyncExecutor(config.getAsyncPoolSize(), config.getAsyncQueueSize()));
+	}
+
+	/**
+	 * Waits for the running and queued requests and stops all executors
+	 */
+	public static synchronized void closeAll() {
+		executors.values().forEach(MongoDBAsyncExecutor::close);
+		executors.clear();
+	}
+
+	protected MongoDBAsyncExecutor(int poolSize, int queueSize) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+			Thread thread = new Thread(runnable, "MongoDBAsyncExecutor-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Executes the operation asynchronously
+	 * 
+	 * @param operation
+	 * @return the future completed after the operation
+	 * @throws RejectedExecutionException
+	 *             if the queue of the executor is full
+	 */
+	public CompletableFuture<Void> run(Runnable operation) {
+		return CompletableFuture.runAsync(operation, threadPool);
+	}
+
+	private void close() {
+		threadPool.shutdown();
+		try {
+			if (!threadPool.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				logger.warn("Asynchronous database operations did not finish within " + SHUTDOWN_TIMEOUT_MILLIS + " ms");
+				threadPool.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			threadPool.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
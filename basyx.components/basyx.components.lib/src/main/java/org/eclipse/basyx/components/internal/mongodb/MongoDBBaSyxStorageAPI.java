@@ -31,10 +31,38 @@ import static org.springframework.data.mongodb.core.query.Query.query;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
@@ -42,16 +70,33 @@ import org.eclipse.basyx.submodel.metamodel.map.Submodel;
 import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
 import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
 import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
-import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 
 /**
  * Provides BaSyxStorageAPI implementation for MongoDB
@@ -63,9 +108,21 @@ import com.mongodb.client.result.DeleteResult;
 public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 	private final String INDEX_KEY = Identifiable.IDENTIFICATION + "." + Identifier.ID;
 
+	/**
+	 * Attribute storing a token that changes with every write of a document. It is
+	 * used for detecting concurrent modifications and never returned to callers.
+	 */
+	public static final String REVISION_KEY = "_revision";
+	private static final String ID_KEY = "_id";
+	private static final int MAX_MODIFICATION_ATTEMPTS = 10;
+	private static final String TEMP_DIRECTORY_PREFIX = "basyx-mongodb-file";
+
 	protected BaSyxMongoDBConfiguration config;
 	protected MongoClient client;
 	protected MongoOperations mongoOps;
+	protected MongoDBDocumentCache documentCache;
+	private final MongoDBMetamodelCodec<T> metamodelCodec;
+	private final CodecRegistry codecRegistry;
 
 	/**
 	 * @deprecated Please use the other constructor with MongoClient client. 
@@ -73,7 +130,7 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 	 */
 	@Deprecated
 	public MongoDBBaSyxStorageAPI(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config) {
-		this(collectionName, type, config, MongoClients.create(config.getConnectionUrl()));
+		this(collectionName, type, config, MongoDBClientManager.getClient(config));
 	}
 
 	public MongoDBBaSyxStorageAPI(String collectionName, Class<T> type, BaSyxMongoDBConfiguration config, MongoClient client) {
@@ -81,52 +138,212 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 		this.config = config;
 		this.client = client;
 		this.mongoOps = new MongoTemplate(client, config.getDatabase());
+		CodecRegistry defaultRegistry = getCollection().getCodecRegistry();
+		this.metamodelCodec = new MongoDBMetamodelCodec<>(TYPE, mongoOps.getConverter(), defaultRegistry);
+		this.codecRegistry = CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(metamodelCodec), defaultRegistry);
+		if (config.isCacheEnabled()) {
+			this.documentCache = MongoDBDocumentCache.getInstance(config, getCollection());
+		}
 	}
 
+	/**
+	 * Inserts the object or replaces the existing object with the same key within
+	 * one request. The written object is not transferred back, since it equals
+	 * the given object.
+	 */
 	@Override
 	public T createOrUpdate(T obj) {
 		String key = getKey(obj);
-		if (alreadyExists(key)) {
-			return update(obj, key);
+		getCollection().replaceOne(Filters.eq(INDEX_KEY, key), toDocument(obj), new ReplaceOptions().upsert(true));
+		invalidateCache(key);
+		return obj;
+	}
+
+	/**
+	 * Inserts the objects that do not exist yet using bulk writes, while existing
+	 * objects are left unchanged. The objects are written in batches of the
+	 * configured size, of which up to the configured number are sent to the
+	 * database in parallel. The progress is logged after each batch.
+	 * 
+	 * @param objs
+	 *            the objects to be inserted
+	 * @return the keys of the objects that have been inserted
+	 * @throws ProviderException
+	 *             if a batch could not be written
+	 */
+	public Set<String> createIfAbsent(Collection<T> objs) {
+		ExecutorService executor = createBulkWriteExecutor();
+		try {
+			return createIfAbsent(objs, executor);
+		} finally {
+			executor.shutdownNow();
 		}
+	}
 
-		T created = mongoOps.insert(obj, getCollectionName());
-		return handleMongoDbIdAttribute(created);
+	/**
+	 * Creates an executor sending up to the configured number of batches to the
+	 * database in parallel. It can be used for several calls of
+	 * {@link #createIfAbsent(Collection, ExecutorService)} and has to be shut down
+	 * by the caller.
+	 * 
+	 * @return
+	 */
+	public ExecutorService createBulkWriteExecutor() {
+		return Executors.newFixedThreadPool(Math.max(config.getBulkParallelism(), 1));
 	}
 
-	private boolean alreadyExists(String key) {
-		Query hasId = query(where(INDEX_KEY).is(key));
-		return mongoOps.exists(hasId, getCollectionName());
+	/**
+	 * Inserts the objects that do not exist yet like
+	 * {@link #createIfAbsent(Collection)}, but sends the batches to the database
+	 * using the given executor
+	 * 
+	 * @param objs
+	 *            the objects to be inserted
+	 * @param executor
+	 *            the executor writing the batches, see
+	 *            {@link #createBulkWriteExecutor()}
+	 * @return the keys of the objects that have been inserted
+	 * @throws ProviderException
+	 *             if a batch could not be written
+	 */
+	public Set<String> createIfAbsent(Collection<T> objs, ExecutorService executor) {
+		List<List<T>> batches = partition(new ArrayList<>(objs), Math.max(config.getBulkBatchSize(), 1));
+		if (batches.isEmpty()) {
+			return new HashSet<>();
+		}
+
+		long start = System.currentTimeMillis();
+		Set<String> createdKeys = ConcurrentHashMap.newKeySet();
+		AtomicInteger writtenCount = new AtomicInteger();
+		List<Future<?>> results = new ArrayList<>();
+		for (List<T> batch : batches) {
+			results.add(executor.submit(() -> {
+				createdKeys.addAll(createBatchIfAbsent(batch));
+				logger.info("Bulk write progress for collection '{}': {} of {} objects written", getCollectionName(), writtenCount.addAndGet(batch.size()), objs.size());
+			}));
+		}
+		try {
+			for (Future<?> result : results) {
+				awaitBatch(result);
+			}
+		} finally {
+			results.forEach(result -> result.cancel(true));
+		}
+
+		long duration = System.currentTimeMillis() - start;
+		logger.info("Bulk write to collection '{}' finished: {} of {} objects inserted in {} ms ({} objects/s)", getCollectionName(), createdKeys.size(), objs.size(), duration, objs.size() * 1000L / Math.max(duration, 1L));
+		return createdKeys;
+	}
+
+	private List<String> createBatchIfAbsent(List<T> batch) {
+		List<String> keys = batch.stream().map(this::getKey).collect(Collectors.toList());
+		List<UpdateOneModel<Document>> inserts = new ArrayList<>();
+		for (int i = 0; i < batch.size(); i++) {
+			Bson insertIfAbsent = new Document("$setOnInsert", toDocument(batch.get(i)));
+			inserts.add(new UpdateOneModel<>(Filters.eq(INDEX_KEY, keys.get(i)), insertIfAbsent, new UpdateOptions().upsert(true)));
+		}
+
+		BulkWriteResult result = getCollection().bulkWrite(inserts, new BulkWriteOptions().ordered(config.isBulkOrderedEnabled()));
+		List<String> createdKeys = result.getUpserts().stream().map(upsert -> keys.get(upsert.getIndex())).collect(Collectors.toList());
+		createdKeys.forEach(this::invalidateCache);
+		return createdKeys;
+	}
+
+	private static <E> List<List<E>> partition(List<E> elements, int size) {
+		List<List<E>> partitions = new ArrayList<>();
+		for (int i = 0; i < elements.size(); i += size) {
+			partitions.add(elements.subList(i, Math.min(i + size, elements.size())));
+		}
+		return partitions;
+	}
+
+	private void awaitBatch(Future<?> result) {
+		try {
+			result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProviderException("Bulk write to collection '" + getCollectionName() + "' has been interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new ProviderException("Bulk write to collection '" + getCollectionName() + "' failed.", e.getCause());
+		}
 	}
 
 	@Override
 	public T update(T obj, String key) {
-		T replaced = findAndReplaceIfExists(obj, key);
-		if (replaced == null) {
+		UpdateResult result = getCollection().replaceOne(Filters.eq(INDEX_KEY, key), toDocument(obj));
+		invalidateCache(key);
+		if (result.getMatchedCount() == 0L) {
 			logger.warn("Could not execute update for key {} as it does not exist in the database; Creating new entry...", key);
 			return createOrUpdate(obj);
 		}
-		replaced = handleMongoDbIdAttribute(replaced);
-		return replaced;
+		return obj;
 	}
 
-	private T findAndReplaceIfExists(T obj, String key) {
-		Query hasId = query(where(INDEX_KEY).is(key));
-		FindAndReplaceOptions replacementOptions = setupReplacemantOptionsToReturnNew();
-		T replaced = mongoOps.findAndReplace(hasId, obj, replacementOptions.returnNew(), getCollectionName());
-		return replaced;
+	/**
+	 * Applies the given modification to the object with the given key using
+	 * optimistic concurrency control. The object is only written back if it has
+	 * not been changed by someone else in the meantime. Otherwise, the object is
+	 * retrieved again and the modification is reapplied.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param modification
+	 *            the modification to be applied, may be applied multiple times
+	 * @return the modified object
+	 * @throws ResourceNotFoundException
+	 *             if the object does not exist
+	 * @throws ProviderException
+	 *             if the object could not be written due to ongoing concurrent
+	 *             modifications
+	 */
+	public T modify(String key, UnaryOperator<T> modification) {
+		for (int attempt = 0; attempt < MAX_MODIFICATION_ATTEMPTS; attempt++) {
+			Document current = getCollection().find(Filters.eq(INDEX_KEY, key)).first();
+			if (current == null) {
+				throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+			}
+
+			Object revision = current.get(REVISION_KEY);
+			T modified = modification.apply(fromDocument(current));
+			if (getCollection().replaceOne(hasRevision(key, revision), toDocument(modified)).getMatchedCount() == 1L) {
+				invalidateCache(key);
+				return modified;
+			}
+			logger.debug("Object with key {} has been modified concurrently; Retrying...", key);
+		}
+		throw new ProviderException("Could not modify object with key '" + key + "' due to concurrent modifications.");
 	}
 
-	private FindAndReplaceOptions setupReplacemantOptionsToReturnNew() {
-		FindAndReplaceOptions replacementOptions = FindAndReplaceOptions.empty();
-		replacementOptions.returnNew();
-		return replacementOptions;
+	private Bson hasRevision(String key, Object revision) {
+		Bson revisionFilter = revision == null ? Filters.exists(REVISION_KEY, false) : Filters.eq(REVISION_KEY, revision);
+		return Filters.and(Filters.eq(INDEX_KEY, key), revisionFilter);
+	}
+
+	private Document toDocument(T obj) {
+		Document document = new Document();
+		mongoOps.getConverter().write(obj, document);
+		document.put(REVISION_KEY, new ObjectId());
+		return document;
+	}
+
+	private MongoCollection<Document> getCollection() {
+		return mongoOps.getCollection(getCollectionName());
+	}
+
+	/**
+	 * Returns the collection decoding its documents directly into objects of the
+	 * managed type using the {@link MongoDBMetamodelCodec}
+	 */
+	private MongoCollection<T> getTypedCollection() {
+		return getCollection().withDocumentClass(TYPE).withCodecRegistry(codecRegistry);
 	}
 
 	@SuppressWarnings("unchecked")
 	public T handleMongoDbIdAttribute(T data) {
-		if (data instanceof Map)
-			((Map<String, Object>) data).remove("_id");
+		if (data instanceof Map) {
+			((Map<String, Object>) data).remove(ID_KEY);
+			((Map<String, Object>) data).remove(REVISION_KEY);
+		}
 		return data;
 	}
 
@@ -134,9 +351,226 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 	public boolean delete(String key) {
 		Query hasId = query(where(INDEX_KEY).is(key));
 		DeleteResult result = mongoOps.remove(hasId, getCollectionName());
+		invalidateCache(key);
 		return result.getDeletedCount() == 1L;
 	}
 
+	/**
+	 * Sets a single field of the object with the given key without transferring
+	 * the whole object. The update is only applied if the object exists and
+	 * fulfills the given condition.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the field to be set
+	 * @param value
+	 *            the new value of the field
+	 * @param condition
+	 *            additional criteria the object has to fulfill, may be null
+	 * @return true, if an object has been updated
+	 */
+	public boolean setField(String key, String fieldPath, Object value, Criteria condition) {
+		Criteria criteria = where(INDEX_KEY).is(key);
+		if (condition != null) {
+			criteria = new Criteria().andOperator(criteria, condition);
+		}
+		UpdateResult result = mongoOps.updateFirst(query(criteria), new Update().set(fieldPath, value).set(REVISION_KEY, new ObjectId()), getCollectionName());
+		invalidateCache(key);
+		return result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Removes a single field of the object with the given key without
+	 * transferring the whole object.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the field to be removed
+	 * @return true, if the field existed and has been removed
+	 */
+	public boolean unsetField(String key, String fieldPath) {
+		Query hasField = query(where(INDEX_KEY).is(key).and(fieldPath).exists(true));
+		UpdateResult result = mongoOps.updateFirst(hasField, new Update().unset(fieldPath).set(REVISION_KEY, new ObjectId()), getCollectionName());
+		invalidateCache(key);
+		return result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Adds a value to an array field of the object with the given key without
+	 * transferring the whole object. The value is only added, if no element of the
+	 * array matches the given filter, so that concurrent additions of the same
+	 * value do not lead to duplicates.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the array field
+	 * @param value
+	 *            the value to be added
+	 * @param duplicateFilter
+	 *            matches the elements of the array that are considered equal to
+	 *            the value
+	 * @return true, if the value has been added; false, if the object does not
+	 *         exist or the array already contains an equal element
+	 */
+	public boolean addToSetField(String key, String fieldPath, Object value, Document duplicateFilter) {
+		Bson filter = Filters.and(Filters.eq(INDEX_KEY, key), Filters.not(Filters.elemMatch(fieldPath, duplicateFilter)));
+		Bson update = Updates.combine(Updates.addToSet(fieldPath, mongoOps.getConverter().convertToMongoType(value)), Updates.set(REVISION_KEY, new ObjectId()));
+		UpdateResult result = getCollection().updateOne(filter, update);
+		invalidateCache(key);
+		return result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Removes all elements matching the given filter from an array field of the
+	 * object with the given key without transferring the whole object.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the array field
+	 * @param elementFilter
+	 *            matches the elements to be removed
+	 * @return true, if elements have been removed; false, if the object does not
+	 *         exist or no element matches the filter
+	 */
+	public boolean pullFromField(String key, String fieldPath, Document elementFilter) {
+		Bson filter = Filters.and(Filters.eq(INDEX_KEY, key), Filters.elemMatch(fieldPath, elementFilter));
+		Bson update = Updates.combine(Updates.pullByFilter(new Document(fieldPath, elementFilter)), Updates.set(REVISION_KEY, new ObjectId()));
+		UpdateResult result = getCollection().updateOne(filter, update);
+		invalidateCache(key);
+		return result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Removes all elements fulfilling the given aggregation expression from an
+	 * array field of the object with the given key without transferring the whole
+	 * object. In contrast to {@link #pullFromField(String, String, Document)}, the
+	 * expression can refer to the position of values within the elements, e.g. to
+	 * the last entry of an array of an element.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the array field
+	 * @param elementExpression
+	 *            the aggregation expression evaluated for each element, which is
+	 *            referred to by <i>$$this</i>
+	 * @return true, if elements have been removed; false, if the object does not
+	 *         exist or no element fulfills the expression
+	 */
+	public boolean pullFromFieldByExpression(String key, String fieldPath, Document elementExpression) {
+		Document elements = new Document("$ifNull", Arrays.asList("$" + fieldPath, Arrays.asList()));
+		Document isContained = new Document("$anyElementTrue", Arrays.asList(new Document("$map", new Document("input", elements).append("in", elementExpression))));
+		Document remainingElements = new Document("$filter", new Document("input", elements).append("cond", new Document("$not", Arrays.asList(elementExpression))));
+		Bson filter = Filters.and(Filters.eq(INDEX_KEY, key), Filters.expr(isContained));
+		Bson update = new Document("$set", new Document(fieldPath, remainingElements).append(REVISION_KEY, new ObjectId()));
+		UpdateResult result = getCollection().updateOne(filter, Arrays.asList(update));
+		invalidateCache(key);
+		return result.getMatchedCount() == 1L;
+	}
+
+	/**
+	 * Checks if the object with the given key fulfills the given condition without
+	 * transferring the object.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param condition
+	 *            the criteria the object has to fulfill
+	 * @return true, if the object exists and fulfills the condition
+	 */
+	public boolean matches(String key, Criteria condition) {
+		return mongoOps.exists(query(new Criteria().andOperator(where(INDEX_KEY).is(key), condition)), getCollectionName());
+	}
+
+	/**
+	 * Retrieves the keys of the objects whose field has one of the given values
+	 * within one request. Only the keys and the field values are transferred from
+	 * the database.
+	 * 
+	 * @param criteria
+	 *            the criteria the objects have to fulfill additionally
+	 * @param fieldPath
+	 *            the dot separated path of the field
+	 * @param fieldValues
+	 *            the values to be looked up
+	 * @return the keys of the found objects mapped by their field values in the
+	 *         order the values have been given. Values without object are
+	 *         omitted.
+	 */
+	public Map<String, String> retrieveKeysByFieldValues(Criteria criteria, String fieldPath, Collection<String> fieldValues) {
+		Map<String, String> retrieved = new HashMap<>();
+		if (!fieldValues.isEmpty()) {
+			Criteria hasFieldValue = new Criteria().andOperator(where(fieldPath).in(fieldValues), criteria);
+			getCollection().find(query(hasFieldValue).getQueryObject()).projection(Projections.include(INDEX_KEY, fieldPath)).forEach(document -> retrieved.put(getEmbeddedString(document, fieldPath), getEmbeddedString(document, INDEX_KEY)));
+		}
+
+		Map<String, String> ordered = new LinkedHashMap<>();
+		fieldValues.stream().filter(retrieved::containsKey).forEach(value -> ordered.put(value, retrieved.get(value)));
+		return ordered;
+	}
+
+	private String getEmbeddedString(Document document, String fieldPath) {
+		return document.getEmbedded(Arrays.asList(fieldPath.split("\\.")), String.class);
+	}
+
+	/**
+	 * Retrieves only the revision of the object with the given key. The revision
+	 * changes with every write, so that it can be used to check whether a
+	 * previously retrieved object is still up to date.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @return the revision or null, if the object has not been written since
+	 *         revisions have been introduced
+	 * @throws ResourceNotFoundException
+	 *             if the object does not exist
+	 */
+	public Object retrieveRevision(String key) {
+		Document revision = getCollection().find(Filters.eq(INDEX_KEY, key)).projection(Projections.include(REVISION_KEY)).first();
+		if (revision == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		return revision.get(REVISION_KEY);
+	}
+
+	/**
+	 * Sets fields of several objects within one bulk request. Each field is only
+	 * set, if its parent field exists, so that no partial objects are created for
+	 * fields that have been removed in the meantime.
+	 * 
+	 * @param fieldValuesByKey
+	 *            maps the keys of the objects to the dot separated field paths and
+	 *            their new values
+	 * @return the number of fields that have been set
+	 */
+	public int setExistingFields(Map<String, Map<String, Object>> fieldValuesByKey) {
+		BulkOperations bulkOps = mongoOps.bulkOps(BulkMode.UNORDERED, getCollectionName());
+		int fieldCount = 0;
+		for (Entry<String, Map<String, Object>> fieldValues : fieldValuesByKey.entrySet()) {
+			for (Entry<String, Object> fieldValue : fieldValues.getValue().entrySet()) {
+				String fieldPath = fieldValue.getKey();
+				String parentPath = fieldPath.substring(0, Math.max(fieldPath.lastIndexOf('.'), 0));
+				Criteria criteria = where(INDEX_KEY).is(fieldValues.getKey());
+				if (!parentPath.isEmpty()) {
+					criteria = criteria.and(parentPath).exists(true);
+				}
+				bulkOps.updateOne(query(criteria), new Update().set(fieldPath, fieldValue.getValue()).set(REVISION_KEY, new ObjectId()));
+				fieldCount++;
+			}
+		}
+
+		if (fieldCount == 0) {
+			return 0;
+		}
+		int matchedCount = bulkOps.execute().getMatchedCount();
+		fieldValuesByKey.keySet().forEach(this::invalidateCache);
+		return matchedCount;
+	}
+
 	@Override
 	public void createCollectionIfNotExists(String collectionName) {
 		// MongoOperations implicitly creates Collections.
@@ -145,34 +579,134 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 	@Override
 	public void deleteCollection() {
 		mongoOps.dropCollection(getCollectionName());
+		if (documentCache != null) {
+			documentCache.invalidateAll();
+		}
 	}
 
 	@Override
 	public T rawRetrieve(String key) {
-		Query hasId = query(where(INDEX_KEY).is(key));
-		var result = mongoOps.findOne(hasId, TYPE, getCollectionName());
+		if (documentCache != null) {
+			return fromDocument(retrieveCachedDocument(key));
+		}
+
+		T result = getTypedCollection().find(Filters.eq(INDEX_KEY, key)).first();
+		if (result == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		return result;
+	}
+
+	private Document retrieveCachedDocument(String key) {
+		Document document = documentCache.get(key);
+		if (document != null) {
+			return document;
+		}
+
+		long generation = documentCache.getGeneration();
+		document = getCollection().find(Filters.eq(INDEX_KEY, key)).first();
+		if (document == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
+		}
+		documentCache.put(key, document, generation);
+		return document;
+	}
+
+	private void invalidateCache(String key) {
+		if (documentCache != null) {
+			documentCache.invalidate(key);
+		}
+	}
+
+	/**
+	 * Retrieves the object with the given key, but only containing the field with
+	 * the given path. All other fields are not transferred from the database.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the field to be retrieved
+	 * @return the partial object
+	 * @throws ResourceNotFoundException
+	 *             if the object does not exist or does not contain the field
+	 */
+	public T retrieveField(String key, String fieldPath) {
+		return retrieveField(key, fieldPath, Collections.emptyList());
+	}
+
+	/**
+	 * Retrieves the object with the given key, but only containing the field with
+	 * the given path and the additional fields, e.g. attributes of the objects
+	 * enclosing the field. All other fields are not transferred from the database.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param fieldPath
+	 *            the dot separated path of the field to be retrieved
+	 * @param additionalFieldPaths
+	 *            further fields to be retrieved, which do not have to exist
+	 * @return the partial object
+	 * @throws ResourceNotFoundException
+	 *             if the object does not exist or does not contain the field
+	 */
+	public T retrieveField(String key, String fieldPath, Collection<String> additionalFieldPaths) {
+		List<String> fieldPaths = new ArrayList<>(additionalFieldPaths);
+		fieldPaths.add(fieldPath);
+		Bson hasField = Filters.and(Filters.eq(INDEX_KEY, key), Filters.exists(fieldPath));
+		T result = getTypedCollection().find(hasField).projection(Projections.include(fieldPaths)).first();
+		if (result == null) {
+			throw new ResourceNotFoundException("No Object for key '" + key + "' containing '" + fieldPath + "' found in the database.");
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieves the object with the given key, but only containing the entries of
+	 * the map field with the given path whose entry field has the given value. The
+	 * filtering is done by the database, so that only the matching entries are
+	 * transferred.
+	 * 
+	 * @param key
+	 *            the key of the object
+	 * @param mapFieldPath
+	 *            the dot separated path of the map field
+	 * @param entryFieldPath
+	 *            the dot separated path of the field inside the map entries
+	 * @param entryFieldValue
+	 *            the value the field of the entries has to match
+	 * @return the partial object
+	 * @throws ResourceNotFoundException
+	 *             if the object does not exist
+	 */
+	public T retrieveFilteredMapField(String key, String mapFieldPath, String entryFieldPath, Object entryFieldValue) {
+		Document entries = new Document("$ifNull", Arrays.asList(new Document("$objectToArray", "$" + mapFieldPath), Arrays.asList()));
+		Document condition = new Document("$eq", Arrays.asList("$$this.v." + entryFieldPath, entryFieldValue));
+		Document filteredEntries = new Document("$filter", new Document("input", entries).append("cond", condition));
+		Bson projection = Aggregates.project(new Document(mapFieldPath, new Document("$arrayToObject", filteredEntries)));
+
+		T result = getTypedCollection().aggregate(Arrays.asList(Aggregates.match(Filters.eq(INDEX_KEY, key)), projection)).first();
 		if (result == null) {
 			throw new ResourceNotFoundException("No Object for key '" + key + "' found in the database.");
 		}
-		result = handleMongoDbIdAttribute(result);
 		return result;
 	}
 
+	/**
+	 * Writes the file to a temporary directory using
+	 * {@link #openFileDownload(String, String, Map)}. The name of the written file
+	 * still follows the pattern of the stored file names.
+	 */
 	@Override
 	public java.io.File getFile(String idShortPath, String parentKey, Map<String, Object> objMap) {
+		MongoDBFileDownload download = openFileDownload(idShortPath, parentKey, objMap);
+		String fileName = MongoDBFileHelper.constructFileName(parentKey, File.createAsFacade(objMap), idShortPath);
 		try {
-			File fileSubmodelElement = File.createAsFacade(objMap);
-			GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, config);
-			String fileName = MongoDBFileHelper.constructFileName(parentKey, fileSubmodelElement, idShortPath);
-			java.io.File file = new java.io.File(fileName);
-			// check if file with this filename exist in MongoDB
-			// there might be older files constructed with old (=legacy) filenames, use this one instead
-			// the real file in file system still uses the new filename pattern!
-			if (!MongoDBFileHelper.fileExists(bucket, fileName)) {
-				fileName = MongoDBFileHelper.legacyFileName(parentKey, fileSubmodelElement, idShortPath);
-			}
+			Path directory = Files.createTempDirectory(TEMP_DIRECTORY_PREFIX);
+			directory.toFile().deleteOnExit();
+			java.io.File file = directory.resolve(fileName).toFile();
+			file.deleteOnExit();
 			try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-				bucket.downloadToStream(fileName, fileOutputStream);
+				download.transferTo(fileOutputStream);
 			}
 			return file;
 		} catch (IOException e) {
@@ -180,6 +714,25 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 		}
 	}
 
+	/**
+	 * Opens the file of the given File submodel element for streaming it from
+	 * GridFS without writing it to the file system
+	 * 
+	 * @param idShortPath
+	 * @param parentKey
+	 * @param objMap
+	 *            the File submodel element
+	 * @return
+	 */
+	public MongoDBFileDownload openFileDownload(String idShortPath, String parentKey, Map<String, Object> objMap) {
+		File fileSubmodelElement = File.createAsFacade(objMap);
+		GridFSFile gridFile = MongoDBFileHelper.findStoredFile(client, config, parentKey, fileSubmodelElement, idShortPath);
+		if (gridFile == null) {
+			throw new ResourceNotFoundException("The File Submodel Element does not contain a File");
+		}
+		return new MongoDBFileDownload(MongoDBFileHelper.getGridFSBucket(client, config), gridFile, fileSubmodelElement.getMimeType());
+	}
+
 	@Override
 	public String writeFile(String idShortPath, String parentKey, InputStream inputStream, ISubmodelElement element) {
 		return MongoDBFileHelper.updateFileInDB(client, config, parentKey, inputStream, element, idShortPath);
@@ -190,13 +743,133 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 		MongoDBFileHelper.deleteAllFilesFromGridFsIfIsFileSubmodelElement(client, config, submodel, idShort);
 	}
 
+	/**
+	 * Retrieves the objects with the given keys within one request
+	 * 
+	 * @param keys
+	 *            the keys of the objects
+	 * @return the found objects mapped by their keys in the order the keys have
+	 *         been given. Keys of objects that do not exist are omitted.
+	 */
+	public Map<String, T> retrieveByKeys(Collection<String> keys) {
+		Map<String, T> retrieved = new HashMap<>();
+		if (!keys.isEmpty()) {
+			getTypedCollection().find(Filters.in(INDEX_KEY, keys)).forEach(obj -> retrieved.put(getKey(obj), obj));
+		}
+
+		Map<String, T> ordered = new LinkedHashMap<>();
+		keys.stream().filter(retrieved::containsKey).forEach(key -> ordered.put(key, retrieved.get(key)));
+		return ordered;
+	}
+
+	/**
+	 * Retrieves all objects fulfilling the given criteria. The criteria are
+	 * evaluated by the database, so that only matching objects are transferred.
+	 * 
+	 * @param criteria
+	 * @return
+	 */
+	public List<T> retrieveAll(Criteria criteria) {
+		return getTypedCollection().find(query(criteria).getQueryObject()).into(new ArrayList<>());
+	}
+
+	/**
+	 * Retrieves an object fulfilling the given criteria. The criteria are
+	 * evaluated by the database.
+	 * 
+	 * @param criteria
+	 * @return the object or null, if no object fulfills the criteria
+	 */
+	public T retrieveOne(Criteria criteria) {
+		return getTypedCollection().find(query(criteria).getQueryObject()).first();
+	}
+
+	/**
+	 * Deletes all objects of the collection on the server side without retrieving
+	 * them
+	 * 
+	 * @param keepIndexes
+	 *            if true, the objects are deleted one by one by the server, so that
+	 *            the collection keeps its indexes. Otherwise, the collection is
+	 *            dropped, which is considerably faster for large collections, and
+	 *            the indexes have to be created again.
+	 */
+	public void deleteAll(boolean keepIndexes) {
+		if (keepIndexes) {
+			getCollection().deleteMany(new Document());
+		} else {
+			mongoOps.dropCollection(getCollectionName());
+		}
+
+		if (documentCache != null) {
+			documentCache.invalidateAll();
+		}
+	}
+
 	@Override
 	public Collection<T> rawRetrieveAll() {
-		Collection<T> data = mongoOps.findAll(TYPE, getCollectionName());
-		data = data.stream()
-				.map(this::handleMongoDbIdAttribute)
-				.collect(Collectors.toList());
-		return data;
+		return getTypedCollection().find().into(new ArrayList<>());
+	}
+
+	/**
+	 * Retrieves a page of the objects fulfilling the given criteria. The objects
+	 * are passed to the consumer one by one while the database cursor advances,
+	 * so that only a single object has to be held in memory at once. Pages are
+	 * ordered by the insertion of the objects and identified by the cursor
+	 * returned for the previous page.
+	 * 
+	 * @param criteria
+	 *            the criteria the objects have to fulfill, may be null
+	 * @param limit
+	 *            the maximum number of objects of the page
+	 * @param cursor
+	 *            the cursor returned for the previous page or null for the first
+	 *            page
+	 * @param consumer
+	 *            receives the objects of the page
+	 * @return the cursor of the next page or null, if this is the last page
+	 * @throws MalformedRequestException
+	 *             if the limit is not positive or the cursor is invalid
+	 */
+	public String retrievePage(Criteria criteria, int limit, String cursor, Consumer<T> consumer) {
+		if (limit <= 0) {
+			throw new MalformedRequestException("The page limit has to be positive, but was " + limit + ".");
+		}
+
+		List<Bson> filters = new ArrayList<>();
+		if (criteria != null) {
+			filters.add(query(criteria).getQueryObject());
+		}
+		if (cursor != null) {
+			if (!ObjectId.isValid(cursor)) {
+				throw new MalformedRequestException("The page cursor '" + cursor + "' is invalid.");
+			}
+			filters.add(Filters.gt(ID_KEY, new ObjectId(cursor)));
+		}
+
+		Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
+		// One more object is fetched to know whether there is a next page. The raw
+		// documents are only decoded when they are passed to the consumer.
+		MongoCollection<RawBsonDocument> collection = getCollection().withDocumentClass(RawBsonDocument.class);
+		try (MongoCursor<RawBsonDocument> documents = collection.find(filter).sort(Sorts.ascending(ID_KEY)).limit(limit + 1).iterator()) {
+			BsonValue lastId = null;
+			for (int count = 0; count < limit && documents.hasNext(); count++) {
+				RawBsonDocument document = documents.next();
+				lastId = document.get(ID_KEY);
+				consumer.accept(decode(document));
+			}
+			return documents.hasNext() && lastId != null && lastId.isObjectId() ? lastId.asObjectId().getValue().toHexString() : null;
+		}
+	}
+
+	private T fromDocument(Document document) {
+		return handleMongoDbIdAttribute(mongoOps.getConverter().read(TYPE, document));
+	}
+
+	private T decode(RawBsonDocument document) {
+		try (BsonReader reader = document.asBsonReader()) {
+			return metamodelCodec.decode(reader, DecoderContext.builder().build());
+		}
 	}
 
 	@Override
@@ -207,4 +880,17 @@ public class MongoDBBaSyxStorageAPI<T> extends BaSyxStorageAPI<T> {
 	public MongoClient getClient() {
 		return client;
 	}
+
+	public BaSyxMongoDBConfiguration getConfiguration() {
+		return config;
+	}
+
+	/**
+	 * Returns the cache of the retrieved documents
+	 * 
+	 * @return the cache or null, if caching is disabled
+	 */
+	public MongoDBDocumentCache getDocumentCache() {
+		return documentCache;
+	}
 }
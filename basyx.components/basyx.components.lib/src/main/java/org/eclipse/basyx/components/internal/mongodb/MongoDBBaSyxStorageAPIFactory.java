@@ -31,7 +31,6 @@ import java.util.Map;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 
 import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 
 /**
  * 
@@ -133,7 +132,16 @@ public class MongoDBBaSyxStorageAPIFactory<T> {
 	}
 
 	private static MongoClient createNewClient(BaSyxMongoDBConfiguration config) {
-		return MongoClients.create(config.getConnectionUrl());
+		return MongoDBClientManager.getClient(config);
+	}
+
+	/**
+	 * Removes a closed client, so that it is not reused anymore
+	 * 
+	 * @param client
+	 */
+	static synchronized void forgetClient(MongoClient client) {
+		knownClients.values().removeIf(knownClient -> knownClient == client);
 	}
 
 	/**
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Manages one pooled {@link MongoClient} per connection url. All components
+ * connecting to the same database share the connection pool of one client
+ * instead of opening their own. The clients are reference counted and closed as
+ * soon as the last user has released them. Clients used without reference by
+ * {@link #getClient(BaSyxMongoDBConfiguration)} stay open until the end of the
+ * process.<br>
+ * <br>
+ * Options given in the connection url (e.g. <i>maxPoolSize</i>) take precedence
+ * over the settings of the {@link BaSyxMongoDBConfiguration}.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBClientManager {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBClientManager.class);
+
+	private static Map<String, SharedClient> clients = new HashMap<>();
+
+	private static class SharedClient {
+		private final MongoClient client;
+		private int referenceCount = 0;
+		private boolean isPinned = false;
+
+		private SharedClient(MongoClient client) {
+			this.client = client;
+		}
+	}
+
+	private MongoDBClientManager() {
+	}
+
+	/**
+	 * Returns the shared client of the connection url of the configuration. Every
+	 * acquired client has to be released by {@link #release(MongoClient)} when it
+	 * is not needed anymore.
+	 * 
+	 * @param config
+	 * @return
+	 */
+	public static synchronized MongoClient acquire(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = clients.computeIfAbsent(config.getConnectionUrl(), url -> new SharedClient(createClient(config)));
+		sharedClient.referenceCount++;
+		return sharedClient.client;
+	}
+
+	/**
+	 * Returns the shared client of the connection url of the configuration
+	 * without counting a reference. It is meant for users that cannot release the
+	 * client, e.g. objects created by convenience constructors. Thus, the client
+	 * is not closed anymore when its counted users have released it.
+	 * 
+	 * @param config
+	 * @return
+	 */
+	public static synchronized MongoClient getClient(BaSyxMongoDBConfiguration config) {
+		SharedClient sharedClient = clients.computeIfAbsent(config.getConnectionUrl(), url -> new SharedClient(createClient(config)));
+		sharedClient.isPinned = true;
+		return sharedClient.client;
+	}
+
+	/**
+	 * Releases a client acquired by {@link #acquire(BaSyxMongoDBConfiguration)}.
+	 * The client is closed when it has been released by all of its users. Clients
+	 * not managed by this class are ignored.
+	 * 
+	 * @param client
+	 */
+	public static void release(MongoClient client) {
+		if (!unreference(client)) {
+			return;
+		}
+
+		MongoDBBaSyxStorageAPIFactory.forgetClient(client);
+		MongoDBFileHelper.forgetClient(client);
+		client.close();
+		logger.info("Closed MongoDB client after its last user has released it");
+	}
+
+	/**
+	 * Decrements the reference count of the client and returns true, if it has to
+	 * be closed
+	 */
+	private static synchronized boolean unreference(MongoClient client) {
+		Iterator<SharedClient> iterator = clients.values().iterator();
+		while (iterator.hasNext()) {
+			SharedClient sharedClient = iterator.next();
+			if (sharedClient.client != client) {
+				continue;
+			}
+
+			if (--sharedClient.referenceCount > 0 || sharedClient.isPinned) {
+				return false;
+			}
+			iterator.remove();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of users of the shared client of the connection url
+	 * 
+	 * @param connectionUrl
+	 * @return
+	 */
+	public static synchronized int getReferenceCount(String connectionUrl) {
+		SharedClient sharedClient = clients.get(connectionUrl);
+		return sharedClient == null ? 0 : sharedClient.referenceCount;
+	}
+
+	private static MongoClient createClient(BaSyxMongoDBConfiguration config) {
+		ConnectionString connectionString = new ConnectionString(config.getConnectionUrl());
+		MongoClientSettings settings = MongoClientSettings.builder().applyConnectionString(connectionString).applyToConnectionPoolSettings(builder -> {
+			if (connectionString.getMaxConnectionPoolSize() == null) {
+				builder.maxSize(config.getConnectionPoolMaxSize());
+			}
+			if (connectionString.getMaxConnectionIdleTime() == null) {
+				builder.maxConnectionIdleTime(config.getConnectionPoolMaxIdleTime(), TimeUnit.MILLISECONDS);
+			}
+		}).applyToSocketSettings(builder -> {
+			if (connectionString.getConnectTimeout() == null) {
+				builder.connectTimeout(config.getConnectTimeout(), TimeUnit.MILLISECONDS);
+			}
+			if (connectionString.getSocketTimeout() == null) {
+				builder.readTimeout(config.getSocketTimeout(), TimeUnit.MILLISECONDS);
+			}
+		}).applyToClusterSettings(builder -> {
+			if (connectionString.getServerSelectionTimeout() == null) {
+				builder.serverSelectionTimeout(config.getServerSelectionTimeout(), TimeUnit.MILLISECONDS);
+			}
+		}).build();
+
+		logger.info("Created MongoDB client with a connection pool of at most " + settings.getConnectionPoolSettings().getMaxSize() + " connections");
+		return MongoClients.create(settings);
+	}
+}
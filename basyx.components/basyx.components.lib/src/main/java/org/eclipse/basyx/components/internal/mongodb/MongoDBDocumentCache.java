@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+/**
+ * Least recently used cache of the documents of a collection. Since the
+ * collection may be modified by other servers, the cache watches the change
+ * stream of the collection and evicts every document that has been changed.
+ * Change streams are only available on replica sets. As long as the change
+ * stream is not available, the cache is bypassed.<br>
+ * <br>
+ * The raw documents are cached instead of deserialized objects, since the
+ * retrieved objects are modified by their users.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBDocumentCache {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBDocumentCache.class);
+
+	private static final String OBJECT_ID_KEY = "_id";
+	private static final long CHANGE_STREAM_AWAIT_MILLIS = 1000;
+	private static final long CHANGE_STREAM_RETRY_MILLIS = 10000;
+
+	private static Map<String, MongoDBDocumentCache> caches = new HashMap<>();
+
+	private final MongoCollection<Document> collection;
+	private final Map<String, Document> documents;
+	private final Map<Object, String> keysByObjectId = new HashMap<>();
+	private final Thread changeStreamWatcher;
+
+	// Incremented on every eviction, so that documents retrieved before a change
+	// are not cached afterwards
+	private long generation = 0;
+	private boolean isCoherent = false;
+	private volatile boolean isClosed = false;
+
+	/**
+	 * Returns the cache of the given collection. All storage APIs working on the
+	 * same collection share one cache.
+	 * 
+	 * @param config
+	 * @param collection
+	 * @return
+	 */
+	public static synchronized MongoDBDocumentCache getInstance(BaSyxMongoDBConfiguration config, MongoCollection<Document> collection) {
+		String cacheKey = config.getConnectionUrl() + "#" + collection.getNamespace().getFullName();
+		return caches.computeIfAbsent(cacheKey, key -> new MongoDBDocumentCache(collection, config.getCacheMaxSize()));
+	}
+
+	/**
+	 * Stops watching the change streams of all caches
+	 */
+	public static synchronized void closeAll() {
+		caches.values().forEach(MongoDBDocumentCache::close);
+		caches.clear();
+	}
+
+	@SuppressWarnings("serial")
+	protected MongoDBDocumentCache(MongoCollection<Document> collection, int maxSize) {
+		this.collection = collection;
+		this.documents = new LinkedHashMap<String, Document>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Document> eldest) {
+				if (size() <= maxSize) {
+					return false;
+				}
+				keysByObjectId.remove(eldest.getValue().get(OBJECT_ID_KEY));
+				return true;
+			}
+		};
+
+		changeStreamWatcher = new Thread(this::watchChangeStream, "MongoDBDocumentCache-" + collection.getNamespace().getCollectionName());
+		changeStreamWatcher.setDaemon(true);
+		changeStreamWatcher.start();
+	}
+
+	/**
+	 * Returns the cached document with the given key
+	 * 
+	 * @param key
+	 * @return the document or null, if it is not cached
+	 */
+	public synchronized Document get(String key) {
+		return documents.get(key);
+	}
+
+	/**
+	 * Returns the current generation of the cache, which has to be retrieved
+	 * before the document is read from the database
+	 * 
+	 * @return
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Checks if the cache is watching the changes of the collection. Only then,
+	 * documents are cached.
+	 * 
+	 * @return
+	 */
+	public synchronized boolean isCoherent() {
+		return isCoherent;
+	}
+
+	/**
+	 * Caches the given document, if the cache has not been changed since the
+	 * given generation
+	 * 
+	 * @param key
+	 * @param document
+	 * @param documentGeneration
+	 *            the generation of the cache before the document has been read
+	 */
+	public synchronized void put(String key, Document document, long documentGeneration) {
+		if (!isCoherent || documentGeneration != generation) {
+			return;
+		}
+		documents.put(key, document);
+		keysByObjectId.put(document.get(OBJECT_ID_KEY), key);
+	}
+
+	public synchronized void invalidate(String key) {
+		generation++;
+		Document evicted = documents.remove(key);
+		if (evicted != null) {
+			keysByObjectId.remove(evicted.get(OBJECT_ID_KEY));
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		documents.clear();
+		keysByObjectId.clear();
+	}
+
+	public void close() {
+		isClosed = true;
+		try {
+			changeStreamWatcher.join(2 * CHANGE_STREAM_AWAIT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		setCoherent(false);
+	}
+
+	private void watchChangeStream() {
+		boolean hasLoggedFailure = false;
+		while (!isClosed) {
+			try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = collection.watch().maxAwaitTime(CHANGE_STREAM_AWAIT_MILLIS, TimeUnit.MILLISECONDS).cursor()) {
+				setCoherent(true);
+				hasLoggedFailure = false;
+				while (!isClosed) {
+					ChangeStreamDocument<Document> change = cursor.tryNext();
+					if (change != null) {
+						handleChange(change);
+					}
+				}
+			} catch (MongoException e) {
+				setCoherent(false);
+				if (!hasLoggedFailure) {
+					logger.warn("Could not watch changes of collection " + collection.getNamespace() + ", caching is suspended: " + e.getMessage());
+					hasLoggedFailure = true;
+				}
+				waitForRetry();
+			}
+		}
+	}
+
+	private void handleChange(ChangeStreamDocument<Document> change) {
+		BsonDocument documentKey = change.getDocumentKey();
+		if (change.getOperationType() == OperationType.INSERT) {
+			// Inserted documents have not been cached
+			return;
+		} else if (documentKey == null || !documentKey.isObjectId(OBJECT_ID_KEY)) {
+			invalidateAll();
+			return;
+		}
+
+		BsonValue objectId = documentKey.get(OBJECT_ID_KEY);
+		invalidateByObjectId(objectId.asObjectId().getValue());
+	}
+
+	private synchronized void invalidateByObjectId(Object objectId) {
+		String key = keysByObjectId.get(objectId);
+		if (key != null) {
+			invalidate(key);
+		} else {
+			generation++;
+		}
+	}
+
+	private synchronized void setCoherent(boolean isCoherent) {
+		this.isCoherent = isCoherent;
+		invalidateAll();
+	}
+
+	private void waitForRetry() {
+		try {
+			Thread.sleep(CHANGE_STREAM_RETRY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			isClosed = true;
+		}
+	}
+}
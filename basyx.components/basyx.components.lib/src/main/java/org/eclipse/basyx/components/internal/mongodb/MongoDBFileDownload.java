@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+/**
+ * A file stored in GridFS that can be streamed to an output stream, either as a
+ * whole or as a range of bytes. Only one chunk of the file is held in memory at
+ * a time and no temporary file is written.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBFileDownload {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final GridFSBucket bucket;
+	private final GridFSFile file;
+	private final String mimeType;
+
+	public MongoDBFileDownload(GridFSBucket bucket, GridFSFile file, String mimeType) {
+		this.bucket = bucket;
+		this.file = file;
+		this.mimeType = mimeType;
+	}
+
+	public long getLength() {
+		return file.getLength();
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public String getFileName() {
+		return file.getFilename();
+	}
+
+	/**
+	 * Writes the whole file to the output stream
+	 * 
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public void transferTo(OutputStream outputStream) throws IOException {
+		transferTo(outputStream, 0, getLength());
+	}
+
+	/**
+	 * Writes the given range of the file to the output stream. The chunks before
+	 * the range are not read from the database.
+	 * 
+	 * @param outputStream
+	 * @param offset
+	 *            the first byte to be written
+	 * @param length
+	 *            the number of bytes to be written
+	 * @throws IOException
+	 */
+	public void transferTo(OutputStream outputStream, long offset, long length) throws IOException {
+		try (GridFSDownloadStream downloadStream = bucket.openDownloadStream(file.getObjectId())) {
+			skipFully(downloadStream, offset);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length;
+			while (remaining > 0) {
+				int read = downloadStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					break;
+				}
+				outputStream.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+
+	private static void skipFully(GridFSDownloadStream downloadStream, long offset) {
+		long remaining = offset;
+		while (remaining > 0) {
+			long skipped = downloadStream.skip(remaining);
+			if (skipped <= 0) {
+				return;
+			}
+			remaining -= skipped;
+		}
+	}
+}
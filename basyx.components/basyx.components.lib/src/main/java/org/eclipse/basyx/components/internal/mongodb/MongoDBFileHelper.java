@@ -25,33 +25,108 @@
 
 package org.eclipse.basyx.components.internal.mongodb;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.tika.mime.MimeType;
 import org.apache.tika.mime.MimeTypeException;
 import org.apache.tika.mime.MimeTypes;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.submodel.metamodel.api.submodelelement.ISubmodelElement;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.modeltype.ModelType;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.SubmodelElementCollection;
 import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.mongodb.MongoGridFSException;
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.gridfs.GridFSBucket;
 import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 
 /**
- * Supports MongoDB file handling
+ * Supports MongoDB file handling<br>
+ * <br>
+ * If file deduplication is enabled, the content of a file is stored only once
+ * as a blob named after its SHA-256 digest. The files of the submodel elements
+ * reference the blobs by documents in the <i>&lt;bucket&gt;.references</i>
+ * collection. The <i>&lt;bucket&gt;.blobs</i> collection holds one document per
+ * digest with the id of the blob and the number of its references, which is
+ * only changed atomically. A reference is counted before the blob is created
+ * and before the file is pointed to it, and the blob is deleted only by the
+ * one who removes its last reference.<br>
+ * <br>
+ * Resolved file extensions and the bucket handles are cached. Files stored
+ * with the legacy naming scheme are renamed once by
+ * {@link #migrateLegacyFiles(MongoClient, BaSyxMongoDBConfiguration)}, so that
+ * looking up a file does not need to consider the legacy names afterwards.
  * 
  * @author fischer
  *
  */
 public class MongoDBFileHelper {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBFileHelper.class);
+
+	public static final String REFERENCES_SUFFIX = ".references";
+	public static final String BLOBS_SUFFIX = ".blobs";
+	public static final String DIGEST_KEY = "digest";
+
+	private static final String FILES_SUFFIX = ".files";
+	private static final String CHUNKS_SUFFIX = ".chunks";
+
+	private static final String ID_KEY = "_id";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String BLOB_PREFIX = "sha256-";
+	private static final String PENDING_BLOB_PREFIX = "pending-";
+	private static final String FILENAME_KEY = "filename";
+	private static final String BLOB_ID_KEY = "blobId";
+	private static final String REFERENCE_COUNT_KEY = "count";
+	private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+	private static final String CURRENT_FILENAME_PATTERN = "^(#|" + BLOB_PREFIX + "|" + PENDING_BLOB_PREFIX + ")";
+
+	private static final MimeTypes MIME_TYPES = MimeTypes.getDefaultMimeTypes();
+
+	// File extensions resolved from the MIME types of File submodel elements
+	private static Map<String, String> fileExtensions = new ConcurrentHashMap<>();
+
+	// Bucket handles per client, identified by database and bucket name
+	private static Map<MongoClient, Map<String, FileStore>> fileStores = new ConcurrentHashMap<>();
+
+	// Buckets whose legacy files have been migrated or are being migrated,
+	// identified by connection, database and bucket name
+	private static Set<String> migratedBuckets = ConcurrentHashMap.newKeySet();
+	private static Set<String> migratingBuckets = ConcurrentHashMap.newKeySet();
+
 	private MongoDBFileHelper() {
 	}
 
@@ -60,6 +135,13 @@ public class MongoDBFileHelper {
 		File file = File.createAsFacade((Map<String, Object>) element);
 		GridFSBucket bucket = getGridFSBucket(client, config);
 		String fileName = constructFileName(submodelId, file, idShortPath);
+		if (config.isFileDeduplicationEnabled()) {
+			storeDeduplicated(getFileStore(client, config), fileName, newValue, config.getFileDeduplicationBufferSize());
+			deleteAllDuplicateFiles(bucket, fileName, legacyFileName(submodelId, file, idShortPath));
+			return fileName;
+		}
+
+		deleteReference(getFileStore(client, config), fileName);
 		deleteAllDuplicateFiles(bucket, fileName, legacyFileName(submodelId, file, idShortPath));
 		bucket.uploadFromStream(fileName, newValue);
 		return fileName;
@@ -72,16 +154,425 @@ public class MongoDBFileHelper {
 			return;
 		File file = File.createAsFacade(submodelElement);
 		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, config);
-		deleteAllDuplicateFiles(bucket, constructFileName(sm.getIdentification().getId(), file, idShort), legacyFileName(sm.getIdentification().getId(), file, idShort));
+		String fileName = constructFileName(sm.getIdentification().getId(), file, idShort);
+		deleteReference(getFileStore(client, config), fileName);
+		deleteAllDuplicateFiles(bucket, fileName, legacyFileName(sm.getIdentification().getId(), file, idShort));
+	}
+
+	/**
+	 * Returns the stored file of a File submodel element. Depending on the
+	 * configuration, the deduplicated file or the file stored by its name is
+	 * looked up first. Legacy file names are only considered, if the legacy files
+	 * of the bucket have not been migrated yet.
+	 * 
+	 * @return the file or null, if no file is stored for the submodel element
+	 */
+	public static GridFSFile findStoredFile(MongoClient client, BaSyxMongoDBConfiguration config, String submodelId, File file, String idShortPath) {
+		GridFSBucket bucket = getGridFSBucket(client, config);
+		String fileName = constructFileName(submodelId, file, idShortPath);
+		GridFSFile storedFile;
+		if (config.isFileDeduplicationEnabled()) {
+			storedFile = findDeduplicatedFile(client, config, bucket, fileName);
+			if (storedFile == null) {
+				storedFile = findFile(bucket, fileName);
+			}
+		} else {
+			storedFile = findFile(bucket, fileName);
+			if (storedFile == null) {
+				storedFile = findDeduplicatedFile(client, config, bucket, fileName);
+			}
+		}
+
+		if (storedFile == null && !isMigrated(config)) {
+			storedFile = findFile(bucket, legacyFileName(submodelId, file, idShortPath));
+		}
+		return storedFile;
+	}
+
+	private static GridFSFile findDeduplicatedFile(MongoClient client, BaSyxMongoDBConfiguration config, GridFSBucket bucket, String fileName) {
+		FileStore fileStore = getFileStore(client, config);
+		Document reference = fileStore.references.find(Filters.eq(ID_KEY, fileName)).first();
+		if (reference == null) {
+			return null;
+		}
+		Document blob = fileStore.blobs.find(Filters.eq(ID_KEY, reference.getString(DIGEST_KEY))).first();
+		if (blob == null || blob.getObjectId(BLOB_ID_KEY) == null) {
+			return null;
+		}
+		return bucket.find(Filters.eq(ID_KEY, blob.getObjectId(BLOB_ID_KEY))).first();
+	}
+
+	/**
+	 * Renames the files of the configured bucket that are stored with the legacy
+	 * naming scheme. The legacy names are mapped to the current names by the File
+	 * submodel elements of the stored submodels. If a file is stored with both
+	 * names, the legacy file is deleted. Legacy files without a matching submodel
+	 * element are left untouched.<br>
+	 * <br>
+	 * The migration is done once per bucket and process, so that it can be called
+	 * on every startup. If it fails, it is tried again by the next call. Until it
+	 * has succeeded, the legacy names are still considered when looking up files.
+	 * 
+	 * @param client
+	 * @param config
+	 */
+	public static void migrateLegacyFiles(MongoClient client, BaSyxMongoDBConfiguration config) {
+		String bucketKey = getBucketKey(config);
+		if (migratedBuckets.contains(bucketKey) || !migratingBuckets.add(bucketKey)) {
+			return;
+		}
+
+		try {
+			migrateLegacyFiles(client, config, getGridFSBucket(client, config));
+			migratedBuckets.add(bucketKey);
+		} finally {
+			migratingBuckets.remove(bucketKey);
+		}
+	}
+
+	private static void migrateLegacyFiles(MongoClient client, BaSyxMongoDBConfiguration config, GridFSBucket bucket) {
+		Map<String, Set<ObjectId>> legacyFiles = new HashMap<>();
+		bucket.find(Filters.not(Filters.regex(FILENAME_KEY, CURRENT_FILENAME_PATTERN)))
+				.forEach(gridFile -> legacyFiles.computeIfAbsent(gridFile.getFilename(), name -> new HashSet<>()).add(gridFile.getObjectId()));
+		if (legacyFiles.isEmpty()) {
+			return;
+		}
+
+		Map<String, String> fileNames = new HashMap<>();
+		MongoCollection<Document> submodels = client.getDatabase(config.getDatabase()).getCollection(config.getSubmodelCollection());
+		submodels.find().projection(Projections.include(MongoDBIndexManager.IDENTIFICATION_ID, Submodel.SUBMODELELEMENT)).forEach(submodel -> {
+			Document identification = submodel.get(Submodel.IDENTIFICATION, Document.class);
+			if (identification != null) {
+				collectFileNames(identification.getString(Identifier.ID), "", submodel.get(Submodel.SUBMODELELEMENT), fileNames);
+			}
+		});
+
+		int migrated = 0;
+		for (Map.Entry<String, Set<ObjectId>> legacyFile : legacyFiles.entrySet()) {
+			String fileName = fileNames.get(legacyFile.getKey());
+			if (fileName == null) {
+				continue;
+			}
+			boolean exists = findFile(bucket, fileName) != null;
+			for (ObjectId id : legacyFile.getValue()) {
+				if (exists) {
+					bucket.delete(id);
+				} else {
+					bucket.rename(id, fileName);
+					exists = true;
+				}
+			}
+			migrated++;
+		}
+		logger.info("Migrated {} of {} legacy files of bucket '{}'", migrated, legacyFiles.size(), config.getFileCollection());
+	}
+
+	/**
+	 * Maps the legacy file names of the File submodel elements to their current
+	 * names
+	 */
+	@SuppressWarnings("unchecked")
+	private static void collectFileNames(String submodelId, String parentPath, Object submodelElements, Map<String, String> fileNames) {
+		if (submodelId == null || !(submodelElements instanceof Map<?, ?>)) {
+			return;
+		}
+
+		for (Map.Entry<String, Object> entry : ((Map<String, Object>) submodelElements).entrySet()) {
+			if (!(entry.getValue() instanceof Map<?, ?>)) {
+				continue;
+			}
+			Map<String, Object> element = (Map<String, Object>) entry.getValue();
+			String idShortPath = parentPath + entry.getKey();
+			if (File.isFile(element)) {
+				File file = File.createAsFacade(element);
+				fileNames.put(legacyFileName(submodelId, file, idShortPath), constructFileName(submodelId, file, idShortPath));
+			} else if (SubmodelElementCollection.MODELTYPE.equals(getModelTypeName(element))) {
+				collectFileNames(submodelId, idShortPath + "/", element.get(Property.VALUE), fileNames);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object getModelTypeName(Map<String, Object> element) {
+		Object modelType = element.get(ModelType.MODELTYPE);
+		return modelType instanceof Map<?, ?> ? ((Map<String, Object>) modelType).get(ModelType.NAME) : null;
+	}
+
+	private static boolean isMigrated(BaSyxMongoDBConfiguration config) {
+		return migratedBuckets.contains(getBucketKey(config));
+	}
+
+	private static String getBucketKey(BaSyxMongoDBConfiguration config) {
+		return config.getConnectionUrl() + "#" + config.getDatabase() + "#" + config.getFileCollection();
+	}
+
+	/**
+	 * Stores the content as blob named after its digest, if no such blob exists
+	 * yet, and references it by the given file name. Contents fitting into the
+	 * buffer are hashed before they are written, so that unchanged contents are not
+	 * written at all. Larger contents are hashed while they are uploaded and the
+	 * upload is discarded, if the blob already exists.
+	 */
+	private static void storeDeduplicated(FileStore fileStore, String fileName, InputStream content, int bufferSize) {
+		MessageDigest messageDigest = createMessageDigest();
+		try {
+			byte[] head = content.readNBytes(bufferSize);
+			if (head.length < bufferSize) {
+				String digest = toHex(messageDigest.digest(head));
+				storeBlobAndReference(fileStore, fileName, digest, () -> fileStore.bucket.uploadFromStream(pendingFileName(new ObjectId()), new ByteArrayInputStream(head)));
+				return;
+			}
+
+			DigestInputStream digestStream = new DigestInputStream(new SequenceInputStream(new ByteArrayInputStream(head), content), messageDigest);
+			ObjectId pendingBlobId = fileStore.bucket.uploadFromStream(pendingFileName(new ObjectId()), digestStream);
+			commitPendingBlob(fileStore, fileName, pendingBlobId, toHex(messageDigest.digest()));
+		} catch (IOException e) {
+			throw new ProviderException("Could not read the uploaded file.", e);
+		}
+	}
+
+	/**
+	 * Stores a completely uploaded pending file as the file of a File submodel
+	 * element, replacing the file stored before
+	 * 
+	 * @param client
+	 * @param config
+	 * @param fileName
+	 *            the name constructed for the File submodel element
+	 * @param legacyFileName
+	 *            the legacy name of the File submodel element
+	 * @param pendingFileId
+	 *            the id of the pending file
+	 */
+	static void commitPendingFile(MongoClient client, BaSyxMongoDBConfiguration config, String fileName, String legacyFileName, ObjectId pendingFileId) {
+		FileStore fileStore = getFileStore(client, config);
+		GridFSBucket bucket = fileStore.bucket;
+		if (config.isFileDeduplicationEnabled()) {
+			commitPendingBlob(fileStore, fileName, pendingFileId, computeDigest(bucket, pendingFileId));
+			deleteAllDuplicateFiles(bucket, fileName, legacyFileName);
+			return;
+		}
+
+		deleteReference(fileStore, fileName);
+		deleteAllDuplicateFiles(bucket, fileName, legacyFileName);
+		bucket.rename(pendingFileId, fileName);
+	}
+
+	/**
+	 * Turns the pending file into the blob with the given digest and references it
+	 * by the file name. If the blob already exists, the pending file is deleted.
+	 */
+	private static void commitPendingBlob(FileStore fileStore, String fileName, ObjectId pendingBlobId, String digest) {
+		AtomicBoolean isPendingBlobUsed = new AtomicBoolean();
+		try {
+			storeBlobAndReference(fileStore, fileName, digest, () -> {
+				isPendingBlobUsed.set(true);
+				return pendingBlobId;
+			});
+		} finally {
+			if (!isPendingBlobUsed.get()) {
+				fileStore.bucket.delete(pendingBlobId);
+			}
+		}
+	}
+
+	/**
+	 * Counts the reference of the file name to the blob with the given digest,
+	 * creates the blob, if it does not exist yet, and points the file name to it
+	 * afterwards. The reference is counted first, so that the blob cannot be
+	 * deleted in the meantime. Of concurrent creators of the same blob, only the
+	 * first one registering its upload keeps it.
+	 * 
+	 * @param pendingBlobUpload
+	 *            uploads the content as pending file and returns its id. Only
+	 *            called, if the blob does not exist yet.
+	 */
+	private static void storeBlobAndReference(FileStore fileStore, String fileName, String digest, Supplier<ObjectId> pendingBlobUpload) {
+		Document blob = fileStore.blobs.findOneAndUpdate(Filters.eq(ID_KEY, digest), Updates.inc(REFERENCE_COUNT_KEY, 1), new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+		String previousDigest;
+		try {
+			if (blob.getObjectId(BLOB_ID_KEY) == null) {
+				createBlob(fileStore, digest, pendingBlobUpload.get());
+			}
+			previousDigest = setReference(fileStore.references, fileName, digest);
+		} catch (RuntimeException e) {
+			releaseBlob(fileStore, digest);
+			throw e;
+		}
+
+		// The replaced reference is released, even if it pointed to the same blob,
+		// since this blob has just been counted a second time
+		if (previousDigest != null) {
+			releaseBlob(fileStore, previousDigest);
+		}
+	}
+
+	/**
+	 * Registers the pending file as the blob with the given digest and names it
+	 * accordingly. If another upload has been registered in the meantime, the
+	 * pending file is deleted.
+	 */
+	private static void createBlob(FileStore fileStore, String digest, ObjectId pendingBlobId) {
+		UpdateResult result = fileStore.blobs.updateOne(Filters.and(Filters.eq(ID_KEY, digest), Filters.eq(BLOB_ID_KEY, null)), Updates.set(BLOB_ID_KEY, pendingBlobId));
+		if (result.getModifiedCount() == 1) {
+			fileStore.bucket.rename(pendingBlobId, blobName(digest));
+		} else {
+			fileStore.bucket.delete(pendingBlobId);
+		}
+	}
+
+	private static String computeDigest(GridFSBucket bucket, ObjectId fileId) {
+		MessageDigest messageDigest = createMessageDigest();
+		byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+		try (InputStream content = bucket.openDownloadStream(fileId)) {
+			int read;
+			while ((read = content.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new ProviderException("Could not read the uploaded file.", e);
+		}
+		return toHex(messageDigest.digest());
+	}
+
+	/**
+	 * References the blob with the given digest by the file name
+	 * 
+	 * @return the digest previously referenced by the file name or null
+	 */
+	private static String setReference(MongoCollection<Document> references, String fileName, String digest) {
+		FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE);
+		Document previous = references.findOneAndUpdate(Filters.eq(ID_KEY, fileName), Updates.set(DIGEST_KEY, digest), options);
+		return previous == null ? null : previous.getString(DIGEST_KEY);
+	}
+
+	private static void deleteReference(FileStore fileStore, String fileName) {
+		Document deleted = fileStore.references.findOneAndDelete(Filters.eq(ID_KEY, fileName));
+		if (deleted != null) {
+			releaseBlob(fileStore, deleted.getString(DIGEST_KEY));
+		}
+	}
+
+	/**
+	 * Removes one reference from the count of the blob with the given digest. The
+	 * one who removes the last reference deletes the blob. If the blob is
+	 * referenced again in the meantime, the conditional deletion of its document
+	 * fails and the blob is kept.
+	 */
+	private static void releaseBlob(FileStore fileStore, String digest) {
+		Document blob = fileStore.blobs.findOneAndUpdate(Filters.eq(ID_KEY, digest), Updates.inc(REFERENCE_COUNT_KEY, -1), new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+		if (blob == null || blob.getInteger(REFERENCE_COUNT_KEY, 0) > 0) {
+			return;
+		}
+
+		Document deleted = fileStore.blobs.findOneAndDelete(Filters.and(Filters.eq(ID_KEY, digest), Filters.lte(REFERENCE_COUNT_KEY, 0)));
+		if (deleted != null && deleted.getObjectId(BLOB_ID_KEY) != null) {
+			deleteFileById(fileStore.bucket, deleted.getObjectId(BLOB_ID_KEY));
+		}
+	}
+
+	private static void deleteFileById(GridFSBucket bucket, ObjectId fileId) {
+		try {
+			bucket.delete(fileId);
+		} catch (MongoGridFSException e) {
+			logger.warn("The blob {} has already been deleted", fileId);
+		}
+	}
+
+	/**
+	 * Deletes all files of the configured bucket together with the references of
+	 * the deduplicated files and the unfinished uploads
+	 * 
+	 * @param client
+	 * @param config
+	 * @param keepIndexes
+	 *            if false, the collections are dropped instead of deleting their
+	 *            documents
+	 */
+	public static void deleteAllFiles(MongoClient client, BaSyxMongoDBConfiguration config, boolean keepIndexes) {
+		MongoDatabase database = client.getDatabase(config.getDatabase());
+		String bucketName = config.getFileCollection();
+		String[] collectionNames = { bucketName + FILES_SUFFIX, bucketName + CHUNKS_SUFFIX, bucketName + REFERENCES_SUFFIX, bucketName + BLOBS_SUFFIX, bucketName + MongoDBFileUploadHelper.UPLOADS_SUFFIX };
+		for (String collectionName : collectionNames) {
+			if (keepIndexes) {
+				database.getCollection(collectionName).deleteMany(new Document());
+			} else {
+				database.getCollection(collectionName).drop();
+			}
+		}
+	}
+
+	public static MongoCollection<Document> getReferenceCollection(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return getFileStore(client, config).references;
+	}
+
+	private static String blobName(String digest) {
+		return BLOB_PREFIX + digest;
+	}
+
+	/**
+	 * Returns the name of a file that is still being uploaded
+	 */
+	static String pendingFileName(ObjectId fileId) {
+		return PENDING_BLOB_PREFIX + fileId;
+	}
+
+	static boolean isPendingFileName(String fileName) {
+		return fileName != null && fileName.startsWith(PENDING_BLOB_PREFIX);
+	}
+
+	private static MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new ProviderException("The digest algorithm " + DIGEST_ALGORITHM + " is not available.", e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
 	}
 
 	protected static boolean fileExists(GridFSBucket bucket, String fileName) {
-		return bucket.find(Filters.eq("filename", fileName)).first() != null;
+		return bucket.find(Filters.eq(FILENAME_KEY, fileName)).first() != null;
+	}
+
+	/**
+	 * Returns the first of the given file names that exists in the bucket
+	 * 
+	 * @param bucket
+	 * @param fileNames
+	 *            the file names in the order of their preference
+	 * @return the found file or null, if none of the files exists
+	 */
+	public static GridFSFile findFile(GridFSBucket bucket, String... fileNames) {
+		for (String fileName : fileNames) {
+			GridFSFile file = bucket.find(Filters.eq(FILENAME_KEY, fileName)).first();
+			if (file != null) {
+				return file;
+			}
+		}
+		return null;
 	}
 
 	public static GridFSBucket getGridFSBucket(MongoClient client, BaSyxMongoDBConfiguration config) {
-		MongoDatabase database = client.getDatabase(config.getDatabase());
-		return GridFSBuckets.create(database, config.getFileCollection());
+		return getFileStore(client, config).bucket;
+	}
+
+	private static FileStore getFileStore(MongoClient client, BaSyxMongoDBConfiguration config) {
+		Map<String, FileStore> clientFileStores = fileStores.computeIfAbsent(client, c -> new ConcurrentHashMap<>());
+		return clientFileStores.computeIfAbsent(config.getDatabase() + "#" + config.getFileCollection(), key -> new FileStore(client.getDatabase(config.getDatabase()), config.getFileCollection()));
+	}
+
+	/**
+	 * Removes the cached bucket handles of a client that is about to be closed
+	 */
+	static void forgetClient(MongoClient client) {
+		fileStores.remove(client);
 	}
 
 	private static void deleteAllDuplicateFiles(GridFSBucket bucket, String... fileNames) {
@@ -111,14 +602,35 @@ public class MongoDBFileHelper {
 
 
 	private static String getFileExtension(File file) {
-		MimeTypes allTypes = MimeTypes.getDefaultMimeTypes();
+		String mimeType = file.getMimeType();
+		if (mimeType == null) {
+			return "";
+		}
+		return fileExtensions.computeIfAbsent(mimeType, MongoDBFileHelper::resolveFileExtension);
+	}
+
+	private static String resolveFileExtension(String mimeType) {
 		try {
-			MimeType mimeType = allTypes.forName(file.getMimeType());
-			return mimeType.getExtension();
+			MimeType resolvedType = MIME_TYPES.forName(mimeType);
+			return resolvedType.getExtension();
 		} catch (MimeTypeException e) {
-			e.printStackTrace();
+			logger.warn("Could not resolve the file extension of MIME type '{}': {}", mimeType, e.getMessage());
 			return "";
 		}
 	}
 
+	/**
+	 * The handles of a bucket and of its reference and blob collections
+	 */
+	private static class FileStore {
+		private final GridFSBucket bucket;
+		private final MongoCollection<Document> references;
+		private final MongoCollection<Document> blobs;
+
+		private FileStore(MongoDatabase database, String bucketName) {
+			this.bucket = GridFSBuckets.create(database, bucketName);
+			this.references = database.getCollection(bucketName + REFERENCES_SUFFIX);
+			this.blobs = database.getCollection(bucketName + BLOBS_SUFFIX);
+		}
+	}
 }
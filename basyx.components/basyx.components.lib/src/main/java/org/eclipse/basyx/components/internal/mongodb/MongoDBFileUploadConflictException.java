@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
+
+/**
+ * Thrown if a resumable upload is not continued at its current offset or is
+ * continued by another request at the same time
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBFileUploadConflictException extends MalformedRequestException {
+	private static final long serialVersionUID = 1L;
+
+	private final long offset;
+
+	public MongoDBFileUploadConflictException(String uploadId, long offset) {
+		super("The upload '" + uploadId + "' is being continued concurrently or has to be continued at offset " + offset);
+		this.offset = offset;
+	}
+
+	/**
+	 * Returns the offset at which the upload has to be continued
+	 * 
+	 * @return
+	 */
+	public long getOffset() {
+		return offset;
+	}
+}
@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.eclipse.basyx.vab.exception.provider.ResourceNotFoundException;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Supports resumable uploads of the files of File submodel elements<br>
+ * <br>
+ * An upload is started for a File submodel element and continued by appending
+ * the content piece by piece at the offset that has been stored so far. The
+ * content is written directly into the chunks of a GridFS file, which becomes
+ * visible only when the upload is finished. Thus, an interrupted upload can be
+ * resumed at the returned offset without sending the whole file again. The
+ * pieces of one upload have to be sent one after the other. Each append and
+ * the finish claim the upload before writing, so that concurrent requests to
+ * the same upload are rejected by a {@link MongoDBFileUploadConflictException}
+ * instead of overwriting each other's chunks. A claim that has not been renewed
+ * within a minute is considered abandoned.<br>
+ * <br>
+ * The state of the uploads is stored in the <i>&lt;bucket&gt;.uploads</i>
+ * collection. Uploads that have not been continued within the configured
+ * expiration time are discarded.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBFileUploadHelper {
+	public static final String UPLOADS_SUFFIX = ".uploads";
+	public static final String UPDATED_KEY = "updated";
+
+	private static final String FILES_SUFFIX = ".files";
+	private static final String CHUNKS_SUFFIX = ".chunks";
+
+	private static final String ID_KEY = "_id";
+	private static final String FILE_NAME_KEY = "fileName";
+	private static final String LEGACY_FILE_NAME_KEY = "legacyFileName";
+	private static final String ID_SHORT_PATH_KEY = "idShortPath";
+	private static final String LENGTH_KEY = "length";
+	private static final String CHUNK_SIZE_KEY = "chunkSize";
+	private static final String CLAIM_KEY = "claim";
+	private static final String FINISHING_KEY = "finishing";
+
+	private static final long CLAIM_EXPIRATION_MILLIS = 60000;
+
+	// Fields of the GridFS files and chunks collections
+	private static final String FILENAME_KEY = "filename";
+	private static final String UPLOAD_DATE_KEY = "uploadDate";
+	private static final String FILES_ID_KEY = "files_id";
+	private static final String CHUNK_INDEX_KEY = "n";
+	private static final String DATA_KEY = "data";
+
+	private MongoDBFileUploadHelper() {
+	}
+
+	/**
+	 * Starts the upload of the file of a File submodel element. The submodel is
+	 * not accessed again for the rest of the upload.
+	 * 
+	 * @param client
+	 * @param config
+	 * @param submodelId
+	 * @param file
+	 *            the File submodel element
+	 * @param idShortPath
+	 *            the path of the File submodel element within the submodel
+	 * @return the id of the upload
+	 */
+	public static String startUpload(MongoClient client, BaSyxMongoDBConfiguration config, String submodelId, File file, String idShortPath) {
+		deleteExpiredUploads(client, config);
+
+		ObjectId uploadId = new ObjectId();
+		Document upload = new Document(ID_KEY, uploadId)
+				.append(FILE_NAME_KEY, MongoDBFileHelper.constructFileName(submodelId, file, idShortPath))
+				.append(LEGACY_FILE_NAME_KEY, MongoDBFileHelper.legacyFileName(submodelId, file, idShortPath))
+				.append(ID_SHORT_PATH_KEY, idShortPath)
+				.append(LENGTH_KEY, 0L)
+				.append(CHUNK_SIZE_KEY, MongoDBFileHelper.getGridFSBucket(client, config).getChunkSizeBytes())
+				.append(UPDATED_KEY, new Date());
+		getUploadCollection(client, config).insertOne(upload);
+		return uploadId.toHexString();
+	}
+
+	/**
+	 * Returns the number of bytes that have been stored for the upload, i.e. the
+	 * offset at which the upload has to be continued
+	 * 
+	 * @param client
+	 * @param config
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 * @return
+	 */
+	public static long getOffset(MongoClient client, BaSyxMongoDBConfiguration config, String uploadId, String idShortPath) {
+		return getUpload(client, config, uploadId, idShortPath).getLong(LENGTH_KEY);
+	}
+
+	/**
+	 * Appends the content to the upload. Each completed chunk is stored
+	 * immediately, so that the upload can be resumed after the last stored chunk,
+	 * if the content is interrupted.
+	 * 
+	 * @param client
+	 * @param config
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 * @param offset
+	 *            the offset of the content, which has to be the number of bytes
+	 *            stored so far
+	 * @param content
+	 * @return the offset after the appended content
+	 * @throws MongoDBFileUploadConflictException
+	 *             if the offset does not match or the upload is continued
+	 *             concurrently
+	 */
+	public static long append(MongoClient client, BaSyxMongoDBConfiguration config, String uploadId, String idShortPath, long offset, InputStream content) {
+		Document upload = getUpload(client, config, uploadId, idShortPath);
+		ObjectId fileId = upload.getObjectId(ID_KEY);
+		MongoCollection<Document> uploads = getUploadCollection(client, config);
+		ObjectId claimId = claim(uploads, fileId, Filters.and(Filters.eq(LENGTH_KEY, offset), Filters.exists(FINISHING_KEY, false)));
+		try {
+			return appendClaimed(getChunkCollection(client, config), uploads, fileId, claimId, upload.getInteger(CHUNK_SIZE_KEY), offset, content);
+		} finally {
+			release(uploads, fileId, claimId);
+		}
+	}
+
+	private static long appendClaimed(MongoCollection<Document> chunks, MongoCollection<Document> uploads, ObjectId fileId, ObjectId claimId, int chunkSize, long offset, InputStream content) {
+		long length = offset;
+		int chunkIndex = (int) (length / chunkSize);
+		byte[] buffer = new byte[chunkSize];
+		int filled = readIncompleteChunk(chunks, fileId, chunkIndex, buffer, (int) (length % chunkSize));
+		try {
+			while (true) {
+				int read = content.readNBytes(buffer, filled, chunkSize - filled);
+				if (read == 0) {
+					return length;
+				}
+				filled += read;
+				// The claim is renewed before each write, so that it does not expire
+				// while the content is being received
+				renew(uploads, fileId, claimId);
+				writeChunk(chunks, fileId, chunkIndex, buffer, filled);
+				length = updateLength(uploads, fileId, claimId, length + read);
+				if (filled < chunkSize) {
+					return length;
+				}
+				chunkIndex++;
+				filled = 0;
+			}
+		} catch (IOException e) {
+			throw new ProviderException("Could not read the uploaded content. The upload can be resumed at offset " + length + ".", e);
+		}
+	}
+
+	/**
+	 * Finishes the upload, so that the uploaded file replaces the file of the File
+	 * submodel element
+	 * 
+	 * @param client
+	 * @param config
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 * @return the name of the stored file
+	 * @throws MongoDBFileUploadConflictException
+	 *             if the upload is continued concurrently
+	 */
+	public static String finish(MongoClient client, BaSyxMongoDBConfiguration config, String uploadId, String idShortPath) {
+		Document upload = getUpload(client, config, uploadId, idShortPath);
+		ObjectId fileId = upload.getObjectId(ID_KEY);
+		MongoCollection<Document> uploads = getUploadCollection(client, config);
+		ObjectId claimId = claim(uploads, fileId, Filters.empty());
+		uploads.updateOne(Filters.eq(ID_KEY, fileId), Updates.set(FINISHING_KEY, true));
+
+		String fileName = upload.getString(FILE_NAME_KEY);
+		MongoCollection<Document> files = getFileCollection(client, config);
+		Document storedFile = files.find(Filters.eq(ID_KEY, fileId)).first();
+		if (storedFile != null && !MongoDBFileHelper.isPendingFileName(storedFile.getString(FILENAME_KEY))) {
+			// A previous finish has committed the file, but not deleted the upload
+			uploads.deleteOne(Filters.eq(ID_KEY, fileId));
+			return fileName;
+		}
+
+		// The file document is replaced, since a failed finish may have left it
+		Document file = new Document(ID_KEY, fileId)
+				.append(LENGTH_KEY, upload.getLong(LENGTH_KEY))
+				.append(CHUNK_SIZE_KEY, upload.getInteger(CHUNK_SIZE_KEY))
+				.append(UPLOAD_DATE_KEY, new Date())
+				.append(FILENAME_KEY, MongoDBFileHelper.pendingFileName(fileId));
+		files.replaceOne(Filters.eq(ID_KEY, fileId), file, new ReplaceOptions().upsert(true));
+
+		try {
+			MongoDBFileHelper.commitPendingFile(client, config, fileName, upload.getString(LEGACY_FILE_NAME_KEY), fileId);
+		} catch (RuntimeException e) {
+			if (files.find(Filters.eq(ID_KEY, fileId)).first() == null) {
+				// The content has been discarded with the pending file
+				deleteUpload(client, config, fileId);
+			} else {
+				uploads.updateOne(Filters.and(Filters.eq(ID_KEY, fileId), Filters.eq(CLAIM_KEY, claimId)), Updates.combine(Updates.unset(CLAIM_KEY), Updates.unset(FINISHING_KEY)));
+			}
+			throw e;
+		}
+
+		// The chunks belong to the file from now on and must not be discarded with
+		// the upload anymore
+		uploads.deleteOne(Filters.eq(ID_KEY, fileId));
+		return fileName;
+	}
+
+	/**
+	 * Discards the upload and its stored content
+	 * 
+	 * @param client
+	 * @param config
+	 * @param uploadId
+	 * @param idShortPath
+	 *            the path of the File submodel element the upload has been started
+	 *            for
+	 */
+	public static void abort(MongoClient client, BaSyxMongoDBConfiguration config, String uploadId, String idShortPath) {
+		Document upload = getUpload(client, config, uploadId, idShortPath);
+		ObjectId fileId = upload.getObjectId(ID_KEY);
+		claim(getUploadCollection(client, config), fileId, Filters.exists(FINISHING_KEY, false));
+		deleteUpload(client, config, fileId);
+	}
+
+	/**
+	 * Discards all uploads that have not been continued within the configured
+	 * expiration time
+	 * 
+	 * @param client
+	 * @param config
+	 */
+	public static void deleteExpiredUploads(MongoClient client, BaSyxMongoDBConfiguration config) {
+		Date expirationDate = new Date(System.currentTimeMillis() - config.getFileUploadExpiration());
+		getUploadCollection(client, config).find(Filters.lt(UPDATED_KEY, expirationDate))
+				.forEach(upload -> deleteUpload(client, config, upload.getObjectId(ID_KEY)));
+	}
+
+	/**
+	 * Deletes the upload and its content. If the upload has already been
+	 * committed as a file, only the upload is deleted.
+	 */
+	private static void deleteUpload(MongoClient client, BaSyxMongoDBConfiguration config, ObjectId fileId) {
+		MongoCollection<Document> files = getFileCollection(client, config);
+		Document file = files.find(Filters.eq(ID_KEY, fileId)).first();
+		if (file == null || MongoDBFileHelper.isPendingFileName(file.getString(FILENAME_KEY))) {
+			getChunkCollection(client, config).deleteMany(Filters.eq(FILES_ID_KEY, fileId));
+			files.deleteOne(Filters.eq(ID_KEY, fileId));
+		}
+		getUploadCollection(client, config).deleteOne(Filters.eq(ID_KEY, fileId));
+	}
+
+	/**
+	 * Claims the upload, if it matches the given condition and is not claimed by
+	 * another request
+	 * 
+	 * @return the id of the claim
+	 * @throws MongoDBFileUploadConflictException
+	 *             if the upload cannot be claimed
+	 */
+	private static ObjectId claim(MongoCollection<Document> uploads, ObjectId fileId, Bson condition) {
+		ObjectId claimId = new ObjectId();
+		Date expirationDate = new Date(System.currentTimeMillis() - CLAIM_EXPIRATION_MILLIS);
+		Bson isUnclaimed = Filters.or(Filters.eq(CLAIM_KEY, null), Filters.lt(UPDATED_KEY, expirationDate));
+		UpdateResult result = uploads.updateOne(Filters.and(Filters.eq(ID_KEY, fileId), condition, isUnclaimed),
+				Updates.combine(Updates.set(CLAIM_KEY, claimId), Updates.set(UPDATED_KEY, new Date())));
+		if (result.getMatchedCount() == 0) {
+			throw createConflictException(uploads, fileId);
+		}
+		return claimId;
+	}
+
+	private static void renew(MongoCollection<Document> uploads, ObjectId fileId, ObjectId claimId) {
+		UpdateResult result = uploads.updateOne(Filters.and(Filters.eq(ID_KEY, fileId), Filters.eq(CLAIM_KEY, claimId)), Updates.set(UPDATED_KEY, new Date()));
+		if (result.getMatchedCount() == 0) {
+			throw createConflictException(uploads, fileId);
+		}
+	}
+
+	private static void release(MongoCollection<Document> uploads, ObjectId fileId, ObjectId claimId) {
+		uploads.updateOne(Filters.and(Filters.eq(ID_KEY, fileId), Filters.eq(CLAIM_KEY, claimId)), Updates.unset(CLAIM_KEY));
+	}
+
+	private static MongoDBFileUploadConflictException createConflictException(MongoCollection<Document> uploads, ObjectId fileId) {
+		Document upload = uploads.find(Filters.eq(ID_KEY, fileId)).first();
+		if (upload == null) {
+			throw new ResourceNotFoundException("The upload '" + fileId + "' does not exist");
+		}
+		return new MongoDBFileUploadConflictException(fileId.toHexString(), upload.getLong(LENGTH_KEY));
+	}
+
+	private static Document getUpload(MongoClient client, BaSyxMongoDBConfiguration config, String uploadId, String idShortPath) {
+		if (!ObjectId.isValid(uploadId)) {
+			throw new ResourceNotFoundException("The upload '" + uploadId + "' does not exist");
+		}
+
+		Document upload = getUploadCollection(client, config).find(Filters.eq(ID_KEY, new ObjectId(uploadId))).first();
+		if (upload == null || !idShortPath.equals(upload.getString(ID_SHORT_PATH_KEY))) {
+			throw new ResourceNotFoundException("The upload '" + uploadId + "' does not exist for the submodel element '" + idShortPath + "'");
+		}
+		return upload;
+	}
+
+	/**
+	 * Copies the content of the last chunk into the buffer, if the chunk has not
+	 * been completed by the previous content
+	 * 
+	 * @return the number of bytes copied into the buffer
+	 */
+	private static int readIncompleteChunk(MongoCollection<Document> chunks, ObjectId fileId, int chunkIndex, byte[] buffer, int expectedLength) {
+		if (expectedLength == 0) {
+			return 0;
+		}
+
+		Document chunk = chunks.find(Filters.and(Filters.eq(FILES_ID_KEY, fileId), Filters.eq(CHUNK_INDEX_KEY, chunkIndex))).first();
+		byte[] data = chunk == null ? new byte[0] : chunk.get(DATA_KEY, Binary.class).getData();
+		if (data.length != expectedLength) {
+			throw new ProviderException("The stored content of the upload '" + fileId + "' is inconsistent");
+		}
+		System.arraycopy(data, 0, buffer, 0, data.length);
+		return data.length;
+	}
+
+	private static void writeChunk(MongoCollection<Document> chunks, ObjectId fileId, int chunkIndex, byte[] buffer, int length) {
+		byte[] data = new byte[length];
+		System.arraycopy(buffer, 0, data, 0, length);
+		Document chunk = new Document(FILES_ID_KEY, fileId).append(CHUNK_INDEX_KEY, chunkIndex).append(DATA_KEY, new Binary(data));
+		chunks.replaceOne(Filters.and(Filters.eq(FILES_ID_KEY, fileId), Filters.eq(CHUNK_INDEX_KEY, chunkIndex)), chunk, new ReplaceOptions().upsert(true));
+	}
+
+	private static long updateLength(MongoCollection<Document> uploads, ObjectId fileId, ObjectId claimId, long length) {
+		UpdateResult result = uploads.updateOne(Filters.and(Filters.eq(ID_KEY, fileId), Filters.eq(CLAIM_KEY, claimId)),
+				Updates.combine(Updates.set(LENGTH_KEY, length), Updates.set(UPDATED_KEY, new Date())));
+		if (result.getMatchedCount() == 0) {
+			throw createConflictException(uploads, fileId);
+		}
+		return length;
+	}
+
+	private static MongoCollection<Document> getUploadCollection(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return getDatabase(client, config).getCollection(config.getFileCollection() + UPLOADS_SUFFIX);
+	}
+
+	private static MongoCollection<Document> getFileCollection(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return getDatabase(client, config).getCollection(config.getFileCollection() + FILES_SUFFIX);
+	}
+
+	private static MongoCollection<Document> getChunkCollection(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return getDatabase(client, config).getCollection(config.getFileCollection() + CHUNKS_SUFFIX);
+	}
+
+	private static MongoDatabase getDatabase(MongoClient client, BaSyxMongoDBConfiguration config) {
+		return client.getDatabase(config.getDatabase());
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import org.eclipse.basyx.aas.metamodel.map.descriptor.AASDescriptor;
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Key;
+import org.eclipse.basyx.submodel.metamodel.map.reference.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import com.mongodb.client.MongoClient;
+
+/**
+ * Creates the indexes of the collections configured in a
+ * {@link BaSyxMongoDBConfiguration}. Creating an index that already exists has
+ * no effect, so that the indexes can be ensured on every startup. The indexes
+ * are created on every call, so that collections that have been dropped in the
+ * meantime get their indexes again. Index creation can be disabled in the
+ * configuration, e.g. if the indexes are managed by the database
+ * administrator.
+ * 
+ * @author fischer
+ *
+ */
+public class MongoDBIndexManager {
+	private static Logger logger = LoggerFactory.getLogger(MongoDBIndexManager.class);
+
+	public static final String IDENTIFICATION_ID = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+	public static final String ASSET_IDENTIFICATION_ID = AASDescriptor.ASSET + "." + IDENTIFICATION_ID;
+	public static final String PARENT_KEY_VALUES = Referable.PARENT + "." + Reference.KEY + "." + Key.VALUE;
+
+	private static final String GRIDFS_FILES_SUFFIX = ".files";
+	private static final String GRIDFS_CHUNKS_SUFFIX = ".chunks";
+
+	private final BaSyxMongoDBConfiguration config;
+	private final MongoOperations mongoOps;
+
+	public MongoDBIndexManager(BaSyxMongoDBConfiguration config, MongoClient client) {
+		this.config = config;
+		this.mongoOps = new MongoTemplate(client, config.getDatabase());
+	}
+
+	/**
+	 * Ensures the indexes of the AAS, submodel and file collections
+	 */
+	public void ensureAASServerIndexes() {
+		if (!config.isIndexCreationEnabled()) {
+			return;
+		}
+
+		ensureUniqueIndex(config.getAASCollection(), IDENTIFICATION_ID);
+		ensureIndex(config.getAASCollection(), Referable.IDSHORT);
+
+		ensureUniqueIndex(config.getSubmodelCollection(), IDENTIFICATION_ID);
+		ensureIndex(config.getSubmodelCollection(), Referable.IDSHORT);
+		ensureIndex(config.getSubmodelCollection(), PARENT_KEY_VALUES);
+
+		ensureFileIndexes(config.getFileCollection());
+	}
+
+	/**
+	 * Ensures the indexes of the registry collection
+	 */
+	public void ensureRegistryIndexes() {
+		if (!config.isIndexCreationEnabled()) {
+			return;
+		}
+
+		ensureUniqueIndex(config.getRegistryCollection(), IDENTIFICATION_ID);
+		ensureIndex(config.getRegistryCollection(), ASSET_IDENTIFICATION_ID);
+		ensureIndex(config.getRegistryCollection(), Referable.IDSHORT);
+	}
+
+	/**
+	 * GridFS buckets consist of a files and a chunks collection. These are the
+	 * indexes the MongoDB drivers create for the first upload, which are missing
+	 * if the collections have been created in another way.
+	 */
+	private void ensureFileIndexes(String bucketName) {
+		String filesCollection = bucketName + GRIDFS_FILES_SUFFIX;
+		ensureIndex(filesCollection, new Index().on("filename", Direction.ASC).on("uploadDate", Direction.ASC));
+
+		String chunksCollection = bucketName + GRIDFS_CHUNKS_SUFFIX;
+		ensureIndex(chunksCollection, new Index().on("files_id", Direction.ASC).on("n", Direction.ASC).unique());
+
+		// Used for discarding expired resumable uploads
+		ensureIndex(bucketName + MongoDBFileUploadHelper.UPLOADS_SUFFIX, MongoDBFileUploadHelper.UPDATED_KEY);
+	}
+
+	/**
+	 * Creates a unique index on the given field. Objects without the field are not
+	 * indexed. If the collection already contains duplicates, a non-unique index
+	 * is created instead, so that lookups are still fast.
+	 */
+	private void ensureUniqueIndex(String collectionName, String fieldPath) {
+		try {
+			mongoOps.indexOps(collectionName).ensureIndex(new Index().on(fieldPath, Direction.ASC).unique().sparse());
+		} catch (DuplicateKeyException e) {
+			logger.warn("Collection '{}' contains duplicate values of '{}'; Creating a non-unique index instead", collectionName, fieldPath);
+			ensureIndex(collectionName, fieldPath);
+		} catch (DataAccessException e) {
+			logger.warn("Could not create unique index on '{}' of collection '{}': {}", fieldPath, collectionName, e.getMessage());
+		}
+	}
+
+	private void ensureIndex(String collectionName, String fieldPath) {
+		ensureIndex(collectionName, new Index().on(fieldPath, Direction.ASC));
+	}
+
+	private void ensureIndex(String collectionName, Index index) {
+		try {
+			mongoOps.indexOps(collectionName).ensureIndex(index);
+		} catch (DataAccessException e) {
+			logger.warn("Could not create index {} of collection '{}': {}", index.getIndexKeys(), collectionName, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.components.internal.mongodb;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.eclipse.basyx.vab.exception.provider.ProviderException;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Decodes BSON documents directly into the map-based BaSyx metamodel. Compared
+ * to the generic mapping of Spring Data, no intermediate documents are created
+ * and the internal attributes <i>_id</i> and
+ * {@value MongoDBBaSyxStorageAPI#REVISION_KEY} are skipped while reading.
+ * 
+ * The type hints written by Spring Data are respected, so that the decoded
+ * objects are of the same types as the objects read by Spring Data. Encoding is
+ * delegated to Spring Data to keep the stored format unchanged.
+ * 
+ * @author fischer
+ *
+ * @param <T>
+ *            the map-based type of the decoded objects
+ */
+public class MongoDBMetamodelCodec<T> implements Codec<T> {
+	private static final String TYPE_HINT_KEY = "_class";
+	private static final String ID_KEY = "_id";
+
+	// Constructors of the map types, identified by their class names. Empty, if
+	// the class can not be instantiated as map.
+	private static Map<String, Optional<Constructor<?>>> constructors = new ConcurrentHashMap<>();
+
+	private final Class<T> type;
+	private final MongoConverter converter;
+	private final CodecRegistry registry;
+	private final BsonTypeClassMap bsonTypeClassMap = new BsonTypeClassMap();
+
+	/**
+	 * @param type
+	 *            the map-based type of the decoded objects
+	 * @param converter
+	 *            the converter used for encoding
+	 * @param registry
+	 *            the registry used for values that are not part of the metamodel,
+	 *            e.g. dates
+	 */
+	public MongoDBMetamodelCodec(Class<T> type, MongoConverter converter, CodecRegistry registry) {
+		this.type = type;
+		this.converter = converter;
+		this.registry = registry;
+	}
+
+	@Override
+	public T decode(BsonReader reader, DecoderContext decoderContext) {
+		return type.cast(readDocument(reader, decoderContext, type));
+	}
+
+	@Override
+	public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+		Document document = new Document();
+		converter.write(value, document);
+		registry.get(Document.class).encode(writer, document, encoderContext);
+	}
+
+	@Override
+	public Class<T> getEncoderClass() {
+		return type;
+	}
+
+	/**
+	 * Reads a document as map of the hinted type, if it is a subtype of the
+	 * required type. Otherwise, the map is of the required type or, if only a map
+	 * is required, a plain map.
+	 */
+	private Map<String, Object> readDocument(BsonReader reader, DecoderContext decoderContext, Class<?> requiredType) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		String typeHint = null;
+
+		reader.readStartDocument();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			String name = reader.readName();
+			if (TYPE_HINT_KEY.equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+				typeHint = reader.readString();
+			} else if (ID_KEY.equals(name) || MongoDBBaSyxStorageAPI.REVISION_KEY.equals(name)) {
+				reader.skipValue();
+			} else {
+				values.put(name, readValue(reader, decoderContext));
+			}
+		}
+		reader.readEndDocument();
+
+		// The type hint is written after the values, so that the map can only be
+		// created after reading them
+		if (typeHint == null && requiredType == Map.class) {
+			return values;
+		}
+		Map<String, Object> map = createMap(typeHint, requiredType);
+		map.putAll(values);
+		return map;
+	}
+
+	private Object readValue(BsonReader reader, DecoderContext decoderContext) {
+		BsonType bsonType = reader.getCurrentBsonType();
+		switch (bsonType) {
+		case DOCUMENT:
+			return readDocument(reader, decoderContext, Map.class);
+		case ARRAY:
+			return readArray(reader, decoderContext);
+		case STRING:
+			return reader.readString();
+		case INT32:
+			return reader.readInt32();
+		case INT64:
+			return reader.readInt64();
+		case DOUBLE:
+			return reader.readDouble();
+		case BOOLEAN:
+			return reader.readBoolean();
+		case DECIMAL128:
+			return reader.readDecimal128().bigDecimalValue();
+		case NULL:
+			reader.readNull();
+			return null;
+		default:
+			return registry.get(bsonTypeClassMap.get(bsonType)).decode(reader, decoderContext);
+		}
+	}
+
+	private List<Object> readArray(BsonReader reader, DecoderContext decoderContext) {
+		List<Object> values = new ArrayList<>();
+		reader.readStartArray();
+		while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+			values.add(readValue(reader, decoderContext));
+		}
+		reader.readEndArray();
+		return values;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> createMap(String typeHint, Class<?> requiredType) {
+		Optional<Constructor<?>> constructor = typeHint == null ? Optional.empty() : getConstructor(typeHint).filter(hinted -> requiredType.isAssignableFrom(hinted.getDeclaringClass()));
+		if (constructor.isEmpty()) {
+			if (requiredType == Map.class) {
+				return new LinkedHashMap<>();
+			}
+			constructor = getConstructor(requiredType.getName());
+		}
+
+		try {
+			return (Map<String, Object>) constructor.orElseThrow(() -> new ProviderException("Type '" + requiredType.getName() + "' can not be created as map.")).newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new ProviderException("Could not create an instance of type '" + requiredType.getName() + "'.", e);
+		}
+	}
+
+	private Optional<Constructor<?>> getConstructor(String className) {
+		return constructors.computeIfAbsent(className, name -> {
+			try {
+				Class<?> mapType = Class.forName(name, false, type.getClassLoader());
+				if (!Map.class.isAssignableFrom(mapType)) {
+					return Optional.empty();
+				}
+				Constructor<?> constructor = mapType.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return Optional.of(constructor);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				return Optional.empty();
+			}
+		});
+	}
+}
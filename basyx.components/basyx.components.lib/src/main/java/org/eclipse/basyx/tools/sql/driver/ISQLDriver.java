@@ -25,6 +25,7 @@
 package org.eclipse.basyx.tools.sql.driver;
 
 import java.sql.ResultSet;
+import java.util.List;
 
 /**
  * Database access interface
@@ -39,6 +40,12 @@ public interface ISQLDriver {
 	 */
 	public ResultSet sqlQuery(String queryString);
 
+	/**
+	 * Execute a SQL query as prepared statement, whose place holders (?) are
+	 * bound to the given parameters in their order
+	 */
+	public ResultSet sqlQuery(String queryString, List<Object> parameters);
+
 	/**
 	 * Execute a SQL update
 	 */
@@ -25,9 +25,11 @@
 package org.eclipse.basyx.tools.sql.driver;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 import javax.sql.rowset.CachedRowSet;
 import javax.sql.rowset.RowSetFactory;
@@ -136,6 +138,32 @@ public class SQLDriver implements ISQLDriver {
 		return rowSet;
 	}
 
+	/**
+	 * Execute a SQL query as prepared statement, so that the parameters do not have
+	 * to be escaped
+	 */
+	@Override
+	public CachedRowSet sqlQuery(String queryString, List<Object> parameters) {
+		CachedRowSet rowSet = null;
+
+		try {
+			openConnection();
+
+			try (PreparedStatement statement = connect.prepareStatement(queryString)) {
+				for (int i = 0; i < parameters.size(); i++) {
+					statement.setObject(i + 1, parameters.get(i));
+				}
+				rowSet = getCachedRowSet(statement.executeQuery());
+			}
+		} catch (SQLException e) {
+			logger.error("sqlQuery failed", e);
+		} finally {
+			closeConnection();
+		}
+
+		return rowSet;
+	}
+
 	/**
 	 * Execute a SQL update
 	 */
@@ -24,20 +24,60 @@
  ******************************************************************************/
 package org.eclipse.basyx.regression.components.internal.mongodb;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPI;
 import org.eclipse.basyx.components.internal.mongodb.MongoDBBaSyxStorageAPIFactory;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBDocumentCache;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileDownload;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileHelper;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileUploadConflictException;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBFileUploadHelper;
 import org.eclipse.basyx.extensions.internal.storage.BaSyxStorageAPI;
+import org.eclipse.basyx.submodel.metamodel.api.identifier.IdentifierType;
 import org.eclipse.basyx.submodel.metamodel.map.Submodel;
+import org.eclipse.basyx.submodel.metamodel.map.identifier.Identifier;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Identifiable;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.File;
+import org.eclipse.basyx.submodel.metamodel.map.submodelelement.dataelement.property.Property;
 import org.eclipse.basyx.testsuite.regression.extensions.storage.BaSyxStorageAPISuite;
+import org.eclipse.basyx.vab.exception.provider.MalformedRequestException;
 import org.junit.After;
+import org.junit.Test;
 import org.springframework.data.mongodb.core.MongoOperations;
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.gridfs.GridFSBucket;
 
 public class TestMongoDBBaSyxStorageAPI extends BaSyxStorageAPISuite {
 	private final static String connectionString = "mongodb://localhost:27017";
@@ -86,6 +126,321 @@ public class TestMongoDBBaSyxStorageAPI extends BaSyxStorageAPISuite {
 		assertFalse(mongoOps.collectionExists(testSubmodelCollectioName));
 	}
 
+	@Test
+	public void concurrentModificationIsNotLost() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		mongoDBStorageAPI.createOrUpdate(testSubmodel);
+		String key = testSubmodel.getIdentification().getId();
+		AtomicBoolean isFirstAttempt = new AtomicBoolean(true);
+
+		mongoDBStorageAPI.modify(key, submodel -> {
+			if (isFirstAttempt.getAndSet(false)) {
+				// Simulates a concurrent write between reading and writing back
+				mongoDBStorageAPI.setField(key, Submodel.SUBMODELELEMENT + ".concurrentProperty", new Property("concurrentProperty", 1), null);
+			}
+			submodel.addSubmodelElement(new Property("modifiedProperty", 2));
+			return submodel;
+		});
+
+		Submodel result = mongoDBStorageAPI.retrieve(key);
+		assertTrue(result.getSubmodelElements().containsKey("concurrentProperty"));
+		assertTrue(result.getSubmodelElements().containsKey("modifiedProperty"));
+	}
+
+	@Test
+	public void createOrUpdateReplacesExistingObject() {
+		testSubmodel.addSubmodelElement(new Property("firstWrite", 1));
+		storageAPI.createOrUpdate(testSubmodel);
+		testSubmodel.getSubmodelElements().remove("firstWrite");
+		testSubmodel.addSubmodelElement(new Property("secondWrite", 2));
+		storageAPI.createOrUpdate(testSubmodel);
+
+		MongoOperations mongoOps = (MongoOperations) storageAPI.getStorageConnection();
+		assertEquals(1, mongoOps.getCollection(testSubmodelCollectioName).countDocuments());
+		Submodel stored = storageAPI.retrieve(testSubmodel.getIdentification().getId());
+		assertFalse(stored.getSubmodelElements().containsKey("firstWrite"));
+		assertTrue(stored.getSubmodelElements().containsKey("secondWrite"));
+	}
+
+	@Test
+	public void retrieveKeysByFieldValues() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		mongoDBStorageAPI.createOrUpdate(testSubmodel);
+		String key = testSubmodel.getIdentification().getId();
+		String idShort = testSubmodel.getIdShort();
+		String keyPath = Identifiable.IDENTIFICATION + "." + Identifier.ID;
+
+		Map<String, String> keysByIdShort = mongoDBStorageAPI.retrieveKeysByFieldValues(where(keyPath).is(key), Referable.IDSHORT, Arrays.asList("notExisting", idShort));
+		Map<String, String> keysOfOtherObjects = mongoDBStorageAPI.retrieveKeysByFieldValues(where(keyPath).is("otherKey"), Referable.IDSHORT, Arrays.asList(idShort));
+
+		assertEquals(Collections.singletonMap(idShort, key), keysByIdShort);
+		assertTrue(keysOfOtherObjects.isEmpty());
+	}
+
+	@Test
+	public void decodedObjectsEqualObjectsReadBySpringData() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		testSubmodel.addSubmodelElement(new Property("decodedProperty", 1.5));
+		mongoDBStorageAPI.createOrUpdate(testSubmodel);
+		String key = testSubmodel.getIdentification().getId();
+
+		MongoOperations mongoOps = (MongoOperations) storageAPI.getStorageConnection();
+		Submodel readBySpringData = mongoOps.findOne(query(where(Identifiable.IDENTIFICATION + "." + Identifier.ID).is(key)), Submodel.class, testSubmodelCollectioName);
+
+		assertEquals(mongoDBStorageAPI.handleMongoDbIdAttribute(readBySpringData), mongoDBStorageAPI.retrieve(key));
+	}
+
+	@Test
+	public void retrievePageFollowsCursor() {
+		MongoDBBaSyxStorageAPI<Submodel> mongoDBStorageAPI = (MongoDBBaSyxStorageAPI<Submodel>) storageAPI;
+		for (int i = 0; i < 3; i++) {
+			mongoDBStorageAPI.createOrUpdate(new Submodel("pagedSubmodel" + i, new Identifier(IdentifierType.CUSTOM, "pagedSubmodelId" + i)));
+		}
+
+		List<String> idShorts = new ArrayList<>();
+		String cursor = mongoDBStorageAPI.retrievePage(null, 2, null, submodel -> idShorts.add(submodel.getIdShort()));
+		assertEquals(Arrays.asList("pagedSubmodel0", "pagedSubmodel1"), idShorts);
+
+		cursor = mongoDBStorageAPI.retrievePage(null, 2, cursor, submodel -> idShorts.add(submodel.getIdShort()));
+		assertEquals(Arrays.asList("pagedSubmodel0", "pagedSubmodel1", "pagedSubmodel2"), idShorts);
+		assertNull(cursor);
+	}
+
+	@Test
+	public void cachedObjectsReflectUpdates() {
+		BaSyxMongoDBConfiguration cacheConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		cacheConfig.enableCache();
+		MongoDBBaSyxStorageAPI<Submodel> cachedStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, cacheConfig, MongoClients.create(connectionString));
+		String key = testSubmodel.getIdentification().getId();
+		cachedStorageAPI.createOrUpdate(testSubmodel);
+
+		// Modifications of retrieved objects must not affect the cache
+		cachedStorageAPI.retrieve(key).addSubmodelElement(new Property("localProperty", 1));
+		assertFalse(cachedStorageAPI.retrieve(key).getSubmodelElements().containsKey("localProperty"));
+
+		cachedStorageAPI.setField(key, Submodel.SUBMODELELEMENT + ".updatedProperty", new Property("updatedProperty", 2), null);
+		assertTrue(cachedStorageAPI.retrieve(key).getSubmodelElements().containsKey("updatedProperty"));
+		MongoDBDocumentCache.closeAll();
+	}
+
+	@Test
+	public void identicalFilesAreStoredOnce() throws IOException {
+		BaSyxMongoDBConfiguration deduplicationConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		deduplicationConfig.enableFileDeduplication();
+		MongoClient client = MongoClients.create(connectionString);
+		MongoDBBaSyxStorageAPI<Submodel> deduplicatingStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, deduplicationConfig, client);
+		byte[] content = "datasheet".getBytes(StandardCharsets.UTF_8);
+		Submodel firstSubmodel = createSubmodelWithFile("firstDeduplicatedSubmodel");
+		Submodel secondSubmodel = createSubmodelWithFile("secondDeduplicatedSubmodel");
+
+		uploadFile(deduplicatingStorageAPI, firstSubmodel, content);
+		uploadFile(deduplicatingStorageAPI, secondSubmodel, content);
+		MongoDBFileDownload firstDownload = openFileDownload(deduplicatingStorageAPI, firstSubmodel);
+		MongoDBFileDownload secondDownload = openFileDownload(deduplicatingStorageAPI, secondSubmodel);
+		assertEquals(firstDownload.getFileName(), secondDownload.getFileName());
+
+		ByteArrayOutputStream downloaded = new ByteArrayOutputStream();
+		secondDownload.transferTo(downloaded);
+		assertArrayEquals(content, downloaded.toByteArray());
+
+		// The blob is kept as long as it is referenced
+		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, deduplicationConfig);
+		deduplicatingStorageAPI.deleteFile(firstSubmodel, "deduplicatedFile");
+		assertNotNull(MongoDBFileHelper.findFile(bucket, firstDownload.getFileName()));
+		deduplicatingStorageAPI.deleteFile(secondSubmodel, "deduplicatedFile");
+		assertNull(MongoDBFileHelper.findFile(bucket, firstDownload.getFileName()));
+	}
+
+	@Test
+	public void concurrentlyStoredIdenticalFilesShareOneBlob() throws Exception {
+		BaSyxMongoDBConfiguration deduplicationConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		deduplicationConfig.enableFileDeduplication();
+		deduplicationConfig.setFileCollection("concurrentFiles");
+		MongoClient client = MongoClients.create(connectionString);
+		MongoDBFileHelper.deleteAllFiles(client, deduplicationConfig, true);
+		MongoDBBaSyxStorageAPI<Submodel> deduplicatingStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, deduplicationConfig, client);
+		byte[] content = "concurrent datasheet".getBytes(StandardCharsets.UTF_8);
+		List<Submodel> submodels = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			submodels.add(createSubmodelWithFile("concurrentSubmodel" + i));
+		}
+
+		runConcurrently(submodels, submodel -> uploadFile(deduplicatingStorageAPI, submodel, content));
+
+		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, deduplicationConfig);
+		String blobName = openFileDownload(deduplicatingStorageAPI, submodels.get(0)).getFileName();
+		assertEquals(1, bucket.find().into(new ArrayList<>()).size());
+		for (Submodel submodel : submodels) {
+			assertEquals(blobName, openFileDownload(deduplicatingStorageAPI, submodel).getFileName());
+		}
+
+		runConcurrently(submodels, submodel -> deduplicatingStorageAPI.deleteFile(submodel, "deduplicatedFile"));
+
+		assertNull(MongoDBFileHelper.findFile(bucket, blobName));
+		assertEquals(0, client.getDatabase(deduplicationConfig.getDatabase()).getCollection("concurrentFiles" + MongoDBFileHelper.BLOBS_SUFFIX).countDocuments());
+	}
+
+	private void runConcurrently(List<Submodel> submodels, Consumer<Submodel> operation) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(submodels.size());
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (Submodel submodel : submodels) {
+				results.add(executor.submit(() -> {
+					start.await();
+					operation.accept(submodel);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void legacyFilesAreMigrated() {
+		BaSyxMongoDBConfiguration migrationConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		migrationConfig.setFileCollection("legacyFiles");
+		MongoClient client = MongoClients.create(connectionString);
+		MongoDBBaSyxStorageAPI<Submodel> migratingStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, migrationConfig, client);
+		Submodel submodel = createSubmodelWithFile("legacySubmodel");
+		migratingStorageAPI.createOrUpdate(submodel);
+
+		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, migrationConfig);
+		bucket.drop();
+		File file = File.createAsFacade((Map<String, Object>) submodel.getSubmodelElement("deduplicatedFile"));
+		String legacyFileName = MongoDBFileHelper.legacyFileName("legacySubmodel", file, "deduplicatedFile");
+		bucket.uploadFromStream(legacyFileName, new ByteArrayInputStream("datasheet".getBytes(StandardCharsets.UTF_8)));
+
+		MongoDBFileHelper.migrateLegacyFiles(client, migrationConfig);
+
+		assertNull(MongoDBFileHelper.findFile(bucket, legacyFileName));
+		assertNotNull(MongoDBFileHelper.findFile(bucket, MongoDBFileHelper.constructFileName("legacySubmodel", file, "deduplicatedFile")));
+		assertEquals(9, openFileDownload(migratingStorageAPI, submodel).getLength());
+		bucket.drop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void failedMigrationOfLegacyFilesIsRetried() {
+		BaSyxMongoDBConfiguration migrationConfig = createTestConfig(connectionString, testSubmodelCollectioName);
+		migrationConfig.setFileCollection("retriedLegacyFiles");
+		MongoClient closedClient = MongoClients.create(connectionString);
+		closedClient.close();
+		try {
+			MongoDBFileHelper.migrateLegacyFiles(closedClient, migrationConfig);
+			fail();
+		} catch (IllegalStateException e) {
+			// The migration fails, since the client has been closed
+		}
+
+		MongoClient client = MongoClients.create(connectionString);
+		MongoDBBaSyxStorageAPI<Submodel> migratingStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, migrationConfig, client);
+		Submodel submodel = createSubmodelWithFile("retriedLegacySubmodel");
+		migratingStorageAPI.createOrUpdate(submodel);
+		GridFSBucket bucket = MongoDBFileHelper.getGridFSBucket(client, migrationConfig);
+		bucket.drop();
+		File file = File.createAsFacade((Map<String, Object>) submodel.getSubmodelElement("deduplicatedFile"));
+		String legacyFileName = MongoDBFileHelper.legacyFileName("retriedLegacySubmodel", file, "deduplicatedFile");
+		bucket.uploadFromStream(legacyFileName, new ByteArrayInputStream("datasheet".getBytes(StandardCharsets.UTF_8)));
+
+		MongoDBFileHelper.migrateLegacyFiles(client, migrationConfig);
+
+		assertNull(MongoDBFileHelper.findFile(bucket, legacyFileName));
+		assertNotNull(MongoDBFileHelper.findFile(bucket, MongoDBFileHelper.constructFileName("retriedLegacySubmodel", file, "deduplicatedFile")));
+		bucket.drop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void fileIsUploadedInResumablePieces() throws IOException {
+		MongoClient client = MongoClients.create(connectionString);
+		MongoDBBaSyxStorageAPI<Submodel> fileStorageAPI = new MongoDBBaSyxStorageAPI<Submodel>(testSubmodelCollectioName, Submodel.class, config, client);
+		Submodel submodel = createSubmodelWithFile("resumableUploadSubmodel");
+		File file = File.createAsFacade((Map<String, Object>) submodel.getSubmodelElement("deduplicatedFile"));
+		byte[] content = new byte[600 * 1024];
+		new Random(42).nextBytes(content);
+
+		String uploadId = MongoDBFileUploadHelper.startUpload(client, config, "resumableUploadSubmodel", file, "deduplicatedFile");
+		long offset = appendPiece(client, uploadId, content, 0, 100 * 1024);
+		offset = appendPiece(client, uploadId, content, offset, 300 * 1024);
+		assertEquals(400 * 1024, MongoDBFileUploadHelper.getOffset(client, config, uploadId, "deduplicatedFile"));
+
+		try {
+			appendPiece(client, uploadId, content, 0, 100);
+			fail();
+		} catch (MalformedRequestException e) {
+			// A piece has to be appended at the stored offset
+		}
+
+		appendPiece(client, uploadId, content, offset, (int) (content.length - offset));
+		MongoDBFileUploadHelper.finish(client, config, uploadId, "deduplicatedFile");
+
+		ByteArrayOutputStream downloaded = new ByteArrayOutputStream();
+		openFileDownload(fileStorageAPI, submodel).transferTo(downloaded);
+		assertArrayEquals(content, downloaded.toByteArray());
+		fileStorageAPI.deleteFile(submodel, "deduplicatedFile");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void concurrentAppendIsRejected() {
+		MongoClient client = MongoClients.create(connectionString);
+		Submodel submodel = createSubmodelWithFile("concurrentUploadSubmodel");
+		File file = File.createAsFacade((Map<String, Object>) submodel.getSubmodelElement("deduplicatedFile"));
+		byte[] content = new byte[1024];
+		new Random(42).nextBytes(content);
+		String uploadId = MongoDBFileUploadHelper.startUpload(client, config, "concurrentUploadSubmodel", file, "deduplicatedFile");
+
+		// The second append is started while the first one is receiving its content
+		AtomicReference<RuntimeException> concurrentFailure = new AtomicReference<>();
+		InputStream piece = new ByteArrayInputStream(content) {
+			@Override
+			public synchronized int read(byte[] buffer, int offset, int length) {
+				if (concurrentFailure.get() == null) {
+					try {
+						appendPiece(client, uploadId, content, 0, content.length);
+						concurrentFailure.set(new IllegalStateException("The concurrent append has not been rejected"));
+					} catch (MongoDBFileUploadConflictException e) {
+						concurrentFailure.set(e);
+					}
+				}
+				return super.read(buffer, offset, length);
+			}
+		};
+
+		assertEquals(content.length, MongoDBFileUploadHelper.append(client, config, uploadId, "deduplicatedFile", 0, piece));
+		assertTrue(concurrentFailure.get() instanceof MongoDBFileUploadConflictException);
+		MongoDBFileUploadHelper.abort(client, config, uploadId, "deduplicatedFile");
+	}
+
+	private long appendPiece(MongoClient client, String uploadId, byte[] content, long offset, int length) {
+		InputStream piece = new ByteArrayInputStream(content, (int) offset, length);
+		return MongoDBFileUploadHelper.append(client, config, uploadId, "deduplicatedFile", offset, piece);
+	}
+
+	private Submodel createSubmodelWithFile(String submodelId) {
+		Submodel submodel = new Submodel(submodelId, new Identifier(IdentifierType.CUSTOM, submodelId));
+		File file = new File("text/plain");
+		file.setIdShort("deduplicatedFile");
+		submodel.addSubmodelElement(file);
+		return submodel;
+	}
+
+	private void uploadFile(MongoDBBaSyxStorageAPI<Submodel> storageAPI, Submodel submodel, byte[] content) {
+		storageAPI.writeFile("deduplicatedFile", submodel.getIdentification().getId(), new ByteArrayInputStream(content), submodel.getSubmodelElement("deduplicatedFile"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private MongoDBFileDownload openFileDownload(MongoDBBaSyxStorageAPI<Submodel> storageAPI, Submodel submodel) {
+		return storageAPI.openFileDownload("deduplicatedFile", submodel.getIdentification().getId(), (Map<String, Object>) submodel.getSubmodelElement("deduplicatedFile"));
+	}
+
 	private void triggerCollectionCreation() {
 		this.storageAPI.createOrUpdate(testSubmodel);
 	}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBClientManager;
+import org.junit.Test;
+
+import com.mongodb.client.MongoClient;
+
+/**
+ * Tests the reference counting of the shared clients
+ * 
+ * @author fischer
+ *
+ */
+public class TestMongoDBClientManager {
+	private static final String CONNECTION_URL = "mongodb://localhost:27017/?appName=clientManagerTest";
+	private static final String UNCOUNTED_CONNECTION_URL = "mongodb://localhost:27017/?appName=uncountedClientManagerTest";
+
+	@Test
+	public void clientIsSharedUntilLastRelease() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl(CONNECTION_URL);
+
+		MongoClient firstClient = MongoDBClientManager.acquire(config);
+		MongoClient secondClient = MongoDBClientManager.acquire(config);
+		assertSame(firstClient, secondClient);
+		assertEquals(2, MongoDBClientManager.getReferenceCount(CONNECTION_URL));
+
+		MongoDBClientManager.release(firstClient);
+		assertEquals(1, MongoDBClientManager.getReferenceCount(CONNECTION_URL));
+
+		MongoDBClientManager.release(secondClient);
+		assertEquals(0, MongoDBClientManager.getReferenceCount(CONNECTION_URL));
+
+		MongoClient newClient = MongoDBClientManager.acquire(config);
+		assertNotSame(firstClient, newClient);
+		MongoDBClientManager.release(newClient);
+	}
+
+	@Test
+	public void uncountedClientIsNotClosedOnRelease() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setConnectionUrl(UNCOUNTED_CONNECTION_URL);
+
+		MongoClient uncountedClient = MongoDBClientManager.getClient(config);
+		assertEquals(0, MongoDBClientManager.getReferenceCount(UNCOUNTED_CONNECTION_URL));
+
+		MongoClient countedClient = MongoDBClientManager.acquire(config);
+		assertSame(uncountedClient, countedClient);
+		MongoDBClientManager.release(countedClient);
+
+		assertSame(uncountedClient, MongoDBClientManager.getClient(config));
+	}
+}
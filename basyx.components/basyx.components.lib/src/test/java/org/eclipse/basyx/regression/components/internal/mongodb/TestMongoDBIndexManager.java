@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (C) 2023 the Eclipse BaSyx Authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * SPDX-License-Identifier: MIT
+ ******************************************************************************/
+package org.eclipse.basyx.regression.components.internal.mongodb;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.basyx.components.configuration.BaSyxMongoDBConfiguration;
+import org.eclipse.basyx.components.internal.mongodb.MongoDBIndexManager;
+import org.eclipse.basyx.submodel.metamodel.map.qualifier.Referable;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Tests the creation of indexes by the {@link MongoDBIndexManager}
+ * 
+ * @author fischer
+ *
+ */
+public class TestMongoDBIndexManager {
+	private static final String REGISTRY_COLLECTION = "testindexregistry";
+
+	private BaSyxMongoDBConfiguration config = createTestConfig();
+	private MongoClient client = MongoClients.create(config.getConnectionUrl());
+	private MongoTemplate mongoOps = new MongoTemplate(client, config.getDatabase());
+
+	private static BaSyxMongoDBConfiguration createTestConfig() {
+		BaSyxMongoDBConfiguration config = new BaSyxMongoDBConfiguration();
+		config.setRegistryCollection(REGISTRY_COLLECTION);
+		return config;
+	}
+
+	@After
+	public void cleanUp() {
+		mongoOps.dropCollection(REGISTRY_COLLECTION);
+		client.close();
+	}
+
+	@Test
+	public void registryIndexesAreCreated() {
+		new MongoDBIndexManager(config, client).ensureRegistryIndexes();
+
+		List<IndexInfo> indexes = mongoOps.indexOps(REGISTRY_COLLECTION).getIndexInfo();
+
+		assertTrue(indexes.stream().anyMatch(index -> index.isIndexForFields(List.of(MongoDBIndexManager.IDENTIFICATION_ID)) && index.isUnique()));
+		assertTrue(indexes.stream().anyMatch(index -> index.isIndexForFields(List.of(MongoDBIndexManager.ASSET_IDENTIFICATION_ID))));
+		assertTrue(indexes.stream().anyMatch(index -> index.isIndexForFields(List.of(Referable.IDSHORT))));
+	}
+
+	@Test
+	public void indexesAreCreatedAgainAfterCollectionHasBeenDropped() {
+		MongoDBIndexManager indexManager = new MongoDBIndexManager(config, client);
+		indexManager.ensureRegistryIndexes();
+		mongoOps.dropCollection(REGISTRY_COLLECTION);
+
+		indexManager.ensureRegistryIndexes();
+
+		List<IndexInfo> indexes = mongoOps.indexOps(REGISTRY_COLLECTION).getIndexInfo();
+		assertTrue(indexes.stream().anyMatch(index -> index.isIndexForFields(List.of(MongoDBIndexManager.IDENTIFICATION_ID)) && index.isUnique()));
+	}
+}